@@ -0,0 +1,81 @@
+#!/usr/bin/env bash
+# Measures time to first request and resident memory of the application in four modes:
+#   baseline  plain jar, every bean eager
+#   lazy      plain jar, expeval.startup.lazy-packages beans lazy
+#   aot       -Paot build, Spring AOT bean definitions (lazy packages as configured at build time)
+#   aot-cds   aot plus the application CDS archive from the training run
+#
+# Time to first request runs from process launch until GET /calculate returns 200; RSS is read from
+# /proc right after it. Each mode is started RUNS times and the median is reported. By default the
+# application runs on the journal history store without a database, so the script works anywhere;
+# set APP_PROPS (system properties, also used for the AOT build) to measure another configuration.
+#
+# Usage: scripts/startup-benchmark.sh [runs]
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+RUNS=${1:-5}
+PORT=${PORT:-18080}
+JAVA=${JAVA:-java}
+WORK=$(mktemp -d)
+trap 'rm -rf "$WORK"' EXIT
+APP_PROPS=${APP_PROPS:-"-Dexpeval.history.store=journal -Dexpeval.warmup.enabled=false \
+-Dspring.autoconfigure.exclude=org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration,\
+org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration"}
+
+echo "Building plain and AOT/CDS artifacts..."
+mvn -B -q package -DskipTests
+cp target/expression_eval_api-*.jar "$WORK/plain.jar"
+mvn -B -q -Paot package -DskipTests -Daot.jvmArguments="$APP_PROPS"
+# keep timestamps: the CDS archive is rejected when the jar looks modified
+cp -rp target/app "$WORK/app"
+
+# prints "<millis> <rss kB>"
+measure() {
+  local dir=$1
+  shift
+  local journal
+  journal=$(mktemp -d -p "$WORK")
+  local started
+  started=$(date +%s%N)
+  (cd "$dir" && exec "$JAVA" $APP_PROPS -Dserver.port="$PORT" -Dexpeval.history.journal.directory="$journal" \
+    "$@" >"$WORK/app.log" 2>&1) &
+  local pid=$!
+  until curl -sf -o /dev/null "http://localhost:$PORT/api/v1/expressions/calculate?expression=1%2B1"; do
+    if ! kill -0 "$pid" 2>/dev/null; then
+      cat "$WORK/app.log" >&2
+      exit 1
+    fi
+    sleep 0.01
+  done
+  local elapsed=$((($(date +%s%N) - started) / 1000000))
+  local rss
+  rss=$(awk '/VmRSS/ {print $2}' "/proc/$pid/status")
+  kill "$pid"
+  wait "$pid" 2>/dev/null || true
+  echo "$elapsed $rss"
+}
+
+median() {
+  sort -n | awk '{v[NR] = $1} END {print v[int((NR + 1) / 2)]}'
+}
+
+run_mode() {
+  local name=$1
+  shift
+  local results=()
+  for _ in $(seq "$RUNS"); do
+    results+=("$(measure "$@")")
+  done
+  local millis rss
+  millis=$(printf '%s\n' "${results[@]}" | cut -d' ' -f1 | median)
+  rss=$(printf '%s\n' "${results[@]}" | cut -d' ' -f2 | median)
+  printf '%-10s %8s ms %8s MB\n' "$name" "$millis" "$((rss / 1024))"
+}
+
+printf '%-10s %11s %11s\n' mode first-req rss
+run_mode baseline "$WORK" -Dexpeval.startup.lazy-packages= -jar plain.jar
+run_mode lazy "$WORK" -Dexpeval.startup.lazy-packages=org.springdoc -jar plain.jar
+run_mode aot "$WORK/app" -Dspring.aot.enabled=true -jar expression_eval_api-0.0.1.jar
+run_mode aot-cds "$WORK/app" -XX:SharedArchiveFile=application.jsa -Dspring.aot.enabled=true \
+  -jar expression_eval_api-0.0.1.jar
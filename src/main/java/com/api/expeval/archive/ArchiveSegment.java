@@ -0,0 +1,321 @@
+package com.api.expeval.archive;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import com.api.expeval.model.ExpressionRecord;
+import com.api.expeval.model.ExpressionStatus;
+
+/**
+ * Immutable file holding a batch of archived {@link ExpressionRecord}s, one deflated block per
+ * column. The uncompressed header carries the id range and the min/max result, so lookups skip
+ * segments that cannot contain a value without inflating anything; a matching segment inflates the
+ * result column first and the other columns only when a row matches.
+ * <pre>
+ * int magic, int version, int rows, long minId, long maxId
+ * result minResult, result maxResult         (byte present, [int scale, ushort length, bytes])
+ * COLUMNS x (int compressed length, int raw length)
+ * COLUMNS x deflated block: ids, createdAt, status, result, expression, errorMessage
+ * </pre>
+ */
+public final class ArchiveSegment {
+  static final String SUFFIX = ".seg";
+
+  private static final int MAGIC = 0x45584152;
+  private static final int VERSION = 1;
+  private static final int COLUMNS = 6;
+  private static final int IDS = 0;
+  private static final int CREATED_AT = 1;
+  private static final int STATUS = 2;
+  private static final int RESULT = 3;
+  private static final int EXPRESSION = 4;
+  private static final int ERROR_MESSAGE = 5;
+  private static final ExpressionStatus[] STATUSES = ExpressionStatus.values();
+
+  private final Path path;
+  private final ByteBuffer data;
+  private final int rows;
+  private final long minId;
+  private final long maxId;
+  private final BigDecimal minResult;
+  private final BigDecimal maxResult;
+  private final int[] columnOffsets = new int[COLUMNS];
+  private final int[] compressedLengths = new int[COLUMNS];
+  private final int[] rawLengths = new int[COLUMNS];
+
+  private ArchiveSegment(Path path, ByteBuffer data) {
+    this.path = path;
+    this.data = data;
+    if (data.getInt() != MAGIC || data.getInt() != VERSION) {
+      throw new IllegalStateException("Unrecognized archive segment " + path);
+    }
+    this.rows = data.getInt();
+    this.minId = data.getLong();
+    this.maxId = data.getLong();
+    this.minResult = readHeaderResult(data);
+    this.maxResult = readHeaderResult(data);
+    for (int column = 0; column < COLUMNS; column++) {
+      compressedLengths[column] = data.getInt();
+      rawLengths[column] = data.getInt();
+    }
+    int offset = data.position();
+    for (int column = 0; column < COLUMNS; column++) {
+      columnOffsets[column] = offset;
+      offset += compressedLengths[column];
+    }
+  }
+
+  /**
+   * Maps an existing segment file read-only.
+   */
+  public static ArchiveSegment open(Path path) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      return new ArchiveSegment(path, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+    }
+  }
+
+  /**
+   * Writes {@code records}, ordered by id, to a new segment in {@code directory}. The file is
+   * written under a temporary name and moved into place, so a segment is either complete or absent;
+   * rewriting the same id range replaces the earlier file.
+   */
+  public static ArchiveSegment write(Path directory, List<ExpressionRecord> records) throws IOException {
+    if (records.isEmpty()) {
+      throw new IllegalArgumentException("Cannot archive an empty batch.");
+    }
+    ColumnWriter[] columns = new ColumnWriter[COLUMNS];
+    for (int column = 0; column < COLUMNS; column++) {
+      columns[column] = new ColumnWriter();
+    }
+    BigDecimal min = null;
+    BigDecimal max = null;
+    for (ExpressionRecord record : records) {
+      columns[IDS].out.writeLong(record.getId());
+      columns[CREATED_AT].out.writeLong(record.getCreatedAt().getEpochSecond());
+      columns[CREATED_AT].out.writeInt(record.getCreatedAt().getNano());
+      columns[STATUS].out.writeByte(record.getStatus().ordinal());
+      writeResult(columns[RESULT].out, record.getResult());
+      columns[EXPRESSION].out.writeUTF(record.getExpression());
+      columns[ERROR_MESSAGE].out.writeBoolean(record.getErrorMessage() != null);
+      if (record.getErrorMessage() != null) {
+        columns[ERROR_MESSAGE].out.writeUTF(record.getErrorMessage());
+      }
+      BigDecimal result = record.getResult();
+      if (result != null) {
+        min = min == null || result.compareTo(min) < 0 ? result : min;
+        max = max == null || result.compareTo(max) > 0 ? result : max;
+      }
+    }
+    long minId = records.get(0).getId();
+    long maxId = records.get(records.size() - 1).getId();
+    ByteArrayOutputStream header = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(header);
+    out.writeInt(MAGIC);
+    out.writeInt(VERSION);
+    out.writeInt(records.size());
+    out.writeLong(minId);
+    out.writeLong(maxId);
+    writeResult(out, min);
+    writeResult(out, max);
+    byte[][] blocks = new byte[COLUMNS][];
+    for (int column = 0; column < COLUMNS; column++) {
+      byte[] raw = columns[column].bytes.toByteArray();
+      blocks[column] = deflate(raw);
+      out.writeInt(blocks[column].length);
+      out.writeInt(raw.length);
+    }
+
+    Files.createDirectories(directory);
+    Path target = directory.resolve(String.format("archive-%020d-%020d%s", minId, maxId, SUFFIX));
+    Path temp = directory.resolve(target.getFileName() + ".tmp");
+    try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+      writeFully(channel, header.toByteArray());
+      for (byte[] block : blocks) {
+        writeFully(channel, block);
+      }
+      channel.force(true);
+    }
+    Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    return open(target);
+  }
+
+  public Path path() {
+    return path;
+  }
+
+  public int rows() {
+    return rows;
+  }
+
+  public long minId() {
+    return minId;
+  }
+
+  public long maxId() {
+    return maxId;
+  }
+
+  public boolean mayContain(BigDecimal result) {
+    return minResult != null && result.compareTo(minResult) >= 0 && result.compareTo(maxResult) <= 0;
+  }
+
+  public long[] ids() {
+    DataInputStream in = column(IDS);
+    long[] ids = new long[rows];
+    try {
+      for (int row = 0; row < rows; row++) {
+        ids[row] = in.readLong();
+      }
+    } catch (IOException ex) {
+      throw corrupt(ex);
+    }
+    return ids;
+  }
+
+  public List<ExpressionRecord> findByResult(BigDecimal result) {
+    if (!mayContain(result)) {
+      return List.of();
+    }
+    try {
+      DataInputStream results = column(RESULT);
+      BigDecimal[] matches = new BigDecimal[rows];
+      boolean any = false;
+      for (int row = 0; row < rows; row++) {
+        BigDecimal value = readResult(results);
+        if (value != null && value.compareTo(result) == 0) {
+          matches[row] = value;
+          any = true;
+        }
+      }
+      if (!any) {
+        return List.of();
+      }
+      DataInputStream ids = column(IDS);
+      DataInputStream createdAt = column(CREATED_AT);
+      DataInputStream statuses = column(STATUS);
+      DataInputStream expressions = column(EXPRESSION);
+      DataInputStream errors = column(ERROR_MESSAGE);
+      List<ExpressionRecord> records = new ArrayList<>();
+      for (int row = 0; row < rows; row++) {
+        long id = ids.readLong();
+        Instant created = Instant.ofEpochSecond(createdAt.readLong(), createdAt.readInt());
+        ExpressionStatus status = STATUSES[statuses.readByte()];
+        String expression = expressions.readUTF();
+        String errorMessage = errors.readBoolean() ? errors.readUTF() : null;
+        if (matches[row] != null) {
+          ExpressionRecord record = new ExpressionRecord();
+          record.setId(id);
+          record.setCreatedAt(created);
+          record.setStatus(status);
+          record.setResult(matches[row]);
+          record.setExpression(expression);
+          record.setErrorMessage(errorMessage);
+          records.add(record);
+        }
+      }
+      return records;
+    } catch (IOException ex) {
+      throw corrupt(ex);
+    }
+  }
+
+  private DataInputStream column(int column) {
+    Inflater inflater = new Inflater();
+    try {
+      inflater.setInput(data.slice(columnOffsets[column], compressedLengths[column]));
+      byte[] raw = new byte[rawLengths[column]];
+      int length = 0;
+      while (length < raw.length && !inflater.finished()) {
+        length += inflater.inflate(raw, length, raw.length - length);
+      }
+      if (length != raw.length) {
+        throw new IOException("Column " + column + " inflated to " + length + " bytes, expected " + raw.length);
+      }
+      return new DataInputStream(new ByteArrayInputStream(raw));
+    } catch (DataFormatException | IOException ex) {
+      throw corrupt(ex);
+    } finally {
+      inflater.end();
+    }
+  }
+
+  private UncheckedIOException corrupt(Exception cause) {
+    return new UncheckedIOException(new IOException("Corrupt archive segment " + path, cause));
+  }
+
+  private static byte[] deflate(byte[] raw) {
+    Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+    try {
+      deflater.setInput(raw);
+      deflater.finish();
+      ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, raw.length / 4));
+      byte[] buffer = new byte[64 * 1024];
+      while (!deflater.finished()) {
+        out.write(buffer, 0, deflater.deflate(buffer));
+      }
+      return out.toByteArray();
+    } finally {
+      deflater.end();
+    }
+  }
+
+  private static void writeFully(FileChannel channel, byte[] bytes) throws IOException {
+    ByteBuffer buffer = ByteBuffer.wrap(bytes);
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+  }
+
+  private static void writeResult(DataOutputStream out, BigDecimal result) throws IOException {
+    out.writeBoolean(result != null);
+    if (result != null) {
+      byte[] unscaled = result.unscaledValue().toByteArray();
+      out.writeInt(result.scale());
+      out.writeShort(unscaled.length);
+      out.write(unscaled);
+    }
+  }
+
+  private static BigDecimal readResult(DataInputStream in) throws IOException {
+    if (!in.readBoolean()) {
+      return null;
+    }
+    int scale = in.readInt();
+    byte[] unscaled = new byte[in.readUnsignedShort()];
+    in.readFully(unscaled);
+    return new BigDecimal(new BigInteger(unscaled), scale);
+  }
+
+  private static BigDecimal readHeaderResult(ByteBuffer in) {
+    if (in.get() == 0) {
+      return null;
+    }
+    int scale = in.getInt();
+    byte[] unscaled = new byte[in.getShort() & 0xFFFF];
+    in.get(unscaled);
+    return new BigDecimal(new BigInteger(unscaled), scale);
+  }
+
+  private static final class ColumnWriter {
+    private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    private final DataOutputStream out = new DataOutputStream(bytes);
+  }
+}
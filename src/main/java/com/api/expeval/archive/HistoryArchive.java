@@ -0,0 +1,82 @@
+package com.api.expeval.archive;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import com.api.expeval.model.ExpressionRecord;
+
+/**
+ * Catalog of the archive segments in {@code expeval.archive.directory}, ordered by id. Segments
+ * written by {@link HistoryArchiver} become visible to lookups once they are registered, before
+ * their rows are deleted from the database, so a record may be found in both places for a while
+ * and callers de-duplicate by id. The newest segment found at startup, whose rows a crash may have
+ * left in the database, is visible too and stays unreconciled until the archiver has deleted them.
+ */
+@Component
+@ConditionalOnProperty(name = "expeval.archive.enabled", havingValue = "true")
+public class HistoryArchive {
+  private final Path directory;
+  private final List<ArchiveSegment> segments = new CopyOnWriteArrayList<>();
+  private volatile ArchiveSegment unreconciled;
+
+  public HistoryArchive(@Value("${expeval.archive.directory:./data/archive}") Path directory) {
+    this.directory = directory;
+    if (Files.isDirectory(directory)) {
+      try (Stream<Path> files = Files.list(directory)) {
+        for (Path path : files.filter(file -> file.getFileName().toString().endsWith(ArchiveSegment.SUFFIX))
+            .sorted().toList()) {
+          unreconciled = ArchiveSegment.open(path);
+          segments.add(unreconciled);
+        }
+      } catch (IOException ex) {
+        throw new UncheckedIOException("Cannot open history archive in " + directory, ex);
+      }
+    }
+  }
+
+  public List<ExpressionRecord> findByResult(BigDecimal normalizedResult) {
+    List<ExpressionRecord> records = new ArrayList<>();
+    for (ArchiveSegment segment : segments) {
+      records.addAll(segment.findByResult(normalizedResult));
+    }
+    return records;
+  }
+
+  /**
+   * Highest archived id, or 0 when nothing has been archived.
+   */
+  public long maxArchivedId() {
+    return segments.isEmpty() ? 0 : segments.get(segments.size() - 1).maxId();
+  }
+
+  /**
+   * Newest segment whose rows may still be in the database, or {@code null} once they are deleted.
+   */
+  public ArchiveSegment unreconciled() {
+    return unreconciled;
+  }
+
+  ArchiveSegment write(List<ExpressionRecord> records) throws IOException {
+    return ArchiveSegment.write(directory, records);
+  }
+
+  void register(ArchiveSegment segment) {
+    segments.add(segment);
+    unreconciled = segment;
+  }
+
+  void reconciled(ArchiveSegment segment) {
+    if (segment == unreconciled) {
+      unreconciled = null;
+    }
+  }
+}
@@ -0,0 +1,104 @@
+package com.api.expeval.archive;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import com.api.expeval.model.ExpressionRecord;
+import com.api.expeval.repository.ExpressionRecordRepository;
+
+/**
+ * Moves {@code expression_records} rows older than {@code expeval.archive.max-age} into archive
+ * segments, one segment per batch. A batch is registered in the {@link HistoryArchive} once its
+ * segment file is durable and deleted from the database after that, so every record stays visible
+ * in at least one place; lookups drop the copies found in both. If the delete fails or the process
+ * dies first, the rows of that segment are deleted again on the next run or at startup.
+ */
+@Component
+@ConditionalOnProperty(name = "expeval.archive.enabled", havingValue = "true")
+public class HistoryArchiver {
+  private static final Logger log = LoggerFactory.getLogger(HistoryArchiver.class);
+  private static final int DELETE_CHUNK_SIZE = 1000;
+
+  private final ExpressionRecordRepository repository;
+  private final HistoryArchive archive;
+  private final TransactionTemplate transactionTemplate;
+  private final Duration maxAge;
+  private final int batchSize;
+
+  public HistoryArchiver(ExpressionRecordRepository repository,
+                         HistoryArchive archive,
+                         PlatformTransactionManager transactionManager,
+                         @Value("${expeval.archive.max-age:30d}") Duration maxAge,
+                         @Value("${expeval.archive.batch-size:50000}") int batchSize) {
+    this.repository = repository;
+    this.archive = archive;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.maxAge = maxAge;
+    this.batchSize = batchSize;
+  }
+
+  /**
+   * Deletes the rows of the newest segment that a failed delete or a crash may have left in the
+   * database. On failure they stay in both places and the next run retries.
+   */
+  @PostConstruct
+  public synchronized void reconcile() {
+    ArchiveSegment segment = archive.unreconciled();
+    if (segment == null) {
+      return;
+    }
+    try {
+      delete(Arrays.stream(segment.ids()).boxed().toList());
+      archive.reconciled(segment);
+    } catch (RuntimeException ex) {
+      log.warn("Reconciling archive segment {} failed, retrying on next run", segment.path(), ex);
+    }
+  }
+
+  @Scheduled(fixedDelayString = "${expeval.archive.interval-ms:3600000}")
+  public synchronized void archive() {
+    reconcile();
+    if (archive.unreconciled() != null) {
+      return;
+    }
+    try {
+      Instant cutoff = Instant.now().minus(maxAge);
+      List<ExpressionRecord> batch;
+      do {
+        batch = repository.findByIdGreaterThanAndCreatedAtBeforeOrderByIdAsc(
+            archive.maxArchivedId(), cutoff, PageRequest.of(0, batchSize));
+        if (batch.isEmpty()) {
+          return;
+        }
+        ArchiveSegment segment = archive.write(batch);
+        archive.register(segment);
+        delete(batch.stream().map(ExpressionRecord::getId).toList());
+        archive.reconciled(segment);
+        log.info("Archived {} expression records (ids {}-{}) to {}",
+            segment.rows(), segment.minId(), segment.maxId(), segment.path());
+      } while (batch.size() == batchSize);
+    } catch (IOException | RuntimeException ex) {
+      log.warn("Archiving expression records failed, retrying on next run", ex);
+    }
+  }
+
+  private void delete(List<Long> ids) {
+    transactionTemplate.executeWithoutResult(status -> {
+      for (int from = 0; from < ids.size(); from += DELETE_CHUNK_SIZE) {
+        repository.deleteAllByIdInBatch(ids.subList(from, Math.min(from + DELETE_CHUNK_SIZE, ids.size())));
+      }
+    });
+  }
+}
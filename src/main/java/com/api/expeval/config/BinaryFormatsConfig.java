@@ -0,0 +1,38 @@
+package com.api.expeval.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+/**
+ * CBOR ({@code application/cbor}) and Smile ({@code application/x-jackson-smile}) alongside JSON,
+ * selected through {@code Accept} and {@code Content-Type}. Both formats encode {@code BigDecimal}
+ * natively as scale plus unscaled binary integer (CBOR tag 4), and instants are written as epoch
+ * milliseconds instead of ISO strings.
+ */
+@Configuration(proxyBeanMethods = false)
+public class BinaryFormatsConfig {
+
+  @Bean
+  public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+    return new MappingJackson2CborHttpMessageConverter(binaryMapper(builder.factory(new CBORFactory())));
+  }
+
+  @Bean
+  public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+    return new MappingJackson2SmileHttpMessageConverter(binaryMapper(builder.factory(new SmileFactory())));
+  }
+
+  private static ObjectMapper binaryMapper(Jackson2ObjectMapperBuilder builder) {
+    return builder
+        .featuresToEnable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+        .featuresToDisable(SerializationFeature.WRITE_DATE_TIMESTAMPS_AS_NANOSECONDS)
+        .build();
+  }
+}
@@ -0,0 +1,52 @@
+package com.api.expeval.config;
+
+import java.util.List;
+import org.springframework.beans.factory.annotation.AnnotatedBeanDefinition;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.type.MethodMetadata;
+
+/**
+ * Marks beans from the packages in {@code expeval.startup.lazy-packages} (for example
+ * {@code org.springdoc}) lazy, so code that is off the request path is initialized on first use
+ * instead of during startup. Unlike {@code spring.main.lazy-initialization} this leaves the
+ * evaluation path eager, so the first request does not pay for creating it.
+ */
+@Configuration(proxyBeanMethods = false)
+public class LazyBeansConfig {
+
+  @Bean
+  public static BeanFactoryPostProcessor lazyPackagesPostProcessor(Environment environment) {
+    List<String> packages = Binder.get(environment)
+        .bind("expeval.startup.lazy-packages", Bindable.listOf(String.class))
+        .orElse(List.of());
+    return beanFactory -> {
+      if (packages.isEmpty()) {
+        return;
+      }
+      for (String name : beanFactory.getBeanDefinitionNames()) {
+        BeanDefinition definition = beanFactory.getBeanDefinition(name);
+        String className = declaringClassName(definition);
+        if (className != null && packages.stream().anyMatch(prefix -> className.startsWith(prefix + '.'))) {
+          definition.setLazyInit(true);
+        }
+      }
+    };
+  }
+
+  // @Bean methods have no bean class name until they are instantiated; use their configuration class
+  private static String declaringClassName(BeanDefinition definition) {
+    if (definition instanceof AnnotatedBeanDefinition annotated) {
+      MethodMetadata factoryMethod = annotated.getFactoryMethodMetadata();
+      if (factoryMethod != null) {
+        return factoryMethod.getDeclaringClassName();
+      }
+    }
+    return definition.getBeanClassName();
+  }
+}
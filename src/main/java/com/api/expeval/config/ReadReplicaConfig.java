@@ -0,0 +1,64 @@
+package com.api.expeval.config;
+
+import java.time.Duration;
+import javax.sql.DataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+/**
+ * Separate pool for read-only transactions, enabled by setting {@code expeval.datasource.read.url}.
+ * The primary pool keeps the {@code spring.datasource.*} settings; the read pool is configured with
+ * {@code expeval.datasource.read.*} and {@code expeval.datasource.read.hikari.*}.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "expeval.datasource.read.url")
+public class ReadReplicaConfig {
+
+  @Bean
+  @ConfigurationProperties("spring.datasource.hikari")
+  public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+    HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    dataSource.setPoolName("primary");
+    return dataSource;
+  }
+
+  @Bean
+  @ConfigurationProperties("expeval.datasource.read.hikari")
+  public HikariDataSource readDataSource(@Value("${expeval.datasource.read.url}") String url,
+                                         @Value("${expeval.datasource.read.username:}") String username,
+                                         @Value("${expeval.datasource.read.password:}") String password) {
+    HikariDataSource dataSource = DataSourceBuilder.create()
+        .type(HikariDataSource.class)
+        .url(url)
+        .username(username)
+        .password(password)
+        .build();
+    dataSource.setPoolName("read");
+    return dataSource;
+  }
+
+  @Bean
+  public ReadWriteRoutingDataSource routingDataSource(
+      @Qualifier("primaryDataSource") DataSource primary,
+      @Qualifier("readDataSource") DataSource read,
+      @Value("${expeval.datasource.read.max-staleness:0s}") Duration maxStaleness,
+      @Value("${expeval.datasource.read.lag-query:"
+          + "select coalesce(extract(epoch from now() - pg_last_xact_replay_timestamp()), 0)}") String lagQuery) {
+    return new ReadWriteRoutingDataSource(primary, read, maxStaleness, lagQuery);
+  }
+
+  @Bean
+  @Primary
+  public DataSource dataSource(ReadWriteRoutingDataSource routingDataSource) {
+    return new LazyConnectionDataSourceProxy(routingDataSource);
+  }
+}
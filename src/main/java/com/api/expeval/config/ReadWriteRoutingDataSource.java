@@ -0,0 +1,105 @@
+package com.api.expeval.config;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Map;
+import javax.sql.DataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Routes connections for read-only transactions to the read datasource and everything else to the
+ * primary. Reads fall back to the primary while the replica is unreachable or, when a maximum
+ * staleness is configured, lags further behind than allowed. Must sit behind a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy} so that the target is
+ * chosen after the transaction's read-only flag is known.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+  private static final Logger log = LoggerFactory.getLogger(ReadWriteRoutingDataSource.class);
+
+  enum Route { PRIMARY, READ }
+
+  private final DataSource primary;
+  private final DataSource read;
+  private final Duration maxStaleness;
+  private final String lagQuery;
+  private volatile boolean readUsable = true;
+
+  /**
+   * @param maxStaleness maximum replica lag; zero disables the lag check
+   * @param lagQuery     query returning the replica lag in seconds ({@code null} means no lag)
+   */
+  public ReadWriteRoutingDataSource(DataSource primary, DataSource read, Duration maxStaleness, String lagQuery) {
+    this.primary = primary;
+    this.read = read;
+    this.maxStaleness = maxStaleness;
+    this.lagQuery = lagQuery;
+    setTargetDataSources(Map.of(Route.PRIMARY, primary, Route.READ, read));
+    setDefaultTargetDataSource(primary);
+  }
+
+  @Override
+  protected Object determineCurrentLookupKey() {
+    return TransactionSynchronizationManager.isCurrentTransactionReadOnly() && readUsable
+        ? Route.READ : Route.PRIMARY;
+  }
+
+  @Override
+  public Connection getConnection() throws SQLException {
+    if (determineCurrentLookupKey() != Route.READ) {
+      return primary.getConnection();
+    }
+    try {
+      return read.getConnection();
+    } catch (SQLException ex) {
+      markReadUnusable("connection failed", ex);
+      return primary.getConnection();
+    }
+  }
+
+  public boolean isReadUsable() {
+    return readUsable;
+  }
+
+  /**
+   * Probes the read datasource and, if a maximum staleness is set, its replication lag.
+   */
+  @Scheduled(fixedDelayString = "${expeval.datasource.read.check-interval-ms:5000}")
+  public void refreshReadState() {
+    try (Connection connection = read.getConnection()) {
+      if (maxStaleness.isZero() || lagQuery == null || lagQuery.isBlank()) {
+        setReadUsable(connection.isValid(1), "validation failed");
+        return;
+      }
+      try (Statement statement = connection.createStatement();
+           ResultSet resultSet = statement.executeQuery(lagQuery)) {
+        double lagSeconds = resultSet.next() ? resultSet.getDouble(1) : 0;
+        setReadUsable(lagSeconds * 1000 <= maxStaleness.toMillis(), "lag of " + lagSeconds + "s");
+      }
+    } catch (SQLException ex) {
+      markReadUnusable("health check failed", ex);
+    }
+  }
+
+  private void setReadUsable(boolean usable, String reason) {
+    if (usable && !readUsable) {
+      log.info("Read datasource recovered, routing read-only transactions to it again");
+    } else if (!usable && readUsable) {
+      log.warn("Read datasource unusable ({}), routing reads to the primary", reason);
+    }
+    readUsable = usable;
+  }
+
+  private void markReadUnusable(String reason, SQLException ex) {
+    if (readUsable) {
+      log.warn("Read datasource unusable ({}), routing reads to the primary", reason, ex);
+    }
+    readUsable = false;
+  }
+}
@@ -0,0 +1,108 @@
+package com.api.expeval.config;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import javax.sql.DataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.stereotype.Component;
+
+/**
+ * Creates the {@code pg_trgm} GIN index that serves expression search on the table of the active
+ * history store. Hibernate's schema update cannot express it, so it is created on PostgreSQL after
+ * startup, concurrently and on a background thread: building it over a large table does not block
+ * writes or delay readiness, and search falls back to a sequential scan until it is valid. Other
+ * databases are skipped. Instances starting together take a session advisory lock first, so only
+ * one of them checks, drops or builds the index: another instance could otherwise drop an index
+ * that is still being built as if it were left invalid by a crash.
+ */
+@Component
+@ConditionalOnProperty(name = "expeval.search.trigram-index", havingValue = "true", matchIfMissing = true)
+public class TrigramIndexInitializer implements ApplicationRunner {
+  private static final Logger log = LoggerFactory.getLogger(TrigramIndexInitializer.class);
+
+  private final ObjectProvider<DataSource> dataSource;
+  private final String store;
+
+  public TrigramIndexInitializer(ObjectProvider<DataSource> dataSource,
+                                 @Value("${expeval.history.store:jpa}") String store) {
+    this.dataSource = dataSource;
+    this.store = store;
+  }
+
+  @Override
+  public void run(ApplicationArguments args) {
+    String table = switch (store) {
+      case "jpa" -> "expression_records";
+      case "deduplicated" -> "unique_expressions";
+      default -> null;
+    };
+    DataSource target = dataSource.getIfAvailable();
+    if (table == null || target == null || !isPostgres(target)) {
+      return;
+    }
+    Thread thread = new Thread(() -> createIndexLocked(target, table), "trigram-index");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  /**
+   * @return {@code false} when another session holds the lock and nothing was checked
+   */
+  boolean createIndexLocked(DataSource target, String table) {
+    String index = "idx_" + table + "_expression_trgm";
+    // session-level lock, so every statement runs on this one connection
+    try (Connection connection = target.getConnection()) {
+      JdbcTemplate jdbc = new JdbcTemplate(new SingleConnectionDataSource(connection, true));
+      Boolean locked = jdbc.queryForObject("select pg_try_advisory_lock(hashtext(?))", Boolean.class, index);
+      if (!Boolean.TRUE.equals(locked)) {
+        log.info("Trigram index {} is being checked by another instance", index);
+        return false;
+      }
+      try {
+        createIndex(jdbc, table, index);
+      } finally {
+        jdbc.queryForObject("select pg_advisory_unlock(hashtext(?))", Boolean.class, index);
+      }
+    } catch (SQLException | RuntimeException ex) {
+      log.warn("Could not create trigram index {}; expression search will scan {}: {}", index, table,
+          ex.getMessage());
+    }
+    return true;
+  }
+
+  private void createIndex(JdbcTemplate jdbc, String table, String index) {
+    Boolean valid = jdbc.query("select i.indisvalid from pg_index i where i.indexrelid = to_regclass(?)",
+        rs -> rs.next() ? rs.getBoolean(1) : null, index);
+    if (Boolean.TRUE.equals(valid)) {
+      return;
+    }
+    if (valid != null) {
+      // left behind by an interrupted concurrent build (no other instance holds the lock); IF NOT
+      // EXISTS would keep it
+      jdbc.execute("drop index concurrently if exists " + index);
+    }
+    jdbc.execute("create extension if not exists pg_trgm");
+    long started = System.nanoTime();
+    log.info("Creating trigram index {} on {}", index, table);
+    jdbc.execute("create index concurrently if not exists " + index + " on " + table
+        + " using gin (expression gin_trgm_ops)");
+    log.info("Trigram index {} created in {} ms", index, (System.nanoTime() - started) / 1_000_000);
+  }
+
+  private static boolean isPostgres(DataSource dataSource) {
+    try (Connection connection = dataSource.getConnection()) {
+      return "PostgreSQL".equals(connection.getMetaData().getDatabaseProductName());
+    } catch (SQLException ex) {
+      log.warn("Could not determine the database for the trigram index: {}", ex.getMessage());
+      return false;
+    }
+  }
+}
@@ -5,9 +5,14 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.util.List;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -15,11 +20,18 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 import com.api.expeval.dto.ExpressionRequest;
 import com.api.expeval.dto.ExpressionResponse;
+import com.api.expeval.dto.ExpressionSearchResponse;
+import com.api.expeval.dto.ExpressionStatsResponse;
+import com.api.expeval.model.PrecisionProfile;
 import com.api.expeval.service.ExpressionService;
+import com.api.expeval.stats.EvaluationStats;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
 
 @RestController
 @RequestMapping("/api/v1/expressions")
@@ -28,24 +40,90 @@ import jakarta.validation.constraints.NotNull;
 public class ExpressionController {
   private static final Logger log = LoggerFactory.getLogger(ExpressionController.class);
   private final ExpressionService service;
+  private final EvaluationStats stats;
+  private final CacheControl calculateCacheControl;
 
-  public ExpressionController(ExpressionService service) {
+  public ExpressionController(ExpressionService service, EvaluationStats stats,
+                              @Value("${expeval.http.calculate-max-age:1d}") Duration calculateMaxAge) {
     this.service = service;
+    this.stats = stats;
+    this.calculateCacheControl = CacheControl.maxAge(calculateMaxAge).cachePublic();
   }
 
   @PostMapping("/calculate")
-  @Operation(summary = "Evaluate a mathematical expression", description = "Parses and calculates the result of a given expression.")
+  @Operation(summary = "Evaluate a mathematical expression", description = "Parses and calculates the result of a given expression. "
+      + "The optional precision profile is FAST (16 digits), STANDARD (32 digits, default) or HIGH (64 digits).")
   @ApiResponse(responseCode = "200", description = "Expression successfully evaluated")
   @ApiResponse(responseCode = "400", description = "Invalid expression or request")
   public ExpressionResponse calculate(@Valid @RequestBody ExpressionRequest request) {
     log.info("Calculation request received");
-    return service.evaluate(request.getExpression());
+    return service.evaluate(request.getExpression(), request.getPrecision());
+  }
+
+  @GetMapping("/calculate")
+  @Operation(summary = "Evaluate a mathematical expression (cacheable)", description = "Same evaluation as POST, "
+      + "with a weak ETag derived from the engine and the canonical expression and a public Cache-Control max-age. "
+      + "If-None-Match with a matching tag is answered with 304 without evaluating.")
+  @ApiResponse(responseCode = "200", description = "Expression successfully evaluated")
+  @ApiResponse(responseCode = "304", description = "Cached result is still valid")
+  @ApiResponse(responseCode = "400", description = "Invalid expression or request")
+  public ResponseEntity<ExpressionResponse> calculate(
+      @NotBlank(message = "Expression is required.") @Size(max = 1000, message = "Expression is too long.")
+      @RequestParam("expression") String expression,
+      @RequestParam(value = "precision", required = false) PrecisionProfile precision,
+      WebRequest request) {
+    String etag = service.calculationTag(expression, precision);
+    if (etag == null) {
+      return ResponseEntity.ok().body(service.evaluate(expression, precision));
+    }
+    if (request.checkNotModified(etag)) {
+      return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(calculateCacheControl).build();
+    }
+    return ResponseEntity.ok()
+        .eTag(etag)
+        .cacheControl(calculateCacheControl)
+        .body(service.evaluate(expression, precision));
   }
 
   @GetMapping("/find-by-result")
-  @Operation(summary = "Find previous evaluations by result value", description = "Retrieves a list of expressions that evaluated to the specified value.")
+  @Operation(summary = "Find previous evaluations by result value", description = "Retrieves a list of expressions that evaluated to the specified value. "
+      + "The ETag changes when a record with this result is stored through this instance, and at least every "
+      + "expeval.http.result-tag-max-age, so If-None-Match is answered with 304 without a lookup.")
   @ApiResponse(responseCode = "200", description = "List of matching expressions")
-  public List<ExpressionResponse> findByResult(@NotNull @RequestParam("value") BigDecimal value) {
-    return service.findByResult(value);
+  @ApiResponse(responseCode = "304", description = "No records with this result were stored since the tagged response")
+  public ResponseEntity<List<ExpressionResponse>> findByResult(@NotNull @RequestParam("value") BigDecimal value,
+                                                               WebRequest request) {
+    String etag = service.findByResultTag(value);
+    if (request.checkNotModified(etag)) {
+      return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(CacheControl.noCache()).build();
+    }
+    return ResponseEntity.ok()
+        .eTag(etag)
+        .cacheControl(CacheControl.noCache())
+        .body(service.findByResult(value));
+  }
+
+  @GetMapping("/search")
+  @Operation(summary = "Search previous evaluations by expression text", description = "Returns evaluations whose "
+      + "stored expression contains the given text literally, newest first. Pass the returned nextBeforeId as "
+      + "beforeId to fetch the next page. Backed by a trigram index on PostgreSQL; text without 3 consecutive "
+      + "letters or digits is matched against a bounded window of recent ids per page, so such a page can be "
+      + "short or empty and still have a nextBeforeId.")
+  @ApiResponse(responseCode = "200", description = "One page of matching evaluations")
+  @ApiResponse(responseCode = "400", description = "Search text too short or too long, or invalid page size")
+  public ExpressionSearchResponse search(@RequestParam("contains") String contains,
+                                         @RequestParam(value = "beforeId", required = false) Long beforeId,
+                                         @RequestParam(value = "size", defaultValue = "20") int size) {
+    return service.search(contains, beforeId, size);
+  }
+
+  @GetMapping("/stats")
+  @Operation(summary = "Evaluation statistics", description = "Returns counts, error rate, latency percentiles, "
+      + "frequent expressions and errors and distinct expressions over the last minutes, plus a decaying "
+      + "distribution of results. Served from in-memory sketches; counts are estimates.")
+  @ApiResponse(responseCode = "200", description = "Statistics for the requested window")
+  @ApiResponse(responseCode = "400", description = "Window outside the retained range")
+  public ExpressionStatsResponse stats(@RequestParam(value = "minutes", defaultValue = "5") int minutes) {
+    return stats.snapshot(minutes);
   }
 }
@@ -0,0 +1,70 @@
+package com.api.expeval.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.Semaphore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import com.api.expeval.exception.ServiceOverloadedException;
+import com.api.expeval.export.ExportFilter;
+import com.api.expeval.export.ExportFormat;
+import com.api.expeval.export.HistoryExporter;
+import com.api.expeval.model.ExpressionStatus;
+import jakarta.servlet.http.HttpServletResponse;
+
+@RestController
+@RequestMapping("/api/v1/expressions")
+@ConditionalOnProperty(name = "expeval.history.store", havingValue = "jpa", matchIfMissing = true)
+@Tag(name = "Expression Evaluation", description = "Operations related to expression evaluation")
+public class HistoryExportController {
+  private final HistoryExporter exporter;
+  // each export holds a database connection and a request thread until the download ends
+  private final Semaphore exports;
+  private final Duration retryAfter;
+
+  public HistoryExportController(HistoryExporter exporter,
+                                 @Value("${expeval.export.max-concurrent:2}") int maxConcurrent,
+                                 @Value("${expeval.export.retry-after:30s}") Duration retryAfter) {
+    this.exporter = exporter;
+    this.exports = new Semaphore(maxConcurrent);
+    this.retryAfter = retryAfter;
+  }
+
+  @GetMapping("/export")
+  @Operation(summary = "Export evaluation history", description = "Streams expression_records as gzip CSV "
+      + "(id,created_at,status,expression,result,error_message) or, with format=PARQUET, as a Parquet file with "
+      + "the same columns, ordered by id, optionally filtered by creation time [from, to) and status. The id is "
+      + "the checkpoint: after an interrupted download, request again with afterId set to the last complete "
+      + "row's id.")
+  @ApiResponse(responseCode = "200", description = "Gzip CSV or Parquet stream")
+  @ApiResponse(responseCode = "400", description = "Invalid filter")
+  @ApiResponse(responseCode = "503", description = "expeval.export.max-concurrent exports already running")
+  public void export(@RequestParam(value = "from", required = false) Instant from,
+                     @RequestParam(value = "to", required = false) Instant to,
+                     @RequestParam(value = "status", required = false) ExpressionStatus status,
+                     @RequestParam(value = "afterId", defaultValue = "0") long afterId,
+                     @RequestParam(value = "format", defaultValue = "CSV") ExportFormat format,
+                     HttpServletResponse response) throws IOException {
+    if (!exports.tryAcquire()) {
+      throw new ServiceOverloadedException("Too many exports in progress, retry later.", retryAfter);
+    }
+    try {
+      response.setContentType(format.getContentType());
+      response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+          .filename("expression_records" + format.getExtension()).build().toString());
+      exporter.export(new ExportFilter(from, to, status, afterId), format, response.getOutputStream());
+    } finally {
+      exports.release();
+    }
+  }
+}
@@ -1,5 +1,6 @@
 package com.api.expeval.dto;
 
+import com.api.expeval.model.PrecisionProfile;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
 import lombok.Getter;
@@ -12,4 +13,6 @@ public class ExpressionRequest {
   @NotBlank(message = "Expression is required.")
   @Size(max = 1000, message = "Expression is too long.")
   private String expression;
+
+  private PrecisionProfile precision;
 }
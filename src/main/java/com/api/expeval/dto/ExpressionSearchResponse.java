@@ -0,0 +1,16 @@
+package com.api.expeval.dto;
+
+import java.util.List;
+import lombok.Builder;
+import lombok.Getter;
+
+@Getter
+@Builder
+public class ExpressionSearchResponse {
+
+  private List<ExpressionResponse> items;
+  /**
+   * Value for {@code beforeId} that fetches the next page, {@code null} on the last page.
+   */
+  private Long nextBeforeId;
+}
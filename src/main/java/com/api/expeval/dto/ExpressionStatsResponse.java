@@ -0,0 +1,58 @@
+package com.api.expeval.dto;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+import lombok.Builder;
+import lombok.Getter;
+
+@Getter
+@Builder
+public class ExpressionStatsResponse {
+
+  private Instant from;
+  private Instant to;
+  private long evaluations;
+  private long errors;
+  private double errorRate;
+  private long distinctExpressions;
+  private Latency latencyMicros;
+  private List<Frequency> topExpressions;
+  private List<Frequency> topErrors;
+  private List<Minute> perMinute;
+  private List<ResultBucket> resultDistribution;
+
+  @Getter
+  @Builder
+  public static class Latency {
+    private long p50;
+    private long p90;
+    private long p99;
+    private long p999;
+    private long max;
+    private double mean;
+  }
+
+  @Getter
+  @Builder
+  public static class Frequency {
+    private String value;
+    private long count;
+  }
+
+  @Getter
+  @Builder
+  public static class Minute {
+    private Instant minute;
+    private long evaluations;
+    private long errors;
+  }
+
+  @Getter
+  @Builder
+  public static class ResultBucket {
+    private BigDecimal lowerBound;
+    private BigDecimal upperBound;
+    private double weight;
+  }
+}
@@ -0,0 +1,209 @@
+package com.api.expeval.engine;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import com.api.expeval.model.PrecisionProfile;
+import com.api.expeval.util.LogRateLimiter;
+
+/**
+ * Evaluates with the engine named by {@code expeval.engine.primary} and, when
+ * {@code expeval.engine.shadow} names a candidate, replays a sample
+ * ({@code expeval.engine.shadow-sample-rate}) of the same inputs on it from a separate bounded
+ * executor. The candidate's outcome never reaches the caller; it is compared with the primary's:
+ * results must be equal including scale (or, with {@code expeval.engine.shadow-compare=rounded},
+ * after rounding to the profile's result scale, as returned to clients), and failures must have the
+ * same exception type. Outcomes
+ * are counted in {@code expeval.engine.shadow.comparisons} by {@code outcome}, mismatches are
+ * logged (rate-limited), and candidate-to-primary latency ratios go to
+ * {@code expeval.engine.shadow.latency-ratio}. Samples that find the executor's queue full are
+ * dropped and counted rather than slowing down live requests.
+ */
+@Component
+public class EvaluationRouter {
+  private static final Logger log = LoggerFactory.getLogger(EvaluationRouter.class);
+
+  private final ExpressionEngine primary;
+  private final ExpressionEngine shadow;
+  private final double sampleRate;
+  private final boolean rounded;
+  private final Executor shadowExecutor;
+  private final LogRateLimiter mismatchLog = new LogRateLimiter(10);
+  private final Counter matches;
+  private final Counter resultMismatches;
+  private final Counter exceptionMismatches;
+  private final Counter dropped;
+  private final Timer primaryLatency;
+  private final Timer shadowLatency;
+  private final DistributionSummary latencyRatio;
+
+  @Autowired
+  public EvaluationRouter(List<ExpressionEngine> engines, MeterRegistry registry,
+                          @Value("${expeval.engine.primary:parser}") String primary,
+                          @Value("${expeval.engine.shadow:}") String shadow,
+                          @Value("${expeval.engine.shadow-sample-rate:0.01}") double sampleRate,
+                          @Value("${expeval.engine.shadow-compare:exact}") String compare,
+                          @Value("${expeval.engine.shadow-threads:2}") int shadowThreads,
+                          @Value("${expeval.engine.shadow-queue-capacity:1000}") int queueCapacity) {
+    this(engines, registry, primary, shadow, sampleRate, "rounded".equals(compare),
+        shadowExecutor(shadow, shadowThreads, queueCapacity));
+  }
+
+  EvaluationRouter(List<ExpressionEngine> engines, MeterRegistry registry, String primary, String shadow,
+                   double sampleRate, boolean rounded, Executor shadowExecutor) {
+    this.primary = find(engines, primary);
+    this.shadow = shadow.isBlank() ? null : find(engines, shadow);
+    this.sampleRate = sampleRate;
+    this.rounded = rounded;
+    this.shadowExecutor = shadowExecutor;
+    this.matches = comparisons(registry, "match");
+    this.resultMismatches = comparisons(registry, "result-mismatch");
+    this.exceptionMismatches = comparisons(registry, "exception-mismatch");
+    this.dropped = comparisons(registry, "dropped");
+    this.primaryLatency = latency(registry, this.primary, "primary");
+    this.shadowLatency = this.shadow == null ? null : latency(registry, this.shadow, "shadow");
+    this.latencyRatio = DistributionSummary.builder("expeval.engine.shadow.latency-ratio")
+        .description("Candidate latency divided by primary latency for the same input")
+        .publishPercentiles(0.5, 0.99)
+        .register(registry);
+  }
+
+  private static Executor shadowExecutor(String shadow, int threads, int queueCapacity) {
+    if (shadow.isBlank()) {
+      return null;
+    }
+    AtomicInteger threadCount = new AtomicInteger();
+    return new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+          Thread thread = new Thread(runnable, "engine-shadow-" + threadCount.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        });
+  }
+
+  private static ExpressionEngine find(List<ExpressionEngine> engines, String name) {
+    return engines.stream()
+        .filter(engine -> engine.name().equals(name))
+        .findFirst()
+        .orElseThrow(() -> new IllegalStateException("Unknown expression engine '" + name + "', available: "
+            + engines.stream().map(ExpressionEngine::name).toList()));
+  }
+
+  private static Counter comparisons(MeterRegistry registry, String outcome) {
+    return Counter.builder("expeval.engine.shadow.comparisons").tag("outcome", outcome).register(registry);
+  }
+
+  private static Timer latency(MeterRegistry registry, ExpressionEngine engine, String role) {
+    return Timer.builder("expeval.engine.latency").tag("engine", engine.name()).tag("role", role)
+        .register(registry);
+  }
+
+  /**
+   * The primary engine alone, for callers that are not live traffic (such as warm-up).
+   */
+  public ExpressionEngine primary() {
+    return primary;
+  }
+
+  public BigDecimal evaluate(String expression, PrecisionProfile precision) {
+    if (shadow == null || ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+      return primary.evaluate(expression, precision);
+    }
+    long started = System.nanoTime();
+    BigDecimal result;
+    try {
+      result = primary.evaluate(expression, precision);
+    } catch (RuntimeException ex) {
+      shadow(expression, precision, null, ex, System.nanoTime() - started);
+      throw ex;
+    }
+    shadow(expression, precision, result, null, System.nanoTime() - started);
+    return result;
+  }
+
+  private void shadow(String expression, PrecisionProfile precision, BigDecimal expected,
+                      RuntimeException expectedFailure, long primaryNanos) {
+    primaryLatency.record(primaryNanos, TimeUnit.NANOSECONDS);
+    try {
+      shadowExecutor.execute(() -> compare(expression, precision, expected, expectedFailure, primaryNanos));
+    } catch (RejectedExecutionException ex) {
+      dropped.increment();
+    }
+  }
+
+  private void compare(String expression, PrecisionProfile precision, BigDecimal expected,
+                       RuntimeException expectedFailure, long primaryNanos) {
+    long started = System.nanoTime();
+    BigDecimal actual = null;
+    RuntimeException actualFailure = null;
+    try {
+      actual = shadow.evaluate(expression, precision);
+    } catch (RuntimeException ex) {
+      actualFailure = ex;
+    }
+    long shadowNanos = System.nanoTime() - started;
+    shadowLatency.record(shadowNanos, TimeUnit.NANOSECONDS);
+    latencyRatio.record((double) shadowNanos / Math.max(1, primaryNanos));
+    if (expectedFailure != null || actualFailure != null) {
+      if (expectedFailure != null && actualFailure != null && expectedFailure.getClass() == actualFailure.getClass()) {
+        matches.increment();
+      } else {
+        exceptionMismatches.increment();
+        logMismatch(expression, precision, describe(expected, expectedFailure), describe(actual, actualFailure));
+      }
+    } else if (sameResult(expected, actual, precision)) {
+      matches.increment();
+    } else {
+      resultMismatches.increment();
+      logMismatch(expression, precision, describe(expected, null), describe(actual, null));
+    }
+  }
+
+  private boolean sameResult(BigDecimal expected, BigDecimal actual, PrecisionProfile precision) {
+    if (!rounded || actual == null) {
+      return Objects.equals(expected, actual);
+    }
+    int scale = precision.getResultScale();
+    return expected.setScale(scale, RoundingMode.HALF_UP).equals(actual.setScale(scale, RoundingMode.HALF_UP));
+  }
+
+  private void logMismatch(String expression, PrecisionProfile precision, String expected, String actual) {
+    long suppressed = mismatchLog.tryAcquire();
+    if (suppressed >= 0) {
+      log.warn("Engine '{}' disagrees with '{}' on {} [{}]: expected {}, got {}{}", shadow.name(), primary.name(),
+          expression, precision, expected, actual,
+          suppressed > 0 ? " (" + suppressed + " similar messages suppressed)" : "");
+    }
+  }
+
+  private static String describe(BigDecimal result, RuntimeException failure) {
+    return failure != null ? failure.getClass().getSimpleName() + "(" + failure.getMessage() + ")"
+        : result == null ? "null" : result.toString();
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    if (shadowExecutor instanceof ExecutorService executor) {
+      executor.shutdownNow();
+    }
+  }
+}
@@ -0,0 +1,16 @@
+package com.api.expeval.engine;
+
+import java.math.BigDecimal;
+import com.api.expeval.model.PrecisionProfile;
+
+/**
+ * Evaluates an expression to an unrounded result. Implementations are Spring beans selected by
+ * {@link #name()} through {@code expeval.engine.primary}, and must report invalid input with the
+ * same exception types as the reference {@link ParserExpressionEngine}.
+ */
+public interface ExpressionEngine {
+
+  String name();
+
+  BigDecimal evaluate(String expression, PrecisionProfile precision);
+}
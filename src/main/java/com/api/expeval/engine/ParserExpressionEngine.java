@@ -0,0 +1,24 @@
+package com.api.expeval.engine;
+
+import java.math.BigDecimal;
+import org.springframework.stereotype.Component;
+import com.api.expeval.model.PrecisionProfile;
+import com.api.expeval.util.ExpressionParser;
+
+/**
+ * Reference engine: the shunting-yard {@link ExpressionParser} over {@code BigDecimal}.
+ */
+@Component
+public class ParserExpressionEngine implements ExpressionEngine {
+  public static final String NAME = "parser";
+
+  @Override
+  public String name() {
+    return NAME;
+  }
+
+  @Override
+  public BigDecimal evaluate(String expression, PrecisionProfile precision) {
+    return ExpressionParser.evaluate(expression, precision);
+  }
+}
@@ -0,0 +1,122 @@
+package com.api.expeval.engine;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.stereotype.Component;
+import com.api.expeval.exception.ExpressionEvaluationException;
+import com.api.expeval.exception.ExpressionValidationException;
+import com.api.expeval.model.PrecisionProfile;
+import com.api.expeval.service.ExpressionService;
+import com.api.expeval.util.BigDecimalMath;
+import com.api.expeval.util.ExpressionParser;
+import com.api.expeval.util.ExpressionReducer;
+import com.api.expeval.util.MathFunction;
+import com.api.expeval.util.Rational;
+
+/**
+ * Exact engine: literals, {@code + - * / %}, integer powers, {@code abs}, {@code min} and
+ * {@code max} are evaluated on {@link Rational}s without rounding, so long division chains do not
+ * accumulate error ({@code 1/3*3} is exactly 1). The value is materialized as a decimal once, at
+ * the end, truncated one digit beyond the largest scale it is rounded to afterwards (or exact when
+ * it terminates earlier), so the result and stored history are correctly rounded.
+ *
+ * <p>Irrational operations (other functions, non-integer powers) and powers whose exact result
+ * would exceed {@value #MAX_EXACT_POWER_BITS} bits are computed by {@link BigDecimalMath} at the
+ * profile's precision, as in the parser, and continue exactly from that decimal.
+ */
+@Component
+public class RationalExpressionEngine implements ExpressionEngine {
+  public static final String NAME = "rational";
+
+  static final int MAX_EXACT_POWER_BITS = 1 << 16;
+  // decimals from the approximate path are converted exactly; bounds the size of that conversion
+  private static final int MAX_DECIMAL_EXPONENT = 100_000;
+
+  @Override
+  public String name() {
+    return NAME;
+  }
+
+  @Override
+  public BigDecimal evaluate(String expression, PrecisionProfile precision) {
+    Rational result = ExpressionParser.parse(expression, new Reducer(precision.getMathContext()));
+    return result.toBigDecimal(Math.max(precision.getResultScale(), ExpressionService.RESULT_SCALE) + 1);
+  }
+
+  private static final class Reducer implements ExpressionReducer<Rational> {
+    private final MathContext mc;
+
+    private Reducer(MathContext mc) {
+      this.mc = mc;
+    }
+
+    @Override
+    public Rational number(String literal) {
+      return Rational.parse(literal);
+    }
+
+    @Override
+    public Rational binary(char op, Rational a, Rational b) {
+      switch (op) {
+        case '+':
+          return a.add(b);
+        case '-':
+          return a.subtract(b);
+        case '*':
+          return a.multiply(b);
+        case '^':
+          return power(a, b);
+        case '/':
+          if (b.signum() == 0) {
+            throw new ExpressionEvaluationException("Division by zero.");
+          }
+          return a.divide(b);
+        case '%':
+          if (b.signum() == 0) {
+            throw new ExpressionEvaluationException("Modulo by zero.");
+          }
+          return a.remainder(b);
+        default:
+          throw new ExpressionValidationException("Unsupported operator: " + op);
+      }
+    }
+
+    @Override
+    public Rational function(MathFunction function, List<Rational> args) {
+      switch (function) {
+        case ABS:
+          return args.get(0).abs();
+        case MIN:
+          return args.stream().min(Rational::compareTo).orElseThrow();
+        case MAX:
+          return args.stream().max(Rational::compareTo).orElseThrow();
+        default:
+          List<BigDecimal> decimals = new ArrayList<>(args.size());
+          for (Rational arg : args) {
+            decimals.add(arg.toBigDecimal(mc));
+          }
+          return exact(function.apply(decimals, mc));
+      }
+    }
+
+    private Rational power(Rational base, Rational exponent) {
+      if (exponent.isInteger() && exponent.numerator().bitLength() < Integer.SIZE - 1
+          && (base.signum() != 0 || exponent.signum() >= 0)) {
+        int n = exponent.numerator().intValue();
+        if (base.bitLength() * Math.abs((long) n) <= MAX_EXACT_POWER_BITS) {
+          return base.pow(n);
+        }
+      }
+      return exact(BigDecimalMath.pow(base.toBigDecimal(mc), exponent.toBigDecimal(mc), mc));
+    }
+
+    private static Rational exact(BigDecimal value) {
+      if (value.signum() != 0 && Math.abs((long) value.precision() - value.scale()) > MAX_DECIMAL_EXPONENT) {
+        throw new ExpressionEvaluationException("Result is out of range for exact evaluation.");
+      }
+      return Rational.valueOf(value);
+    }
+  }
+}
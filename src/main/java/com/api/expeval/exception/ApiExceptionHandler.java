@@ -6,12 +6,15 @@ import jakarta.validation.ConstraintViolation;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.support.DefaultMessageSourceResolvable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.MissingServletRequestParameterException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 import com.api.expeval.dto.ErrorResponse;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.ConstraintViolationException;
@@ -33,6 +36,15 @@ public class ApiExceptionHandler {
     return buildResponse(HttpStatus.UNPROCESSABLE_ENTITY, ex, request);
   }
 
+  @ExceptionHandler(ServiceOverloadedException.class)
+  public ResponseEntity<ErrorResponse> handleOverloaded(ServiceOverloadedException ex,
+                                                        HttpServletRequest request) {
+    ResponseEntity<ErrorResponse> response = buildResponse(HttpStatus.SERVICE_UNAVAILABLE, ex, request);
+    return ResponseEntity.status(response.getStatusCode())
+        .header(HttpHeaders.RETRY_AFTER, Long.toString(Math.max(1, ex.getRetryAfter().toSeconds())))
+        .body(response.getBody());
+  }
+
   @ExceptionHandler(MethodArgumentNotValidException.class)
   public ResponseEntity<ErrorResponse> handleMethodArgument(MethodArgumentNotValidException ex,
                                                             HttpServletRequest request) {
@@ -53,12 +65,25 @@ public class ApiExceptionHandler {
     return buildResponse(HttpStatus.BAD_REQUEST, new RuntimeException(message), request);
   }
 
+  @ExceptionHandler(HttpMessageNotReadableException.class)
+  public ResponseEntity<ErrorResponse> handleNotReadable(HttpMessageNotReadableException ex,
+                                                         HttpServletRequest request) {
+    return buildResponse(HttpStatus.BAD_REQUEST, new RuntimeException("Malformed request body."), request);
+  }
+
   @ExceptionHandler(MissingServletRequestParameterException.class)
   public ResponseEntity<ErrorResponse> handleMissingParameter(MissingServletRequestParameterException ex,
                                                               HttpServletRequest request) {
     return buildResponse(HttpStatus.BAD_REQUEST, ex, request);
   }
 
+  @ExceptionHandler(MethodArgumentTypeMismatchException.class)
+  public ResponseEntity<ErrorResponse> handleTypeMismatch(MethodArgumentTypeMismatchException ex,
+                                                          HttpServletRequest request) {
+    return buildResponse(HttpStatus.BAD_REQUEST,
+        new RuntimeException("Invalid value for parameter '" + ex.getName() + "'."), request);
+  }
+
   @ExceptionHandler(Exception.class)
   public ResponseEntity<ErrorResponse> handleUnhandled(Exception ex, HttpServletRequest request) {
     log.error("Unhandled error", ex);
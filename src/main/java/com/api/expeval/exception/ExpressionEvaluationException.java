@@ -1,7 +1,11 @@
 package com.api.expeval.exception;
 
+/**
+ * Expected failure caused by the input; it carries no stack trace, so rejecting bad input does not
+ * pay for walking the stack, and a rejected expression's instance can be rethrown from a cache.
+ */
 public class ExpressionEvaluationException extends RuntimeException {
   public ExpressionEvaluationException(String message) {
-    super(message);
+    super(message, null, false, false);
   }
 }
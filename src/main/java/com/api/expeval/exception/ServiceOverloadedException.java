@@ -0,0 +1,20 @@
+package com.api.expeval.exception;
+
+import java.time.Duration;
+
+/**
+ * The request was refused because the server is at capacity for it; answered with {@code 503} and
+ * {@code Retry-After}.
+ */
+public class ServiceOverloadedException extends RuntimeException {
+  private final Duration retryAfter;
+
+  public ServiceOverloadedException(String message, Duration retryAfter) {
+    super(message, null, false, false);
+    this.retryAfter = retryAfter;
+  }
+
+  public Duration getRetryAfter() {
+    return retryAfter;
+  }
+}
@@ -0,0 +1,11 @@
+package com.api.expeval.export;
+
+import java.time.Instant;
+import com.api.expeval.model.ExpressionStatus;
+
+/**
+ * Rows to export: ids above {@code afterId} (the resume checkpoint, 0 for all), created in
+ * {@code [from, to)} and with {@code status}; {@code null} bounds and status match everything.
+ */
+public record ExportFilter(Instant from, Instant to, ExpressionStatus status, long afterId) {
+}
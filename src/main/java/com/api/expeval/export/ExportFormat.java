@@ -0,0 +1,34 @@
+package com.api.expeval.export;
+
+import java.nio.file.Path;
+
+/**
+ * Output format of a history export.
+ */
+public enum ExportFormat {
+  CSV("application/gzip", ".csv.gz"),
+  PARQUET("application/vnd.apache.parquet", ".parquet");
+
+  private final String contentType;
+  private final String extension;
+
+  ExportFormat(String contentType, String extension) {
+    this.contentType = contentType;
+    this.extension = extension;
+  }
+
+  public String getContentType() {
+    return contentType;
+  }
+
+  public String getExtension() {
+    return extension;
+  }
+
+  /**
+   * {@link #PARQUET} for {@code .parquet} files, {@link #CSV} otherwise.
+   */
+  public static ExportFormat forFile(Path file) {
+    return file.getFileName().toString().endsWith(PARQUET.extension) ? PARQUET : CSV;
+  }
+}
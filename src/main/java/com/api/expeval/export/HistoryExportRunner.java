@@ -0,0 +1,57 @@
+package com.api.expeval.export;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+import com.api.expeval.model.ExpressionStatus;
+
+/**
+ * Command-line export: when {@code expeval.export.output} is set, the application writes the
+ * history to that file with {@link HistoryExporter#exportToFile} and exits (status 1 on failure).
+ * Rerunning the same command after an interruption resumes from the checkpoint.
+ */
+@Component
+@ConditionalOnProperty(name = "expeval.export.output")
+public class HistoryExportRunner implements ApplicationRunner {
+  private static final Logger log = LoggerFactory.getLogger(HistoryExportRunner.class);
+
+  private final HistoryExporter exporter;
+  private final ConfigurableApplicationContext context;
+  private final Path output;
+  private final ExportFilter filter;
+
+  public HistoryExportRunner(HistoryExporter exporter, ConfigurableApplicationContext context,
+                             @Value("${expeval.export.output}") Path output,
+                             @Value("${expeval.export.from:}") String from,
+                             @Value("${expeval.export.to:}") String to,
+                             @Value("${expeval.export.status:}") ExpressionStatus status,
+                             @Value("${expeval.export.after-id:0}") long afterId) {
+    this.exporter = exporter;
+    this.context = context;
+    this.output = output;
+    this.filter = new ExportFilter(from.isEmpty() ? null : Instant.parse(from), to.isEmpty() ? null : Instant.parse(to),
+        status, afterId);
+  }
+
+  @Override
+  public void run(ApplicationArguments args) {
+    int exitCode = 0;
+    try {
+      long rows = exporter.exportToFile(filter, output);
+      log.info("Export to {} finished with {} rows", output, rows);
+    } catch (Exception ex) {
+      log.error("Export to {} failed; rerun to resume from the last checkpoint", output, ex);
+      exitCode = 1;
+    }
+    int status = exitCode;
+    System.exit(SpringApplication.exit(context, () -> status));
+  }
+}
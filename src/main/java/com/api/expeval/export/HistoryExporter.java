@@ -0,0 +1,355 @@
+package com.api.expeval.export;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Properties;
+import java.util.zip.GZIPOutputStream;
+import javax.sql.DataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import com.api.expeval.export.ParquetHistoryWriter.ParquetState;
+import com.api.expeval.model.ExpressionStatus;
+
+/**
+ * Streams {@code expression_records} as gzip CSV ({@code id,created_at,status,expression,result,
+ * error_message}, ordered by id) or as Parquet with the same columns, straight from a JDBC cursor:
+ * rows are fetched {@code expeval.export.fetch-size} at a time inside a read-only transaction
+ * (which PostgreSQL needs to use a server-side cursor) and written without creating entities, so
+ * memory stays constant whatever the table size. Parquet buffers one row group of at most
+ * {@code expeval.export.checkpoint-rows} rows.
+ */
+@Component
+@ConditionalOnProperty(name = "expeval.history.store", havingValue = "jpa", matchIfMissing = true)
+public class HistoryExporter {
+  static final String HEADER = "id,created_at,status,expression,result,error_message\n";
+
+  private static final Logger log = LoggerFactory.getLogger(HistoryExporter.class);
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private final JdbcTemplate jdbc;
+  private final TransactionTemplate transactionTemplate;
+  private final int checkpointRows;
+
+  public HistoryExporter(DataSource dataSource, PlatformTransactionManager transactionManager,
+                         @Value("${expeval.export.fetch-size:10000}") int fetchSize,
+                         @Value("${expeval.export.checkpoint-rows:100000}") int checkpointRows) {
+    this.jdbc = new JdbcTemplate(dataSource);
+    this.jdbc.setFetchSize(fetchSize);
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.transactionTemplate.setReadOnly(true);
+    this.checkpointRows = checkpointRows;
+  }
+
+  /**
+   * Writes the matching rows as one gzip CSV stream (with a header) or one Parquet file. The stream
+   * is finished but not closed.
+   *
+   * @return the number of rows written
+   */
+  public long export(ExportFilter filter, ExportFormat format, OutputStream out) throws IOException {
+    if (format == ExportFormat.PARQUET) {
+      ParquetHistoryWriter writer = new ParquetHistoryWriter(out);
+      // row groups are buffered in memory, so they are bounded like file checkpoints
+      long rows = copy(filter, rs -> writeRow(rs, writer), lastId -> writer.endRowGroup());
+      writer.finish();
+      return rows;
+    }
+    GzipCsvOutput output = new GzipCsvOutput(out);
+    output.writer().write(HEADER);
+    long rows = copy(filter, rs -> writeRow(rs, output.writer()), null);
+    output.finish();
+    return rows;
+  }
+
+  /**
+   * Exports to {@code output}, resuming an interrupted run of the same export; the format follows
+   * the file name ({@link ExportFormat#forFile}). Every {@code expeval.export.checkpoint-rows} rows
+   * the current gzip member or Parquet row group is completed, the file is forced to disk and
+   * {@code <output>.checkpoint} records its length, the last exported id, the filter and the format
+   * (and, for Parquet, the row group metadata the footer needs). A rerun finding the checkpoint cuts
+   * the file back to that length and continues after that id, so the result is one valid
+   * multi-member gzip or Parquet file without duplicated rows. The checkpoint is removed when the
+   * export completes; without one, {@code output} is overwritten.
+   *
+   * @return the number of rows written by this run
+   * @throws IllegalStateException if the checkpoint was written for another filter or format, whose
+   *     rows would be mixed into the file
+   */
+  public long exportToFile(ExportFilter filter, Path output) throws IOException {
+    Path checkpointFile = output.resolveSibling(output.getFileName() + ".checkpoint");
+    ExportFormat format = ExportFormat.forFile(output);
+    Checkpoint checkpoint = Files.exists(checkpointFile) ? Checkpoint.read(checkpointFile) : null;
+    if (checkpoint != null && (!filter.equals(checkpoint.filter) || format != checkpoint.format)) {
+      throw new IllegalStateException("Checkpoint " + checkpointFile + " belongs to a " + checkpoint.format
+          + " export of " + checkpoint.filter + ", not a " + format + " export of " + filter
+          + "; rerun that export to finish it, or delete the checkpoint to start over.");
+    }
+    try (FileChannel channel = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+      channel.truncate(checkpoint == null ? 0 : checkpoint.offset);
+      channel.position(channel.size());
+      ExportFilter resumed = filter;
+      if (checkpoint != null) {
+        log.info("Resuming export to {} after id {}", output, checkpoint.lastId);
+        resumed = new ExportFilter(filter.from(), filter.to(), filter.status(),
+            Math.max(filter.afterId(), checkpoint.lastId));
+      }
+      long rows = format == ExportFormat.PARQUET
+          ? exportParquet(filter, resumed, channel, checkpoint, checkpointFile)
+          : exportCsv(filter, resumed, channel, checkpoint, checkpointFile);
+      channel.force(false);
+      Files.deleteIfExists(checkpointFile);
+      return rows;
+    }
+  }
+
+  private long exportCsv(ExportFilter requested, ExportFilter filter, FileChannel channel, Checkpoint checkpoint,
+                         Path checkpointFile) throws IOException {
+    GzipCsvOutput out = new GzipCsvOutput(Channels.newOutputStream(channel));
+    if (checkpoint == null) {
+      out.writer().write(HEADER);
+    }
+    long rows = copy(filter, rs -> writeRow(rs, out.writer()), lastId -> {
+      out.finish();
+      channel.force(false);
+      new Checkpoint(requested, ExportFormat.CSV, channel.position(), lastId, List.of(), 0).write(checkpointFile);
+      out.start();
+    });
+    out.finish();
+    return rows;
+  }
+
+  private long exportParquet(ExportFilter requested, ExportFilter filter, FileChannel channel, Checkpoint checkpoint,
+                             Path checkpointFile) throws IOException {
+    OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE);
+    ParquetHistoryWriter writer = checkpoint == null
+        ? new ParquetHistoryWriter(out)
+        : new ParquetHistoryWriter(out, new ParquetState(checkpoint.offset, checkpoint.rows(), checkpoint.rowGroups));
+    long rows = copy(filter, rs -> writeRow(rs, writer), lastId -> {
+      writer.endRowGroup();
+      out.flush();
+      channel.force(false);
+      ParquetState state = writer.state();
+      new Checkpoint(requested, ExportFormat.PARQUET, state.position(), lastId, state.rowGroups(), state.rows())
+          .write(checkpointFile);
+    });
+    writer.finish();
+    return rows;
+  }
+
+  private long copy(ExportFilter filter, RowWriter rowWriter, CheckpointListener checkpoints) throws IOException {
+    StringBuilder sql = new StringBuilder(
+        "select id, created_at, status, expression, result, error_message from expression_records where id > ?");
+    List<Object> args = new ArrayList<>();
+    args.add(filter.afterId());
+    if (filter.from() != null) {
+      sql.append(" and created_at >= ?");
+      args.add(Timestamp.from(filter.from()));
+    }
+    if (filter.to() != null) {
+      sql.append(" and created_at < ?");
+      args.add(Timestamp.from(filter.to()));
+    }
+    if (filter.status() != null) {
+      sql.append(" and status = ?");
+      args.add(filter.status().name());
+    }
+    sql.append(" order by id");
+    long started = System.nanoTime();
+    long[] rows = new long[1];
+    try {
+      transactionTemplate.executeWithoutResult(status -> jdbc.query(sql.toString(), rs -> {
+        try {
+          long id = rowWriter.write(rs);
+          if (++rows[0] % checkpointRows == 0 && checkpoints != null) {
+            checkpoints.reached(id);
+          }
+        } catch (IOException ex) {
+          throw new UncheckedIOException(ex);
+        }
+      }, args.toArray()));
+    } catch (UncheckedIOException ex) {
+      throw ex.getCause();
+    }
+    log.info("Exported {} history rows after id {} in {} ms", rows[0], filter.afterId(),
+        (System.nanoTime() - started) / 1_000_000);
+    return rows[0];
+  }
+
+  private static long writeRow(ResultSet rs, Writer writer) throws SQLException, IOException {
+    long id = rs.getLong(1);
+    writer.write(Long.toString(id));
+    writer.write(',');
+    Timestamp createdAt = rs.getTimestamp(2);
+    writer.write(createdAt.toInstant().toString());
+    writer.write(',');
+    writer.write(rs.getString(3));
+    writer.write(',');
+    writeField(writer, rs.getString(4));
+    writer.write(',');
+    BigDecimal result = rs.getBigDecimal(5);
+    if (result != null) {
+      writer.write(result.stripTrailingZeros().toPlainString());
+    }
+    writer.write(',');
+    writeField(writer, rs.getString(6));
+    writer.write('\n');
+    return id;
+  }
+
+  private static long writeRow(ResultSet rs, ParquetHistoryWriter writer) throws SQLException, IOException {
+    long id = rs.getLong(1);
+    writer.write(id, rs.getTimestamp(2).toInstant(), rs.getString(3), rs.getString(4), rs.getBigDecimal(5),
+        rs.getString(6));
+    return id;
+  }
+
+  /**
+   * RFC 4180 quoting: fields with commas, quotes or line breaks are quoted, quotes are doubled.
+   */
+  private static void writeField(Writer writer, String value) throws IOException {
+    if (value == null) {
+      return;
+    }
+    boolean quote = false;
+    for (int i = 0; i < value.length() && !quote; i++) {
+      char c = value.charAt(i);
+      quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+    }
+    if (!quote) {
+      writer.write(value);
+      return;
+    }
+    writer.write('"');
+    writer.write(value.replace("\"", "\"\""));
+    writer.write('"');
+  }
+
+  @FunctionalInterface
+  private interface RowWriter {
+    long write(ResultSet rs) throws SQLException, IOException;
+  }
+
+  @FunctionalInterface
+  private interface CheckpointListener {
+    void reached(long lastId) throws IOException;
+  }
+
+  /**
+   * CSV writer over a sequence of gzip members on one target stream; each member is a complete
+   * gzip stream, so the bytes written up to a {@link #finish()} decompress on their own.
+   */
+  private static final class GzipCsvOutput {
+    private final OutputStream target;
+    private GZIPOutputStream gzip;
+    private Writer writer;
+
+    private GzipCsvOutput(OutputStream target) throws IOException {
+      this.target = target;
+      start();
+    }
+
+    private void start() throws IOException {
+      gzip = new GZIPOutputStream(target, BUFFER_SIZE);
+      writer = new BufferedWriter(new OutputStreamWriter(gzip, StandardCharsets.UTF_8), BUFFER_SIZE);
+    }
+
+    private Writer writer() {
+      return writer;
+    }
+
+    private void finish() throws IOException {
+      writer.flush();
+      gzip.finish();
+      target.flush();
+    }
+  }
+
+  /**
+   * Resume point of a file export started with {@code filter} in {@code format}; {@code rowGroups}
+   * and {@code rows} describe the Parquet row groups before {@code offset} and are empty for CSV.
+   */
+  private record Checkpoint(ExportFilter filter, ExportFormat format, long offset, long lastId,
+                            List<byte[]> rowGroups, long rows) {
+
+    private static Checkpoint read(Path file) throws IOException {
+      Properties properties = new Properties();
+      try (InputStream in = Files.newInputStream(file)) {
+        properties.load(in);
+      }
+      List<byte[]> rowGroups = new ArrayList<>();
+      String encoded = properties.getProperty("rowGroups", "");
+      for (String rowGroup : encoded.isEmpty() ? new String[0] : encoded.split(",")) {
+        rowGroups.add(Base64.getDecoder().decode(rowGroup));
+      }
+      if (properties.getProperty("format") == null || properties.getProperty("afterId") == null) {
+        throw new IllegalStateException("Checkpoint " + file + " does not record its filter and format; "
+            + "delete it to start the export over.");
+      }
+      ExportFilter filter = new ExportFilter(instant(properties.getProperty("from")),
+          instant(properties.getProperty("to")),
+          properties.getProperty("status") == null ? null : ExpressionStatus.valueOf(properties.getProperty("status")),
+          Long.parseLong(properties.getProperty("afterId")));
+      return new Checkpoint(filter, ExportFormat.valueOf(properties.getProperty("format")),
+          Long.parseLong(properties.getProperty("offset")), Long.parseLong(properties.getProperty("lastId")),
+          rowGroups, Long.parseLong(properties.getProperty("rows", "0")));
+    }
+
+    private static Instant instant(String value) {
+      return value == null ? null : Instant.parse(value);
+    }
+
+    private void write(Path file) throws IOException {
+      Properties properties = new Properties();
+      if (filter.from() != null) {
+        properties.setProperty("from", filter.from().toString());
+      }
+      if (filter.to() != null) {
+        properties.setProperty("to", filter.to().toString());
+      }
+      if (filter.status() != null) {
+        properties.setProperty("status", filter.status().name());
+      }
+      properties.setProperty("afterId", Long.toString(filter.afterId()));
+      properties.setProperty("format", format.name());
+      properties.setProperty("offset", Long.toString(offset));
+      properties.setProperty("lastId", Long.toString(lastId));
+      if (!rowGroups.isEmpty()) {
+        properties.setProperty("rows", Long.toString(rows));
+        properties.setProperty("rowGroups", String.join(",",
+            rowGroups.stream().map(Base64.getEncoder()::encodeToString).toList()));
+      }
+      Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+      try (OutputStream out = Files.newOutputStream(temporary)) {
+        properties.store(out, null);
+      }
+      Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+  }
+}
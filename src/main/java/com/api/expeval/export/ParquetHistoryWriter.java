@@ -0,0 +1,482 @@
+package com.api.expeval.export;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes history rows as a Parquet file without the Parquet/Hadoop libraries: one flat schema of
+ * six columns, PLAIN encoded, one gzip compressed v1 data page per column chunk, and the footer in
+ * Thrift's compact protocol.
+ * <pre>
+ * id            required int64
+ * created_at    required int64 TIMESTAMP(MICROS, UTC)
+ * status        required binary STRING
+ * expression    required binary STRING
+ * result        optional fixed_len_byte_array(16) DECIMAL(38, 16)
+ * error_message optional binary STRING
+ * </pre>
+ * Rows are buffered per column until {@link #endRowGroup()} or until the buffers reach
+ * {@value #MAX_ROW_GROUP_BYTES} bytes. Everything written up to a row group boundary stays valid
+ * once {@link #rowGroups()} is saved: a writer created with that state at that offset continues the
+ * same file.
+ */
+final class ParquetHistoryWriter {
+  static final byte[] MAGIC = "PAR1".getBytes(StandardCharsets.US_ASCII);
+
+  private static final int MAX_ROW_GROUP_BYTES = 64 * 1024 * 1024;
+  private static final int RESULT_SCALE = 16;
+  private static final int RESULT_PRECISION = 38;
+  private static final int RESULT_BYTES = 16;
+  private static final String CREATED_BY = "expression_eval_api";
+
+  // parquet.thrift enums
+  private static final int INT64 = 2;
+  private static final int BYTE_ARRAY = 6;
+  private static final int FIXED_LEN_BYTE_ARRAY = 7;
+  private static final int REQUIRED = 0;
+  private static final int OPTIONAL = 1;
+  private static final int CONVERTED_UTF8 = 0;
+  private static final int CONVERTED_DECIMAL = 5;
+  private static final int CONVERTED_TIMESTAMP_MICROS = 10;
+  private static final int PLAIN = 0;
+  private static final int RLE = 3;
+  private static final int GZIP = 2;
+  private static final int DATA_PAGE = 0;
+
+  private final OutputStream out;
+  private final List<byte[]> rowGroups;
+  private long position;
+  private long totalRows;
+
+  private final Column ids = new Column("id", INT64, false);
+  private final Column createdAt = new Column("created_at", INT64, false);
+  private final Column statuses = new Column("status", BYTE_ARRAY, false);
+  private final Column expressions = new Column("expression", BYTE_ARRAY, false);
+  private final Column results = new Column("result", FIXED_LEN_BYTE_ARRAY, true);
+  private final Column errorMessages = new Column("error_message", BYTE_ARRAY, true);
+  private final Column[] columns = {ids, createdAt, statuses, expressions, results, errorMessages};
+  private int bufferedRows;
+
+  /**
+   * Starts a new file.
+   */
+  ParquetHistoryWriter(OutputStream out) throws IOException {
+    this(out, new ParquetState(0, 0, List.of()));
+    out.write(MAGIC);
+    position = MAGIC.length;
+  }
+
+  /**
+   * Continues a file that was cut back to {@code state.position()}, the end of its last row group.
+   */
+  ParquetHistoryWriter(OutputStream out, ParquetState state) {
+    this.out = out;
+    this.position = state.position();
+    this.totalRows = state.rows();
+    this.rowGroups = new ArrayList<>(state.rowGroups());
+  }
+
+  void write(long id, Instant created, String status, String expression, BigDecimal result, String errorMessage)
+      throws IOException {
+    ids.int64(id);
+    createdAt.int64(ChronoUnit.MICROS.between(Instant.EPOCH, created));
+    statuses.string(status);
+    expressions.string(expression);
+    if (result == null) {
+      results.missing();
+    } else {
+      results.fixed(decimal(result));
+    }
+    if (errorMessage == null) {
+      errorMessages.missing();
+    } else {
+      errorMessages.string(errorMessage);
+    }
+    bufferedRows++;
+    if (bufferedBytes() >= MAX_ROW_GROUP_BYTES) {
+      endRowGroup();
+    }
+  }
+
+  /**
+   * Writes the buffered rows, if any, as a row group.
+   */
+  void endRowGroup() throws IOException {
+    if (bufferedRows == 0) {
+      return;
+    }
+    long groupStart = position;
+    long uncompressed = 0;
+    Thrift group = new Thrift();
+    group.beginList(1, Thrift.STRUCT, columns.length);
+    for (Column column : columns) {
+      long chunkStart = position;
+      byte[] page = column.page(bufferedRows);
+      byte[] compressed = gzip(page);
+      Thrift header = new Thrift();
+      header.i32(1, DATA_PAGE);
+      header.i32(2, page.length);
+      header.i32(3, compressed.length);
+      header.beginStruct(5);
+      header.i32(1, bufferedRows);
+      header.i32(2, PLAIN);
+      header.i32(3, RLE);
+      header.i32(4, RLE);
+      header.endStruct();
+      header.end();
+      byte[] headerBytes = header.toByteArray();
+      out.write(headerBytes);
+      out.write(compressed);
+      position += headerBytes.length + compressed.length;
+      uncompressed += headerBytes.length + page.length;
+
+      group.beginElement();
+      group.i64(2, chunkStart);
+      group.beginStruct(3);
+      group.i32(1, column.type);
+      group.beginList(2, Thrift.I32, 2);
+      group.element(PLAIN);
+      group.element(RLE);
+      group.beginList(3, Thrift.BINARY, 1);
+      group.element(column.name);
+      group.i32(4, GZIP);
+      group.i64(5, bufferedRows);
+      group.i64(6, headerBytes.length + page.length);
+      group.i64(7, headerBytes.length + compressed.length);
+      group.i64(9, chunkStart);
+      group.endStruct();
+      group.endElement();
+      column.reset();
+    }
+    group.i64(2, uncompressed);
+    group.i64(3, bufferedRows);
+    group.i64(5, groupStart);
+    group.i64(6, position - groupStart);
+    group.i16(7, rowGroups.size());
+    group.end();
+    rowGroups.add(group.toByteArray());
+    totalRows += bufferedRows;
+    bufferedRows = 0;
+  }
+
+  /**
+   * Position and row groups at the last row group boundary.
+   */
+  ParquetState state() {
+    return new ParquetState(position, totalRows, List.copyOf(rowGroups));
+  }
+
+  /**
+   * Ends the last row group and writes the footer. The stream is flushed but not closed.
+   */
+  void finish() throws IOException {
+    endRowGroup();
+    Thrift footer = new Thrift();
+    footer.i32(1, 1);
+    footer.beginList(2, Thrift.STRUCT, columns.length + 1);
+    footer.beginElement();
+    footer.string(4, "schema");
+    footer.i32(5, columns.length);
+    footer.endElement();
+    for (Column column : columns) {
+      column.schema(footer);
+    }
+    footer.i64(3, totalRows);
+    footer.beginList(4, Thrift.STRUCT, rowGroups.size());
+    for (byte[] rowGroup : rowGroups) {
+      footer.raw(rowGroup);
+    }
+    footer.string(6, CREATED_BY);
+    footer.end();
+    byte[] footerBytes = footer.toByteArray();
+    out.write(footerBytes);
+    out.write(footerBytes.length);
+    out.write(footerBytes.length >>> 8);
+    out.write(footerBytes.length >>> 16);
+    out.write(footerBytes.length >>> 24);
+    out.write(MAGIC);
+    out.flush();
+  }
+
+  private long bufferedBytes() {
+    long bytes = 0;
+    for (Column column : columns) {
+      bytes += column.values.size();
+    }
+    return bytes;
+  }
+
+  // two's complement, sign extended to the fixed width
+  private static byte[] decimal(BigDecimal value) {
+    byte[] unscaled = value.setScale(RESULT_SCALE, RoundingMode.HALF_UP).unscaledValue().toByteArray();
+    byte[] fixed = new byte[RESULT_BYTES];
+    byte pad = (byte) (unscaled[0] < 0 ? -1 : 0);
+    int offset = RESULT_BYTES - unscaled.length;
+    for (int i = 0; i < offset; i++) {
+      fixed[i] = pad;
+    }
+    System.arraycopy(unscaled, 0, fixed, offset, unscaled.length);
+    return fixed;
+  }
+
+  private static byte[] gzip(byte[] page) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream(page.length / 4 + 64);
+    try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+      gzip.write(page);
+    }
+    return bytes.toByteArray();
+  }
+
+  /**
+   * Position, row count and serialized {@code RowGroup} structs of a file at a row group boundary.
+   */
+  record ParquetState(long position, long rows, List<byte[]> rowGroups) {
+  }
+
+  private static final class Column {
+    private final String name;
+    private final int type;
+    private final boolean optional;
+    private final ByteArrayOutputStream values = new ByteArrayOutputStream();
+    // definition levels of an optional column, one byte per row
+    private final ByteArrayOutputStream levels = new ByteArrayOutputStream();
+
+    private Column(String name, int type, boolean optional) {
+      this.name = name;
+      this.type = type;
+      this.optional = optional;
+    }
+
+    private void int64(long value) {
+      for (int shift = 0; shift < Long.SIZE; shift += Byte.SIZE) {
+        values.write((int) (value >>> shift));
+      }
+      present();
+    }
+
+    private void string(String value) {
+      byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+      for (int shift = 0; shift < Integer.SIZE; shift += Byte.SIZE) {
+        values.write(bytes.length >>> shift);
+      }
+      values.writeBytes(bytes);
+      present();
+    }
+
+    private void fixed(byte[] bytes) {
+      values.writeBytes(bytes);
+      present();
+    }
+
+    private void present() {
+      if (optional) {
+        levels.write(1);
+      }
+    }
+
+    private void missing() {
+      levels.write(0);
+    }
+
+    /**
+     * Uncompressed data page body: RLE definition levels (optional columns only), then values.
+     */
+    private byte[] page(int rows) throws IOException {
+      ByteArrayOutputStream page = new ByteArrayOutputStream(values.size() + (optional ? rows / 8 + 16 : 0));
+      if (optional) {
+        byte[] encoded = runLengthEncode(levels.toByteArray());
+        for (int shift = 0; shift < Integer.SIZE; shift += Byte.SIZE) {
+          page.write(encoded.length >>> shift);
+        }
+        page.writeBytes(encoded);
+      }
+      values.writeTo(page);
+      return page.toByteArray();
+    }
+
+    // RLE/bit-packing hybrid with bit width 1, using RLE runs only
+    private static byte[] runLengthEncode(byte[] levels) {
+      ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+      int start = 0;
+      while (start < levels.length) {
+        int end = start;
+        while (end < levels.length && levels[end] == levels[start]) {
+          end++;
+        }
+        Thrift.varint(encoded, (long) (end - start) << 1);
+        encoded.write(levels[start]);
+        start = end;
+      }
+      return encoded.toByteArray();
+    }
+
+    private void schema(Thrift footer) {
+      footer.beginElement();
+      footer.i32(1, type);
+      if (type == FIXED_LEN_BYTE_ARRAY) {
+        footer.i32(2, RESULT_BYTES);
+      }
+      footer.i32(3, optional ? OPTIONAL : REQUIRED);
+      footer.string(4, name);
+      if (type == BYTE_ARRAY) {
+        footer.i32(6, CONVERTED_UTF8);
+        footer.beginStruct(10);
+        footer.beginStruct(1);
+        footer.endStruct();
+        footer.endStruct();
+      } else if (type == FIXED_LEN_BYTE_ARRAY) {
+        footer.i32(6, CONVERTED_DECIMAL);
+        footer.i32(7, RESULT_SCALE);
+        footer.i32(8, RESULT_PRECISION);
+        footer.beginStruct(10);
+        footer.beginStruct(5);
+        footer.i32(1, RESULT_SCALE);
+        footer.i32(2, RESULT_PRECISION);
+        footer.endStruct();
+        footer.endStruct();
+      } else if (name.equals("created_at")) {
+        footer.i32(6, CONVERTED_TIMESTAMP_MICROS);
+        footer.beginStruct(10);
+        footer.beginStruct(8);
+        footer.bool(1, true);
+        footer.beginStruct(2);
+        footer.beginStruct(2);
+        footer.endStruct();
+        footer.endStruct();
+        footer.endStruct();
+        footer.endStruct();
+      }
+      footer.endElement();
+    }
+
+    private void reset() {
+      values.reset();
+      levels.reset();
+    }
+  }
+
+  /**
+   * The subset of Thrift's compact protocol the footer and page headers need.
+   */
+  private static final class Thrift {
+    private static final int BOOLEAN_TRUE = 1;
+    private static final int BOOLEAN_FALSE = 2;
+    private static final int I16 = 4;
+    private static final int I32 = 5;
+    private static final int I64 = 6;
+    private static final int BINARY = 8;
+    private static final int LIST = 9;
+    private static final int STRUCT = 12;
+
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    private final int[] lastIds = new int[16];
+    private int depth;
+
+    private void bool(int id, boolean value) {
+      field(id, value ? BOOLEAN_TRUE : BOOLEAN_FALSE);
+    }
+
+    private void i16(int id, int value) {
+      field(id, I16);
+      varint(out, zigzag(value));
+    }
+
+    private void i32(int id, int value) {
+      field(id, I32);
+      varint(out, zigzag(value));
+    }
+
+    private void i64(int id, long value) {
+      field(id, I64);
+      varint(out, zigzag(value));
+    }
+
+    private void string(int id, String value) {
+      field(id, BINARY);
+      element(value);
+    }
+
+    private void beginStruct(int id) {
+      field(id, STRUCT);
+      lastIds[++depth] = 0;
+    }
+
+    private void endStruct() {
+      out.write(0);
+      depth--;
+    }
+
+    private void beginList(int id, int elementType, int size) {
+      field(id, LIST);
+      if (size < 15) {
+        out.write(size << 4 | elementType);
+      } else {
+        out.write(0xF0 | elementType);
+        varint(out, size);
+      }
+    }
+
+    private void beginElement() {
+      lastIds[++depth] = 0;
+    }
+
+    private void endElement() {
+      endStruct();
+    }
+
+    private void element(int value) {
+      varint(out, zigzag(value));
+    }
+
+    private void element(String value) {
+      byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+      varint(out, bytes.length);
+      out.writeBytes(bytes);
+    }
+
+    // a struct element serialized on its own; field ids restart in every struct
+    private void raw(byte[] struct) {
+      out.writeBytes(struct);
+    }
+
+    private void end() {
+      out.write(0);
+    }
+
+    private byte[] toByteArray() {
+      return out.toByteArray();
+    }
+
+    private void field(int id, int type) {
+      int delta = id - lastIds[depth];
+      if (delta > 0 && delta <= 15) {
+        out.write(delta << 4 | type);
+      } else {
+        out.write(type);
+        varint(out, zigzag(id));
+      }
+      lastIds[depth] = id;
+    }
+
+    private static long zigzag(long value) {
+      return (value << 1) ^ (value >> 63);
+    }
+
+    private static void varint(ByteArrayOutputStream out, long value) {
+      while ((value & ~0x7FL) != 0) {
+        out.write((int) ((value & 0x7F) | 0x80));
+        value >>>= 7;
+      }
+      out.write((int) value);
+    }
+  }
+}
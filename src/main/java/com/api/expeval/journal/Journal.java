@@ -0,0 +1,342 @@
+package com.api.expeval.journal;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import com.api.expeval.model.ExpressionRecord;
+
+/**
+ * Append-only log of {@link ExpressionRecord}s in fixed-size memory-mapped segment files. Appends
+ * only copy into the mapped segment; a committer thread forces the written range to disk every
+ * commit interval, so one fsync covers every append since the previous commit. Entries are
+ * checksummed, and a torn tail left by a crash is discarded when the journal is reopened. At most
+ * {@code maxSegments} segments are kept: rolling over to a new one deletes the oldest beyond that,
+ * and its mapping is released once no reader holds its buffer. Positions and segment indexes stay
+ * valid across deletions; those of deleted segments no longer resolve.
+ */
+public class Journal implements AutoCloseable {
+  static final int SEGMENT_HEADER_BYTES = 16;
+
+  private static final Logger log = LoggerFactory.getLogger(Journal.class);
+  private static final int MAGIC = 0x45584A31;
+  private static final int VERSION = 1;
+  private static final int MIN_SEGMENT_BYTES = 1 << 20;
+  private static final String SEGMENT_PREFIX = "segment-";
+  private static final String SEGMENT_SUFFIX = ".journal";
+
+  private final Path directory;
+  private final int segmentBytes;
+  private final boolean syncWrites;
+  private final int maxSegments;
+  private final ConcurrentSkipListMap<Integer, Segment> segments = new ConcurrentSkipListMap<>();
+  private final ByteBuffer encodeBuffer = ByteBuffer.allocate(JournalRecordCodec.MAX_RECORD_BYTES);
+  private final Object commitMonitor = new Object();
+  private final Thread committer;
+  private long nextId;
+  private volatile long appendedId;
+  private volatile long durableId;
+  private volatile boolean closed;
+
+  public Journal(Path directory, int segmentBytes, long commitIntervalMillis, boolean syncWrites, int maxSegments) {
+    if (segmentBytes < MIN_SEGMENT_BYTES) {
+      throw new IllegalArgumentException("Journal segments must be at least " + MIN_SEGMENT_BYTES + " bytes.");
+    }
+    if (maxSegments < 1) {
+      throw new IllegalArgumentException("The journal must keep at least one segment.");
+    }
+    this.directory = directory;
+    this.segmentBytes = segmentBytes;
+    this.syncWrites = syncWrites;
+    this.maxSegments = maxSegments;
+    try {
+      Files.createDirectories(directory);
+      recover();
+    } catch (IOException ex) {
+      throw new UncheckedIOException("Cannot open journal in " + directory, ex);
+    }
+    this.committer = new Thread(() -> commitLoop(commitIntervalMillis), "journal-committer");
+    this.committer.setDaemon(true);
+    this.committer.start();
+  }
+
+  /**
+   * Assigns the next id to {@code record} and appends it. With synchronous writes this returns
+   * only after the group commit that covers the record.
+   */
+  public void append(ExpressionRecord record) {
+    long id;
+    synchronized (this) {
+      if (closed) {
+        throw new IllegalStateException("Journal is closed.");
+      }
+      id = nextId++;
+      record.setId(id);
+      encodeBuffer.clear();
+      JournalRecordCodec.encode(record, encodeBuffer);
+      encodeBuffer.flip();
+      Segment segment = segments.lastEntry().getValue();
+      if (segment.limit + encodeBuffer.remaining() > segmentBytes) {
+        segment.force();
+        segment = openSegment(segments.lastKey() + 1, id);
+        deleteOldSegments();
+      }
+      segment.buffer.put(segment.limit, encodeBuffer, 0, encodeBuffer.remaining());
+      segment.limit += encodeBuffer.remaining();
+      appendedId = id;
+    }
+    if (syncWrites) {
+      awaitDurable(id);
+    }
+  }
+
+  /**
+   * Index of the oldest kept segment.
+   */
+  public int firstSegment() {
+    return segments.firstKey();
+  }
+
+  /**
+   * Index of the segment being appended to.
+   */
+  public int lastSegment() {
+    return segments.lastKey();
+  }
+
+  /**
+   * Visible end of segment {@code index}, entries before it are complete; -1 once it is deleted.
+   */
+  public int limit(int index) {
+    Segment segment = segments.get(index);
+    return segment != null ? segment.limit : -1;
+  }
+
+  /**
+   * Contents of segment {@code index}, or {@code null} once it is deleted.
+   */
+  public ByteBuffer segment(int index) {
+    Segment segment = segments.get(index);
+    return segment != null ? segment.buffer.duplicate() : null;
+  }
+
+  /**
+   * The record at {@code position}, or {@code null} when its segment has been deleted.
+   */
+  public ExpressionRecord read(long position) {
+    Segment segment = segments.get(segmentIndex(position));
+    return segment != null ? JournalRecordCodec.decode(segment.buffer, offset(position)) : null;
+  }
+
+  public long durableId() {
+    return durableId;
+  }
+
+  static long position(int segmentIndex, int offset) {
+    return ((long) segmentIndex << 32) | offset;
+  }
+
+  static int segmentIndex(long position) {
+    return (int) (position >>> 32);
+  }
+
+  static int offset(long position) {
+    return (int) position;
+  }
+
+  @Override
+  public void close() {
+    synchronized (this) {
+      closed = true;
+    }
+    committer.interrupt();
+    try {
+      committer.join();
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+    commit();
+    for (Segment segment : segments.values()) {
+      try {
+        segment.channel.close();
+      } catch (IOException ex) {
+        log.warn("Closing journal segment {} failed", segment.path, ex);
+      }
+    }
+  }
+
+  private void recover() throws IOException {
+    List<Path> paths;
+    try (Stream<Path> files = Files.list(directory)) {
+      paths = files.filter(path -> path.getFileName().toString().endsWith(SEGMENT_SUFFIX)).sorted().toList();
+    }
+    long lastId = -1;
+    for (Path path : paths) {
+      Segment segment = mapSegment(path, -1);
+      // a segment left empty after the ones before it were deleted still carries the next id
+      lastId = Math.max(lastId, segment.buffer.getLong(8) - 1);
+      int offset = SEGMENT_HEADER_BYTES;
+      int size;
+      while ((size = JournalRecordCodec.entrySize(segment.buffer, offset)) > 0) {
+        lastId = JournalRecordCodec.readId(segment.buffer, offset);
+        offset += size;
+      }
+      if (offset + JournalRecordCodec.HEADER_BYTES <= segmentBytes && segment.buffer.getInt(offset) != 0) {
+        log.warn("Discarding torn journal tail in {} at offset {}", path, offset);
+        for (int i = offset; i < segmentBytes; i++) {
+          segment.buffer.put(i, (byte) 0);
+        }
+        segment.buffer.force();
+      }
+      segment.limit = offset;
+      segment.forcedLimit = offset;
+      String name = path.getFileName().toString();
+      segments.put(Integer.parseInt(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())),
+          segment);
+    }
+    nextId = lastId + 1;
+    appendedId = lastId;
+    durableId = lastId;
+    if (segments.isEmpty()) {
+      openSegment(0, nextId);
+    }
+    deleteOldSegments();
+  }
+
+  private Segment openSegment(int index, long firstId) {
+    Path path = directory.resolve(String.format("%s%010d%s", SEGMENT_PREFIX, index, SEGMENT_SUFFIX));
+    try {
+      Segment segment = mapSegment(path, firstId);
+      segments.put(index, segment);
+      return segment;
+    } catch (IOException ex) {
+      throw new UncheckedIOException("Cannot create journal segment " + path, ex);
+    }
+  }
+
+  // readers may still hold the buffer of a deleted segment: it is unmapped once they drop it, and
+  // on Linux a deleted file stays readable while it is mapped
+  private void deleteOldSegments() {
+    while (segments.size() > maxSegments) {
+      Segment oldest = segments.pollFirstEntry().getValue();
+      try {
+        oldest.channel.close();
+        Files.deleteIfExists(oldest.path);
+        log.info("Deleted journal segment {} beyond the {} kept", oldest.path, maxSegments);
+      } catch (IOException ex) {
+        log.warn("Deleting journal segment {} failed", oldest.path, ex);
+      }
+    }
+  }
+
+  private Segment mapSegment(Path path, long firstId) throws IOException {
+    FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+        StandardOpenOption.WRITE);
+    boolean created = channel.size() == 0;
+    if (!created && channel.size() != segmentBytes) {
+      channel.close();
+      throw new IOException("Journal segment " + path + " has size " + channel.size()
+          + ", expected " + segmentBytes);
+    }
+    MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+    if (created) {
+      buffer.putInt(0, MAGIC);
+      buffer.putInt(4, VERSION);
+      buffer.putLong(8, firstId);
+      buffer.force(0, SEGMENT_HEADER_BYTES);
+    } else if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+      channel.close();
+      throw new IOException("Unrecognized journal segment " + path);
+    }
+    Segment segment = new Segment(path, channel, buffer);
+    segment.limit = SEGMENT_HEADER_BYTES;
+    segment.forcedLimit = SEGMENT_HEADER_BYTES;
+    return segment;
+  }
+
+  private void commitLoop(long intervalMillis) {
+    while (!closed) {
+      try {
+        Thread.sleep(intervalMillis);
+      } catch (InterruptedException ex) {
+        return;
+      }
+      try {
+        commit();
+      } catch (RuntimeException ex) {
+        log.error("Journal commit failed", ex);
+      }
+    }
+  }
+
+  private void commit() {
+    long target;
+    List<Segment> dirty = new ArrayList<>(1);
+    synchronized (this) {
+      target = appendedId;
+      if (target == durableId) {
+        return;
+      }
+      for (Segment segment : segments.values()) {
+        if (segment.forcedLimit < segment.limit) {
+          dirty.add(segment);
+        }
+      }
+    }
+    for (Segment segment : dirty) {
+      segment.force();
+    }
+    synchronized (commitMonitor) {
+      durableId = target;
+      commitMonitor.notifyAll();
+    }
+  }
+
+  private void awaitDurable(long id) {
+    synchronized (commitMonitor) {
+      while (durableId < id) {
+        if (closed) {
+          return;
+        }
+        try {
+          commitMonitor.wait(100);
+        } catch (InterruptedException ex) {
+          Thread.currentThread().interrupt();
+          return;
+        }
+      }
+    }
+  }
+
+  private static final class Segment {
+    private final Path path;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private volatile int limit;
+    private int forcedLimit;
+
+    private Segment(Path path, FileChannel channel, MappedByteBuffer buffer) {
+      this.path = path;
+      this.channel = channel;
+      this.buffer = buffer;
+    }
+
+    private synchronized void force() {
+      int end = limit;
+      if (forcedLimit < end) {
+        buffer.force(forcedLimit, end - forcedLimit);
+        forcedLimit = end;
+      }
+    }
+  }
+}
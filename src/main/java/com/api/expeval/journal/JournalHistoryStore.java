@@ -0,0 +1,161 @@
+package com.api.expeval.journal;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import com.api.expeval.model.ExpressionRecord;
+import com.api.expeval.service.HistoryStore;
+import com.api.expeval.util.CanonicalExpression;
+
+/**
+ * History store backed by a local {@link Journal}. A background indexer maps results to journal
+ * positions; lookups first catch the index up with the journal so they see every saved record.
+ * The index is kept per segment and dropped with it, so it holds about one position per record in
+ * the {@code expeval.history.journal.max-segments} kept segments.
+ */
+@Component
+@ConditionalOnProperty(name = "expeval.history.store", havingValue = "journal")
+public class JournalHistoryStore implements HistoryStore {
+  private static final Logger log = LoggerFactory.getLogger(JournalHistoryStore.class);
+  private static final long INDEX_INTERVAL_MILLIS = 50;
+
+  private final Journal journal;
+  private final NavigableMap<Integer, Map<BigDecimal, Positions>> positionsBySegment = new TreeMap<>();
+  private final Thread indexer;
+  private int indexedSegment;
+  private int indexedOffset = Journal.SEGMENT_HEADER_BYTES;
+
+  @Autowired
+  public JournalHistoryStore(@Value("${expeval.history.journal.directory:./data/journal}") Path directory,
+                             @Value("${expeval.history.journal.segment-size:64MB}") DataSize segmentSize,
+                             @Value("${expeval.history.journal.commit-interval-ms:10}") long commitIntervalMillis,
+                             @Value("${expeval.history.journal.sync-writes:false}") boolean syncWrites,
+                             @Value("${expeval.history.journal.max-segments:16}") int maxSegments) {
+    this(new Journal(directory, Math.toIntExact(segmentSize.toBytes()), commitIntervalMillis, syncWrites,
+        maxSegments));
+  }
+
+  JournalHistoryStore(Journal journal) {
+    this.journal = journal;
+    catchUp();
+    this.indexer = new Thread(this::indexLoop, "journal-indexer");
+    this.indexer.setDaemon(true);
+    this.indexer.start();
+  }
+
+  @Override
+  public void save(ExpressionRecord record, CanonicalExpression canonical) {
+    record.setCreatedAt(Instant.now());
+    journal.append(record);
+  }
+
+  @Override
+  public List<ExpressionRecord> findByResult(BigDecimal normalizedResult) {
+    BigDecimal key = normalizedResult.stripTrailingZeros();
+    List<long[]> positions = new ArrayList<>();
+    synchronized (this) {
+      catchUp();
+      for (Map<BigDecimal, Positions> segment : positionsBySegment.values()) {
+        Positions indexed = segment.get(key);
+        if (indexed != null) {
+          positions.add(Arrays.copyOf(indexed.values, indexed.size));
+        }
+      }
+    }
+    List<ExpressionRecord> records = new ArrayList<>();
+    for (long[] segment : positions) {
+      for (long position : segment) {
+        // null when the segment was deleted since
+        ExpressionRecord record = journal.read(position);
+        if (record != null) {
+          records.add(record);
+        }
+      }
+    }
+    return records;
+  }
+
+  @PreDestroy
+  public void close() {
+    indexer.interrupt();
+    try {
+      indexer.join();
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+    journal.close();
+  }
+
+  private void indexLoop() {
+    while (!Thread.currentThread().isInterrupted()) {
+      try {
+        catchUp();
+        Thread.sleep(INDEX_INTERVAL_MILLIS);
+      } catch (InterruptedException ex) {
+        return;
+      } catch (RuntimeException ex) {
+        log.error("Journal indexing failed", ex);
+      }
+    }
+  }
+
+  private synchronized void catchUp() {
+    int first = journal.firstSegment();
+    positionsBySegment.headMap(first).clear();
+    if (indexedSegment < first) {
+      indexedSegment = first;
+      indexedOffset = Journal.SEGMENT_HEADER_BYTES;
+    }
+    while (true) {
+      ByteBuffer segment = journal.segment(indexedSegment);
+      int limit = journal.limit(indexedSegment);
+      if (segment == null || limit < 0) {
+        // deleted while this ran behind; the next catch-up starts from the oldest kept segment
+        return;
+      }
+      Map<BigDecimal, Positions> index = positionsBySegment.computeIfAbsent(indexedSegment, key -> new HashMap<>());
+      while (indexedOffset < limit) {
+        int size = JournalRecordCodec.HEADER_BYTES + segment.getInt(indexedOffset);
+        BigDecimal result = JournalRecordCodec.readResult(segment, indexedOffset);
+        if (result != null) {
+          index.computeIfAbsent(result.stripTrailingZeros(), key -> new Positions())
+              .add(Journal.position(indexedSegment, indexedOffset));
+        }
+        indexedOffset += size;
+      }
+      if (indexedSegment >= journal.lastSegment() || journal.limit(indexedSegment) != indexedOffset) {
+        return;
+      }
+      indexedSegment++;
+      indexedOffset = Journal.SEGMENT_HEADER_BYTES;
+    }
+  }
+
+  private static final class Positions {
+    private long[] values = new long[1];
+    private int size;
+
+    private void add(long position) {
+      if (size == values.length) {
+        values = Arrays.copyOf(values, size * 2);
+      }
+      values[size++] = position;
+    }
+  }
+}
@@ -0,0 +1,148 @@
+package com.api.expeval.journal;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.zip.CRC32C;
+import com.api.expeval.model.ExpressionRecord;
+import com.api.expeval.model.ExpressionStatus;
+
+/**
+ * Binary layout of one journal entry:
+ * <pre>
+ * int   body length (0 marks the end of a segment)
+ * int   CRC32C of the body
+ * long  id
+ * long  createdAt epoch seconds
+ * int   createdAt nanos
+ * byte  status ordinal
+ * byte  flags (1 = result present, 2 = error message present)
+ * [int scale, ushort length, unscaled value bytes]   result
+ * ushort length, UTF-8 bytes                         expression
+ * [ushort length, UTF-8 bytes]                       error message
+ * </pre>
+ */
+final class JournalRecordCodec {
+  static final int HEADER_BYTES = 8;
+  static final int MAX_RECORD_BYTES = HEADER_BYTES + 30 + 2 * (2 + 0xFFFF) + 6 + 0xFFFF;
+
+  private static final byte HAS_RESULT = 1;
+  private static final byte HAS_ERROR = 2;
+  private static final ExpressionStatus[] STATUSES = ExpressionStatus.values();
+
+  private JournalRecordCodec() {
+  }
+
+  /**
+   * Writes {@code record} at the current position of {@code target}, which must have at least
+   * {@link #MAX_RECORD_BYTES} remaining.
+   */
+  static void encode(ExpressionRecord record, ByteBuffer target) {
+    int start = target.position();
+    target.position(start + HEADER_BYTES);
+    Instant createdAt = record.getCreatedAt();
+    target.putLong(record.getId());
+    target.putLong(createdAt.getEpochSecond());
+    target.putInt(createdAt.getNano());
+    target.put((byte) record.getStatus().ordinal());
+    byte flags = 0;
+    if (record.getResult() != null) {
+      flags |= HAS_RESULT;
+    }
+    if (record.getErrorMessage() != null) {
+      flags |= HAS_ERROR;
+    }
+    target.put(flags);
+    if (record.getResult() != null) {
+      target.putInt(record.getResult().scale());
+      putBytes(target, record.getResult().unscaledValue().toByteArray());
+    }
+    putBytes(target, utf8(record.getExpression()));
+    if (record.getErrorMessage() != null) {
+      putBytes(target, utf8(record.getErrorMessage()));
+    }
+    int end = target.position();
+    int length = end - start - HEADER_BYTES;
+    CRC32C crc = new CRC32C();
+    crc.update(target.duplicate().position(start + HEADER_BYTES).limit(end));
+    target.putInt(start, length);
+    target.putInt(start + 4, (int) crc.getValue());
+  }
+
+  /**
+   * Returns the total size of the valid entry at {@code offset}, or 0 when the segment ends there
+   * (zero length, truncated body or checksum mismatch).
+   */
+  static int entrySize(ByteBuffer segment, int offset) {
+    if (offset + HEADER_BYTES > segment.limit()) {
+      return 0;
+    }
+    int length = segment.getInt(offset);
+    if (length <= 0 || offset + HEADER_BYTES + length > segment.limit()) {
+      return 0;
+    }
+    CRC32C crc = new CRC32C();
+    crc.update(segment.duplicate().position(offset + HEADER_BYTES).limit(offset + HEADER_BYTES + length));
+    if ((int) crc.getValue() != segment.getInt(offset + 4)) {
+      return 0;
+    }
+    return HEADER_BYTES + length;
+  }
+
+  static long readId(ByteBuffer segment, int offset) {
+    return segment.getLong(offset + HEADER_BYTES);
+  }
+
+  /**
+   * Reads only the result of the entry at {@code offset}, or {@code null} if it has none.
+   */
+  static BigDecimal readResult(ByteBuffer segment, int offset) {
+    ByteBuffer in = segment.duplicate().position(offset + HEADER_BYTES + 20);
+    in.get();
+    if ((in.get() & HAS_RESULT) == 0) {
+      return null;
+    }
+    int scale = in.getInt();
+    return new BigDecimal(new BigInteger(getBytes(in)), scale);
+  }
+
+  static ExpressionRecord decode(ByteBuffer segment, int offset) {
+    ByteBuffer in = segment.duplicate().position(offset + HEADER_BYTES);
+    ExpressionRecord record = new ExpressionRecord();
+    record.setId(in.getLong());
+    long seconds = in.getLong();
+    record.setCreatedAt(Instant.ofEpochSecond(seconds, in.getInt()));
+    record.setStatus(STATUSES[in.get()]);
+    byte flags = in.get();
+    if ((flags & HAS_RESULT) != 0) {
+      int scale = in.getInt();
+      record.setResult(new BigDecimal(new BigInteger(getBytes(in)), scale));
+    }
+    record.setExpression(new String(getBytes(in), StandardCharsets.UTF_8));
+    if ((flags & HAS_ERROR) != 0) {
+      record.setErrorMessage(new String(getBytes(in), StandardCharsets.UTF_8));
+    }
+    return record;
+  }
+
+  private static byte[] utf8(String value) {
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    if (bytes.length > 0xFFFF) {
+      throw new IllegalArgumentException("Journal field exceeds " + 0xFFFF + " bytes.");
+    }
+    return bytes;
+  }
+
+  private static void putBytes(ByteBuffer target, byte[] bytes) {
+    target.putShort((short) bytes.length);
+    target.put(bytes);
+  }
+
+  private static byte[] getBytes(ByteBuffer in) {
+    byte[] bytes = new byte[in.getShort() & 0xFFFF];
+    in.get(bytes);
+    return bytes;
+  }
+}
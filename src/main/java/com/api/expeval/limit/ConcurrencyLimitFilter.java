@@ -0,0 +1,145 @@
+package com.api.expeval.limit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+import com.api.expeval.dto.ErrorResponse;
+
+/**
+ * Adaptive concurrency limit for {@code /api/v1/expressions/calculate}. Requests over the current
+ * {@link VegasLimit} are rejected at once with {@code 503} and {@code Retry-After} instead of
+ * queueing for a database connection, so a slow backend sheds load rather than timing out every
+ * request. The filter runs on a servlet container thread, so it does not protect that pool itself.
+ * Only evaluations feed the latency samples: {@code 304}s, client errors and responses served
+ * from the evaluation cache ({@link #skipLatencySample()}) are far faster than an evaluation that
+ * stores its record and would make every real one look queued. Server errors count as overload
+ * signals. The limit, requests in flight and rejections are exported as
+ * {@code expeval.limit.current}, {@code expeval.limit.in-flight} and {@code expeval.limit.rejected}.
+ */
+@Component
+@ConditionalOnProperty(name = "expeval.limit.enabled", havingValue = "true")
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+  static final String LIMITED_PATH = "/api/v1/expressions/calculate";
+  private static final String SKIP_SAMPLE = ConcurrencyLimitFilter.class.getName() + ".skipSample";
+
+  private final VegasLimit algorithm;
+  private final AtomicInteger inFlight = new AtomicInteger();
+  private final ObjectMapper objectMapper;
+  private final String retryAfterSeconds;
+  private final Counter rejected;
+  private final AtomicInteger limit;
+
+  public ConcurrencyLimitFilter(ObjectMapper objectMapper, MeterRegistry registry,
+                                @Value("${expeval.limit.initial-limit:20}") int initialLimit,
+                                @Value("${expeval.limit.min-limit:4}") int minLimit,
+                                @Value("${expeval.limit.max-limit:200}") int maxLimit,
+                                @Value("${expeval.limit.smoothing:1.0}") double smoothing,
+                                @Value("${expeval.limit.probe-multiplier:30}") int probeMultiplier,
+                                @Value("${expeval.limit.retry-after:1s}") Duration retryAfter) {
+    this.algorithm = new VegasLimit(initialLimit, minLimit, maxLimit, smoothing, probeMultiplier);
+    this.limit = new AtomicInteger(algorithm.limit());
+    this.objectMapper = objectMapper;
+    this.retryAfterSeconds = Long.toString(Math.max(1, retryAfter.toSeconds()));
+    this.rejected = Counter.builder("expeval.limit.rejected").register(registry);
+    Gauge.builder("expeval.limit.current", limit, AtomicInteger::get).register(registry);
+    Gauge.builder("expeval.limit.in-flight", inFlight, AtomicInteger::get).register(registry);
+  }
+
+  @Override
+  protected boolean shouldNotFilter(HttpServletRequest request) {
+    return !request.getRequestURI().startsWith(LIMITED_PATH);
+  }
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+      throws ServletException, IOException {
+    int current = tryAcquire();
+    if (current < 0) {
+      rejected.increment();
+      reject(request, response);
+      return;
+    }
+    long started = System.nanoTime();
+    boolean dropped = true;
+    try {
+      chain.doFilter(request, response);
+      dropped = response.getStatus() >= 500;
+    } finally {
+      inFlight.decrementAndGet();
+      if (dropped || (response.getStatus() < 300 && request.getAttribute(SKIP_SAMPLE) == null)) {
+        long latency = System.nanoTime() - started;
+        synchronized (algorithm) {
+          limit.set(algorithm.update(latency, current, dropped));
+        }
+      }
+    }
+  }
+
+  /**
+   * Leaves the current request, if any, out of the latency samples; for responses that did not do
+   * the work the limit protects, such as evaluation cache hits.
+   */
+  public static void skipLatencySample() {
+    RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+    if (attributes != null) {
+      attributes.setAttribute(SKIP_SAMPLE, Boolean.TRUE, RequestAttributes.SCOPE_REQUEST);
+    }
+  }
+
+  /**
+   * @return requests in flight including this one, or -1 when the limit is reached
+   */
+  private int tryAcquire() {
+    while (true) {
+      int current = inFlight.get();
+      if (current >= limit.get()) {
+        return -1;
+      }
+      if (inFlight.compareAndSet(current, current + 1)) {
+        return current + 1;
+      }
+    }
+  }
+
+  private void reject(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    HttpStatus status = HttpStatus.SERVICE_UNAVAILABLE;
+    response.setStatus(status.value());
+    response.setHeader(HttpHeaders.RETRY_AFTER, retryAfterSeconds);
+    response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+    objectMapper.writeValue(response.getOutputStream(), ErrorResponse.builder()
+        .timestamp(Instant.now())
+        .status(status.value())
+        .error(status.getReasonPhrase())
+        .message("Server is overloaded, retry later.")
+        .path(request.getRequestURI())
+        .build());
+  }
+
+  int limit() {
+    return limit.get();
+  }
+
+  long noLoadNanos() {
+    synchronized (algorithm) {
+      return algorithm.noLoadNanos();
+    }
+  }
+}
@@ -0,0 +1,93 @@
+package com.api.expeval.limit;
+
+import java.util.Arrays;
+
+/**
+ * Concurrency limit adjusted from request latency in the style of TCP Vegas. The no-load round trip
+ * is estimated as the {@value #BASELINE_PERCENTILE} quantile of the latencies in the last window of
+ * {@code probeMultiplier * limit} samples, so a single unusually fast request does not become the
+ * baseline and a permanently slower backend becomes the new one after a window. A latency above it
+ * means requests are queueing somewhere (the connection pool, Postgres), and the estimated queue
+ * {@code limit * (1 - noLoad / latency)} decides whether the limit grows, holds or shrinks. Errors
+ * that signal overload shrink it directly. Until the first window is complete only errors move the
+ * limit. Not thread-safe; callers synchronize.
+ */
+public class VegasLimit {
+  private static final double BASELINE_PERCENTILE = 0.1;
+
+  private final int minLimit;
+  private final int maxLimit;
+  private final double smoothing;
+  private final int probeMultiplier;
+  private double limit;
+  private long noLoadNanos;
+  private long[] window;
+  private int windowSamples;
+
+  public VegasLimit(int initialLimit, int minLimit, int maxLimit, double smoothing, int probeMultiplier) {
+    this.minLimit = minLimit;
+    this.maxLimit = maxLimit;
+    this.smoothing = smoothing;
+    this.probeMultiplier = probeMultiplier;
+    this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+    this.window = new long[windowSize()];
+  }
+
+  public int limit() {
+    return (int) limit;
+  }
+
+  long noLoadNanos() {
+    return noLoadNanos;
+  }
+
+  /**
+   * @param inFlight requests in flight when this one started, itself included
+   * @param dropped  whether the request failed in a way that signals overload
+   * @return the new limit
+   */
+  public int update(long latencyNanos, int inFlight, boolean dropped) {
+    if (latencyNanos <= 0) {
+      return limit();
+    }
+    double step = Math.max(1, Math.log10(limit));
+    double next;
+    if (dropped) {
+      next = limit - step;
+    } else {
+      sample(latencyNanos);
+      if (noLoadNanos == 0 || inFlight * 2 < limit) {
+        // no baseline yet, or far below the limit where the latency says nothing about capacity
+        return limit();
+      }
+      double queue = Math.ceil(limit * (1 - (double) Math.min(noLoadNanos, latencyNanos) / latencyNanos));
+      if (queue <= step) {
+        next = limit + 6 * step;
+      } else if (queue < 3 * step) {
+        next = limit + step;
+      } else if (queue > 6 * step) {
+        next = limit - step;
+      } else {
+        return limit();
+      }
+    }
+    next = Math.max(minLimit, Math.min(maxLimit, next));
+    limit = (1 - smoothing) * limit + smoothing * next;
+    return limit();
+  }
+
+  private void sample(long latencyNanos) {
+    window[windowSamples++] = latencyNanos;
+    if (windowSamples < window.length) {
+      return;
+    }
+    Arrays.sort(window);
+    noLoadNanos = window[(int) (window.length * BASELINE_PERCENTILE)];
+    window = new long[windowSize()];
+    windowSamples = 0;
+  }
+
+  private int windowSize() {
+    return Math.max(1, probeMultiplier * limit());
+  }
+}
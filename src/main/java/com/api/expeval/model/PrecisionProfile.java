@@ -0,0 +1,37 @@
+package com.api.expeval.model;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+
+public enum PrecisionProfile {
+  // decimal64-sized operands stay in BigDecimal's long-backed form; functions take the double path
+  FAST(new MathContext(16, RoundingMode.HALF_EVEN), null, 16),
+  STANDARD(new MathContext(32, RoundingMode.HALF_UP), 16, 16),
+  HIGH(new MathContext(64, RoundingMode.HALF_UP), null, 32);
+
+  private final MathContext mathContext;
+  private final Integer divisionScale;
+  private final int resultScale;
+
+  PrecisionProfile(MathContext mathContext, Integer divisionScale, int resultScale) {
+    this.mathContext = mathContext;
+    this.divisionScale = divisionScale;
+    this.resultScale = resultScale;
+  }
+
+  public MathContext getMathContext() {
+    return mathContext;
+  }
+
+  public int getResultScale() {
+    return resultScale;
+  }
+
+  public BigDecimal divide(BigDecimal dividend, BigDecimal divisor) {
+    if (divisionScale == null) {
+      return dividend.divide(divisor, mathContext);
+    }
+    return dividend.divide(divisor, divisionScale, mathContext.getRoundingMode());
+  }
+}
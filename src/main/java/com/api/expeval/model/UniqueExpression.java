@@ -0,0 +1,63 @@
+package com.api.expeval.model;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.Getter;
+import lombok.Setter;
+
+@Entity
+@Table(name = "unique_expressions",
+    uniqueConstraints = @UniqueConstraint(name = "uk_unique_expressions_key",
+        columnNames = {"expression_hash", "canonical_key"}),
+    indexes = @Index(name = "idx_unique_expressions_result", columnList = "result"))
+@Getter
+@Setter
+public class UniqueExpression {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+
+  @Column(nullable = false)
+  private long expressionHash;
+
+  // precision and canonical text, or the raw text when it failed validation (precision is null)
+  @Column(nullable = false, length = 2100)
+  private String canonicalKey;
+
+  @Enumerated(EnumType.STRING)
+  @Column(length = 16)
+  private PrecisionProfile precision;
+
+  @Column(nullable = false, length = 2048)
+  private String expression;
+
+  @Column(precision = 38, scale = 16)
+  private BigDecimal result;
+
+  @Enumerated(EnumType.STRING)
+  @Column(nullable = false, length = 16)
+  private ExpressionStatus status;
+
+  @Column(length = 2048)
+  private String errorMessage;
+
+  @Column(nullable = false)
+  private long occurrences;
+
+  @Column(nullable = false, updatable = false)
+  private Instant firstSeenAt;
+
+  @Column(nullable = false)
+  private Instant lastSeenAt;
+}
@@ -1,10 +1,26 @@
 package com.api.expeval.repository;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.util.List;
+import java.util.Optional;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import com.api.expeval.model.ExpressionRecord;
+import com.api.expeval.model.ExpressionStatus;
 
 public interface ExpressionRecordRepository extends JpaRepository<ExpressionRecord, Long> {
   List<ExpressionRecord> findByResult(BigDecimal result);
+
+  List<ExpressionRecord> findByStatusOrderByIdDesc(ExpressionStatus status, Pageable pageable);
+
+  List<ExpressionRecord> findByIdGreaterThanAndCreatedAtBeforeOrderByIdAsc(Long id, Instant cutoff, Pageable pageable);
+
+  List<ExpressionRecord> findByExpressionContainingAndIdLessThanOrderByIdDesc(String fragment, Long beforeId,
+                                                                             Pageable pageable);
+
+  List<ExpressionRecord> findByExpressionContainingAndIdGreaterThanEqualAndIdLessThanOrderByIdDesc(
+      String fragment, Long fromId, Long beforeId, Pageable pageable);
+
+  Optional<ExpressionRecord> findTopByOrderByIdDesc();
 }
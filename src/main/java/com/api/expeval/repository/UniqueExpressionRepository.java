@@ -0,0 +1,23 @@
+package com.api.expeval.repository;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import com.api.expeval.model.ExpressionStatus;
+import com.api.expeval.model.UniqueExpression;
+
+public interface UniqueExpressionRepository extends JpaRepository<UniqueExpression, Long> {
+  List<UniqueExpression> findByResult(BigDecimal result);
+
+  List<UniqueExpression> findByStatusOrderByLastSeenAtDesc(ExpressionStatus status, Pageable pageable);
+
+  List<UniqueExpression> findByExpressionContainingAndIdLessThanOrderByIdDesc(String fragment, Long beforeId,
+                                                                             Pageable pageable);
+
+  List<UniqueExpression> findByExpressionContainingAndIdGreaterThanEqualAndIdLessThanOrderByIdDesc(
+      String fragment, Long fromId, Long beforeId, Pageable pageable);
+
+  Optional<UniqueExpression> findTopByOrderByIdDesc();
+}
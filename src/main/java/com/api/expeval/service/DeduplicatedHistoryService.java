@@ -0,0 +1,303 @@
+package com.api.expeval.service;
+
+import java.math.BigDecimal;
+import java.sql.DatabaseMetaData;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.sql.DataSource;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import com.api.expeval.exception.ServiceOverloadedException;
+import com.api.expeval.model.ExpressionRecord;
+import com.api.expeval.model.ExpressionStatus;
+import com.api.expeval.model.PrecisionProfile;
+import com.api.expeval.model.UniqueExpression;
+import com.api.expeval.repository.UniqueExpressionRepository;
+import com.api.expeval.util.CanonicalExpression;
+import com.api.expeval.util.ExpressionCanonicalizer;
+
+/**
+ * History store that keeps one row per unique expression. Occurrences are counted in memory and
+ * upserted into {@code unique_expressions} every {@code expeval.history.flush-interval-ms}. Rows are
+ * keyed by the canonical expression but keep the text as it was first submitted. While flushes fail,
+ * at most {@code expeval.history.max-pending} unique expressions are held; evaluations of further
+ * ones are refused as overloaded until a flush succeeds.
+ */
+@Service
+@ConditionalOnProperty(name = "expeval.history.store", havingValue = "deduplicated")
+public class DeduplicatedHistoryService implements HistoryStore {
+  private static final Logger log = LoggerFactory.getLogger(DeduplicatedHistoryService.class);
+  private static final String RAW_KEY_PREFIX = "RAW:";
+
+  private static final String COLUMNS = "expression_hash, canonical_key, precision, expression, result, status, "
+      + "error_message, occurrences, first_seen_at, last_seen_at";
+  private static final String POSTGRES_UPSERT = "insert into unique_expressions (" + COLUMNS + ")"
+      + " values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)"
+      + " on conflict (expression_hash, canonical_key) do update"
+      + " set occurrences = unique_expressions.occurrences + excluded.occurrences,"
+      + " last_seen_at = greatest(unique_expressions.last_seen_at, excluded.last_seen_at)";
+  private static final String MERGE_UPSERT = "merge into unique_expressions u using (select"
+      + " cast(? as bigint) expression_hash, cast(? as varchar) canonical_key,"
+      + " cast(? as varchar) precision, cast(? as varchar) expression,"
+      + " cast(? as numeric(38, 16)) result, cast(? as varchar) status,"
+      + " cast(? as varchar) error_message, cast(? as bigint) occurrences,"
+      + " cast(? as timestamp with time zone) first_seen_at, cast(? as timestamp with time zone) last_seen_at) v"
+      + " on u.expression_hash = v.expression_hash and u.canonical_key = v.canonical_key"
+      + " when matched then update set occurrences = u.occurrences + v.occurrences,"
+      + " last_seen_at = greatest(u.last_seen_at, v.last_seen_at)"
+      + " when not matched then insert (" + COLUMNS + ") values (v.expression_hash, v.canonical_key,"
+      + " v.precision, v.expression, v.result, v.status, v.error_message, v.occurrences, v.first_seen_at,"
+      + " v.last_seen_at)";
+
+  private final UniqueExpressionRepository repository;
+  private final JdbcTemplate jdbc;
+  private final TransactionTemplate transactionTemplate;
+  private final int batchSize;
+  private final int maxPending;
+  private final Duration retryAfter;
+  private final Map<String, PendingOccurrence> pending = new ConcurrentHashMap<>();
+  private volatile Map<String, PendingOccurrence> flushing = Map.of();
+  private String upsertSql;
+
+  public DeduplicatedHistoryService(UniqueExpressionRepository repository, DataSource dataSource,
+                                    PlatformTransactionManager transactionManager,
+                                    @Value("${expeval.history.flush-batch-size:500}") int batchSize,
+                                    @Value("${expeval.history.max-pending:100000}") int maxPending,
+                                    @Value("${expeval.history.flush-interval-ms:5000}") long flushIntervalMs) {
+    this.repository = repository;
+    this.jdbc = new JdbcTemplate(dataSource);
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.batchSize = batchSize;
+    this.maxPending = maxPending;
+    this.retryAfter = Duration.ofMillis(flushIntervalMs);
+  }
+
+  @Override
+  public boolean keysByCanonicalForm() {
+    return true;
+  }
+
+  @Override
+  public void save(ExpressionRecord record, CanonicalExpression canonical) {
+    Instant now = Instant.now();
+    record.setCreatedAt(now);
+    String key = canonical != null ? canonical.key() : RAW_KEY_PREFIX + record.getExpression();
+    // counting a held expression again takes no room; the size check can overshoot by the number of
+    // concurrent callers
+    if (pending.size() >= maxPending && !pending.containsKey(key)) {
+      throw new ServiceOverloadedException("History is not being stored, retry later.", retryAfter);
+    }
+    pending.compute(key, (k, existing) -> {
+      if (existing == null) {
+        return new PendingOccurrence(k, record, canonical, now);
+      }
+      existing.count++;
+      existing.lastSeenAt = now;
+      return existing;
+    });
+  }
+
+  /**
+   * One record per occurrence, like the {@code jpa} store. Occurrences of a unique expression are
+   * not stored apart, so they repeat its id and the text and time it was first submitted with.
+   * Matching occurrences that are still aggregated in memory are flushed first, so every record has
+   * an id.
+   */
+  @Override
+  public List<ExpressionRecord> findByResult(BigDecimal normalizedResult) {
+    if (hasResult(flushing, normalizedResult) || hasResult(pending, normalizedResult)) {
+      flush();
+    }
+    return repository.findByResult(normalizedResult).stream()
+        .flatMap(unique -> Collections.nCopies((int) Math.min(unique.getOccurrences(), Integer.MAX_VALUE),
+            toRecord(unique)).stream())
+        .toList();
+  }
+
+  @Override
+  public List<String> recentExpressions(int limit) {
+    return repository.findByStatusOrderByLastSeenAtDesc(ExpressionStatus.SUCCESS, PageRequest.of(0, limit)).stream()
+        .map(UniqueExpression::getExpression)
+        .toList();
+  }
+
+  /**
+   * Searches flushed rows only: occurrences still aggregated in memory have no id to page by and
+   * show up after the next flush.
+   */
+  @Override
+  public List<ExpressionRecord> search(String fragment, long beforeId, int limit) {
+    return repository.findByExpressionContainingAndIdLessThanOrderByIdDesc(fragment, beforeId,
+            PageRequest.of(0, limit)).stream()
+        .map(DeduplicatedHistoryService::toRecord)
+        .toList();
+  }
+
+  @Override
+  @Transactional(readOnly = true, timeoutString = "${expeval.search.scan-timeout-seconds:5}")
+  public List<ExpressionRecord> scan(String fragment, long fromId, long beforeId, int limit) {
+    return repository.findByExpressionContainingAndIdGreaterThanEqualAndIdLessThanOrderByIdDesc(fragment, fromId,
+            beforeId, PageRequest.of(0, limit)).stream()
+        .map(DeduplicatedHistoryService::toRecord)
+        .toList();
+  }
+
+  @Override
+  public long lastId() {
+    return repository.findTopByOrderByIdDesc().map(UniqueExpression::getId).orElse(0L);
+  }
+
+  @Scheduled(fixedDelayString = "${expeval.history.flush-interval-ms:5000}")
+  public synchronized void flush() {
+    if (pending.isEmpty()) {
+      return;
+    }
+    Map<String, PendingOccurrence> batch = new HashMap<>();
+    for (String key : pending.keySet()) {
+      PendingOccurrence occurrence = pending.remove(key);
+      if (occurrence != null) {
+        batch.put(key, occurrence);
+      }
+    }
+    flushing = batch;
+    try {
+      List<Map.Entry<String, PendingOccurrence>> occurrences = new ArrayList<>(batch.entrySet());
+      for (int from = 0; from < occurrences.size(); from += batchSize) {
+        flushChunk(occurrences.subList(from, Math.min(from + batchSize, occurrences.size())));
+      }
+    } finally {
+      flushing = Map.of();
+    }
+  }
+
+  // chunks commit on their own, so a failure puts back only the occurrences of the failed chunk
+  private void flushChunk(List<Map.Entry<String, PendingOccurrence>> chunk) {
+    try {
+      transactionTemplate.executeWithoutResult(status -> upsert(chunk.stream().map(Map.Entry::getValue).toList()));
+    } catch (DuplicateKeyException ex) {
+      // lost a MERGE race against another instance; the row exists by the next flush
+      requeue(chunk, ex);
+    } catch (DataIntegrityViolationException ex) {
+      // retrying cannot store these, for example text longer than the column
+      log.error("Dropping {} unique expressions that cannot be stored", chunk.size(), ex);
+    } catch (RuntimeException ex) {
+      requeue(chunk, ex);
+    }
+  }
+
+  private void requeue(List<Map.Entry<String, PendingOccurrence>> chunk, RuntimeException cause) {
+    log.warn("Flushing {} unique expressions failed, retrying on next flush", chunk.size(), cause);
+    for (Map.Entry<String, PendingOccurrence> entry : chunk) {
+      pending.merge(entry.getKey(), entry.getValue(), (newer, retried) -> retried.merge(newer));
+    }
+  }
+
+  @PreDestroy
+  public void flushOnShutdown() {
+    flush();
+  }
+
+  private void upsert(List<PendingOccurrence> chunk) {
+    jdbc.batchUpdate(upsertSql(), chunk, chunk.size(), (statement, occurrence) -> {
+      statement.setLong(1, occurrence.hash);
+      statement.setString(2, occurrence.key);
+      statement.setString(3, occurrence.precision != null ? occurrence.precision.name() : null);
+      statement.setString(4, occurrence.expression);
+      statement.setBigDecimal(5, occurrence.result);
+      statement.setString(6, occurrence.status.name());
+      statement.setString(7, occurrence.errorMessage);
+      statement.setLong(8, occurrence.count);
+      statement.setObject(9, occurrence.firstSeenAt.atOffset(ZoneOffset.UTC));
+      statement.setObject(10, occurrence.lastSeenAt.atOffset(ZoneOffset.UTC));
+    });
+  }
+
+  // one atomic statement per row, so instances flushing the same expression add up their counts
+  // instead of both inserting it; other databases get the standard MERGE, which is not safe
+  // against that race. Strings are cast without a length so overlong text fails, not truncates.
+  private String upsertSql() {
+    if (upsertSql == null) {
+      upsertSql = isPostgres() ? POSTGRES_UPSERT : MERGE_UPSERT;
+    }
+    return upsertSql;
+  }
+
+  private boolean isPostgres() {
+    try {
+      return "PostgreSQL".equals(JdbcUtils.extractDatabaseMetaData(jdbc.getDataSource(),
+          DatabaseMetaData::getDatabaseProductName));
+    } catch (MetaDataAccessException ex) {
+      throw new IllegalStateException("Could not determine the history database", ex);
+    }
+  }
+
+  private static boolean hasResult(Map<String, PendingOccurrence> occurrences, BigDecimal normalizedResult) {
+    return occurrences.values().stream()
+        .anyMatch(occurrence -> occurrence.result != null && occurrence.result.compareTo(normalizedResult) == 0);
+  }
+
+  private static ExpressionRecord toRecord(UniqueExpression unique) {
+    ExpressionRecord record = new ExpressionRecord();
+    record.setId(unique.getId());
+    record.setExpression(unique.getExpression());
+    record.setResult(unique.getResult());
+    record.setStatus(unique.getStatus());
+    record.setErrorMessage(unique.getErrorMessage());
+    record.setCreatedAt(unique.getFirstSeenAt());
+    return record;
+  }
+
+  private static final class PendingOccurrence {
+    private final String key;
+    private final long hash;
+    private final PrecisionProfile precision;
+    private final String expression;
+    private final BigDecimal result;
+    private final ExpressionStatus status;
+    private final String errorMessage;
+    private final Instant firstSeenAt;
+    private Instant lastSeenAt;
+    private long count = 1;
+
+    private PendingOccurrence(String key, ExpressionRecord record, CanonicalExpression canonical, Instant now) {
+      this.key = key;
+      this.precision = canonical != null ? canonical.precision() : null;
+      this.expression = record.getExpression();
+      this.hash = canonical != null ? canonical.hash() : ExpressionCanonicalizer.hash(key);
+      this.result = record.getResult();
+      this.status = record.getStatus();
+      this.errorMessage = record.getErrorMessage();
+      this.firstSeenAt = now;
+      this.lastSeenAt = now;
+    }
+
+    private PendingOccurrence merge(PendingOccurrence newer) {
+      count += newer.count;
+      if (newer.lastSeenAt.isAfter(lastSeenAt)) {
+        lastSeenAt = newer.lastSeenAt;
+      }
+      return this;
+    }
+  }
+}
@@ -0,0 +1,69 @@
+package com.api.expeval.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.math.BigDecimal;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import com.api.expeval.util.CanonicalExpression;
+import com.api.expeval.util.LruCache;
+
+/**
+ * Results by canonical expression, plus a negative cache of recently rejected expressions keyed by
+ * raw or canonical text, so repeated bad input is answered without parsing it again.
+ */
+@Component
+public class EvaluationCache {
+  private final LruCache<String, BigDecimal> cache;
+  private final LruCache<String, RuntimeException> rejections;
+  private final Counter hits;
+  private final Counter misses;
+  private final Counter rejectionHits;
+  private final boolean enabled;
+
+  public EvaluationCache(@Value("${expeval.cache.max-size:10000}") int maxSize,
+                         @Value("${expeval.cache.rejected-max-size:10000}") int rejectedMaxSize,
+                         MeterRegistry registry) {
+    this.cache = new LruCache<>(maxSize);
+    this.enabled = maxSize > 0;
+    this.rejections = new LruCache<>(rejectedMaxSize);
+    this.hits = Counter.builder("expeval.cache.requests").tag("result", "hit").register(registry);
+    this.misses = Counter.builder("expeval.cache.requests").tag("result", "miss").register(registry);
+    this.rejectionHits = Counter.builder("expeval.cache.requests").tag("result", "rejected").register(registry);
+    Gauge.builder("expeval.cache.size", cache, LruCache::size).register(registry);
+    Gauge.builder("expeval.cache.rejected.size", rejections, LruCache::size).register(registry);
+  }
+
+  /**
+   * Whether results are cached at all ({@code expeval.cache.max-size} above zero).
+   */
+  public boolean enabled() {
+    return enabled;
+  }
+
+  public BigDecimal get(CanonicalExpression expression) {
+    BigDecimal result = cache.get(expression.key());
+    (result == null ? misses : hits).increment();
+    return result;
+  }
+
+  public void put(CanonicalExpression expression, BigDecimal result) {
+    cache.put(expression.key(), result);
+  }
+
+  /**
+   * @return the exception an earlier evaluation of {@code key} failed with, or {@code null}
+   */
+  public RuntimeException rejected(String key) {
+    RuntimeException rejection = rejections.get(key);
+    if (rejection != null) {
+      rejectionHits.increment();
+    }
+    return rejection;
+  }
+
+  public void reject(String key, RuntimeException rejection) {
+    rejections.put(key, rejection);
+  }
+}
@@ -1,27 +1,82 @@
 package com.api.expeval.service;
 
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.transaction.annotation.Transactional;
+import com.api.expeval.archive.HistoryArchive;
 import com.api.expeval.model.ExpressionRecord;
+import com.api.expeval.model.ExpressionStatus;
 import com.api.expeval.repository.ExpressionRecordRepository;
+import com.api.expeval.util.CanonicalExpression;
 
 @Service
-public class ExpressionRecordService {
+@ConditionalOnProperty(name = "expeval.history.store", havingValue = "jpa", matchIfMissing = true)
+public class ExpressionRecordService implements HistoryStore {
   private final ExpressionRecordRepository repository;
+  private final HistoryArchive archive;
 
-  public ExpressionRecordService(ExpressionRecordRepository repository) {
+  public ExpressionRecordService(ExpressionRecordRepository repository, ObjectProvider<HistoryArchive> archive) {
     this.repository = repository;
+    this.archive = archive.getIfAvailable();
   }
 
+  @Override
   @Transactional
-  public void saveRecord(ExpressionRecord record) {
+  public void save(ExpressionRecord record, CanonicalExpression canonical) {
     repository.save(record);
   }
 
+  /**
+   * Archived records first, then the database ones. A record is in both while its segment is being
+   * archived, or when a lagging replica still has it, and is returned once.
+   */
+  @Override
   @Transactional(readOnly = true)
   public List<ExpressionRecord> findByResult(BigDecimal normalizedResult) {
-    return repository.findByResult(normalizedResult);
+    if (archive == null) {
+      return repository.findByResult(normalizedResult);
+    }
+    List<ExpressionRecord> records = archive.findByResult(normalizedResult);
+    Set<Long> archived = records.stream().map(ExpressionRecord::getId).collect(Collectors.toSet());
+    for (ExpressionRecord record : repository.findByResult(normalizedResult)) {
+      if (!archived.contains(record.getId())) {
+        records.add(record);
+      }
+    }
+    return records;
+  }
+
+  @Override
+  @Transactional(readOnly = true)
+  public List<String> recentExpressions(int limit) {
+    return repository.findByStatusOrderByIdDesc(ExpressionStatus.SUCCESS, PageRequest.of(0, limit)).stream()
+        .map(ExpressionRecord::getExpression)
+        .toList();
+  }
+
+  @Override
+  @Transactional(readOnly = true)
+  public List<ExpressionRecord> search(String fragment, long beforeId, int limit) {
+    return repository.findByExpressionContainingAndIdLessThanOrderByIdDesc(fragment, beforeId,
+        PageRequest.of(0, limit));
+  }
+
+  @Override
+  @Transactional(readOnly = true, timeoutString = "${expeval.search.scan-timeout-seconds:5}")
+  public List<ExpressionRecord> scan(String fragment, long fromId, long beforeId, int limit) {
+    return repository.findByExpressionContainingAndIdGreaterThanEqualAndIdLessThanOrderByIdDesc(fragment, fromId,
+        beforeId, PageRequest.of(0, limit));
+  }
+
+  @Override
+  @Transactional(readOnly = true)
+  public long lastId() {
+    return repository.findTopByOrderByIdDesc().map(ExpressionRecord::getId).orElse(0L);
   }
 }
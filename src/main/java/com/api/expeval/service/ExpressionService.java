@@ -1,60 +1,270 @@
 
 package com.api.expeval.service;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.time.Instant;
 import java.util.List;
 import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import com.api.expeval.dto.ExpressionResponse;
+import com.api.expeval.dto.ExpressionSearchResponse;
+import com.api.expeval.engine.EvaluationRouter;
+import com.api.expeval.exception.ExpressionEvaluationException;
 import com.api.expeval.exception.ExpressionValidationException;
+import com.api.expeval.exception.ServiceOverloadedException;
+import com.api.expeval.limit.ConcurrencyLimitFilter;
 import com.api.expeval.model.ExpressionRecord;
 import com.api.expeval.model.ExpressionStatus;
-import com.api.expeval.util.ExpressionParser;
+import com.api.expeval.model.PrecisionProfile;
+import com.api.expeval.stats.EvaluationStats;
+import com.api.expeval.util.CanonicalExpression;
+import com.api.expeval.util.ExpressionCanonicalizer;
+import com.api.expeval.util.LogRateLimiter;
 
 @Service
 public class ExpressionService {
   public static final int RESULT_SCALE = 16;
+  public static final int MIN_SEARCH_LENGTH = 3;
+  public static final int MAX_SEARCH_LENGTH = 1000;
+  public static final int MAX_SEARCH_PAGE_SIZE = 100;
+  // part of calculation tags; bump when a change alters the result of an expression that was valid
+  private static final int RESULT_VERSION = 1;
 
   private static final Logger log = LoggerFactory.getLogger(ExpressionService.class);
-  private final ExpressionRecordService recordService;
+  private final HistoryStore historyStore;
+  private final EvaluationCache evaluationCache;
+  private final EvaluationStats stats;
+  private final ResultChangeTracker changeTracker;
+  private final EvaluationRouter engines;
 
-  public ExpressionService(ExpressionRecordService recordService) {
-    this.recordService = recordService;
+  private final boolean canonicalForm;
+  private final boolean persistErrors;
+  private final int searchScanRows;
+  private final LogRateLimiter failureLog;
+  private final Counter validationFailures;
+  private final Counter evaluationFailures;
+  private final Counter unexpectedFailures;
+
+  public ExpressionService(HistoryStore historyStore, EvaluationCache evaluationCache, EvaluationStats stats,
+                           ResultChangeTracker changeTracker, EvaluationRouter engines, MeterRegistry registry,
+                           @Value("${expeval.history.persist-errors:true}") boolean persistErrors,
+                           @Value("${expeval.logging.failures-per-second:10}") int failureLogsPerSecond,
+                           @Value("${expeval.search.scan-rows:100000}") int searchScanRows) {
+    this.historyStore = historyStore;
+    this.evaluationCache = evaluationCache;
+    this.stats = stats;
+    this.changeTracker = changeTracker;
+    this.engines = engines;
+    // only the cache and the deduplicated store use it: otherwise it would parse every request twice
+    this.canonicalForm = evaluationCache.enabled() || historyStore.keysByCanonicalForm();
+    this.persistErrors = persistErrors;
+    this.searchScanRows = searchScanRows;
+    this.failureLog = new LogRateLimiter(failureLogsPerSecond);
+    this.validationFailures = failureCounter(registry, "validation");
+    this.evaluationFailures = failureCounter(registry, "evaluation");
+    this.unexpectedFailures = failureCounter(registry, "unexpected");
+  }
+
+  private static Counter failureCounter(MeterRegistry registry, String reason) {
+    return Counter.builder("expeval.evaluations.failures").tag("reason", reason).register(registry);
   }
 
   public ExpressionResponse evaluate(String exp) {
+    return evaluate(exp, PrecisionProfile.STANDARD);
+  }
+
+  public ExpressionResponse evaluate(String exp, PrecisionProfile precision) {
+    long started = System.nanoTime();
+    PrecisionProfile profile = precision == null ? PrecisionProfile.STANDARD : precision;
     ExpressionRecord record = new ExpressionRecord();
     record.setExpression(exp == null ? "" : exp);
     record.setStatus(ExpressionStatus.SUCCESS);
+    CanonicalExpression canonical = null;
     try {
-      BigDecimal result = ExpressionParser.evaluate(exp);
+      // text without a canonical form; kept apart from canonical keys, which look the same
+      String rawKey = "raw:" + profile.name() + ':' + record.getExpression();
+      RuntimeException rejection = evaluationCache.rejected(rawKey);
+      if (rejection != null) {
+        throw rejection;
+      }
+      canonical = canonicalize(exp, profile);
+      BigDecimal result = canonical == null ? null : evaluationCache.get(canonical);
+      if (result == null) {
+        String key = canonical == null ? rawKey : canonical.key();
+        rejection = canonical == null ? null : evaluationCache.rejected(key);
+        if (rejection != null) {
+          throw rejection;
+        }
+        try {
+          result = engines.evaluate(exp, profile);
+        } catch (ExpressionValidationException | ExpressionEvaluationException ex) {
+          evaluationCache.reject(key, ex);
+          throw ex;
+        }
+        if (canonical != null) {
+          evaluationCache.put(canonical, result);
+        }
+      } else {
+        ConcurrencyLimitFilter.skipLatencySample();
+      }
       BigDecimal normalized = normalizeResult(result);
       record.setResult(normalized);
-      recordService.saveRecord(record);
+      historyStore.save(record, canonical);
+      changeTracker.changed(normalized);
+      stats.record(canonical != null ? canonical.text() : exp, normalized, null, System.nanoTime() - started);
       log.info("Expression evaluated successfully: {} | Result: {}", exp, normalized);
-      return toResponse(record, normalized.stripTrailingZeros());
+      return toResponse(record, result.setScale(profile.getResultScale(), RoundingMode.HALF_UP)
+          .stripTrailingZeros());
     } catch (RuntimeException ex) {
       record.setStatus(ExpressionStatus.ERROR);
       record.setErrorMessage(ex.getMessage());
-      recordService.saveRecord(record);
-      log.warn("Expression evaluation failed: {}", exp, ex);
+      if (persistErrors && !(ex instanceof ServiceOverloadedException)) {
+        historyStore.save(record, canonical);
+      }
+      stats.record(canonical != null ? canonical.text() : record.getExpression(), null, ex.getMessage(),
+          System.nanoTime() - started);
+      logFailure(exp, ex);
       throw ex;
     }
   }
 
-  public List<ExpressionResponse> findByResult(BigDecimal value) {
-    if (value == null) {
-      throw new ExpressionValidationException("Result value is required.");
+  /**
+   * @return the canonical form, or {@code null} when it is not used or {@code exp} is invalid. An
+   *     invalid expression is left to the engine, which reports the first error it meets while
+   *     evaluating: division by zero in {@code 1/0+}, not the dangling operator.
+   */
+  private CanonicalExpression canonicalize(String exp, PrecisionProfile profile) {
+    if (!canonicalForm) {
+      return null;
+    }
+    try {
+      return ExpressionCanonicalizer.canonicalize(exp, profile);
+    } catch (ExpressionValidationException | ExpressionEvaluationException ex) {
+      return null;
     }
-    BigDecimal normalized = normalizeResult(value);
-    return recordService.findByResult(normalized).stream()
+  }
+
+  private void logFailure(String exp, RuntimeException ex) {
+    if (!(ex instanceof ExpressionValidationException) && !(ex instanceof ExpressionEvaluationException)) {
+      unexpectedFailures.increment();
+      log.warn("Expression evaluation failed: {}", exp, ex);
+      return;
+    }
+    (ex instanceof ExpressionValidationException ? validationFailures : evaluationFailures).increment();
+    long suppressed = failureLog.tryAcquire();
+    if (suppressed > 0) {
+      log.warn("Expression evaluation failed: {} | {} ({} similar messages suppressed)", exp, ex.getMessage(),
+          suppressed);
+    } else if (suppressed == 0) {
+      log.warn("Expression evaluation failed: {} | {}", exp, ex.getMessage());
+    }
+  }
+
+  /**
+   * Evaluates like {@link #evaluate(String, PrecisionProfile)} but bypasses the evaluation cache
+   * and shadow engine and records nothing (no history, statistics or change tracking). Used by the
+   * JIT warm-up.
+   */
+  public ExpressionResponse evaluateWithoutHistory(String exp, PrecisionProfile precision) {
+    PrecisionProfile profile = precision == null ? PrecisionProfile.STANDARD : precision;
+    BigDecimal result = engines.primary().evaluate(exp, profile);
+    canonicalize(exp, profile);
+    ExpressionRecord record = new ExpressionRecord();
+    record.setExpression(exp);
+    record.setResult(normalizeResult(result));
+    record.setStatus(ExpressionStatus.SUCCESS);
+    record.setCreatedAt(Instant.now());
+    return toResponse(record, result.setScale(profile.getResultScale(), RoundingMode.HALF_UP).stripTrailingZeros());
+  }
+
+  /**
+   * Weak entity tag for evaluating {@code exp}: equivalent spellings of an expression share it, and
+   * it is computed without evaluating. It names the primary engine and {@link #RESULT_VERSION}, so
+   * cached responses are not revalidated across a change that can alter results.
+   *
+   * @return {@code null} when {@code exp} is invalid, so that evaluating it reports the error
+   */
+  public String calculationTag(String exp, PrecisionProfile precision) {
+    CanonicalExpression canonical;
+    try {
+      canonical = ExpressionCanonicalizer.canonicalize(exp, precision == null ? PrecisionProfile.STANDARD : precision);
+    } catch (ExpressionValidationException | ExpressionEvaluationException ex) {
+      return null;
+    }
+    return "W/\"" + engines.primary().name() + '-' + RESULT_VERSION + '-' + canonical.precision() + '-'
+        + Long.toHexString(canonical.hash()) + '"';
+  }
+
+  /**
+   * Entity tag for {@link #findByResult}; changes whenever a record with this result is stored.
+   */
+  public String findByResultTag(BigDecimal value) {
+    return changeTracker.etag(normalizeResult(requireValue(value)));
+  }
+
+  public List<ExpressionResponse> findByResult(BigDecimal value) {
+    BigDecimal normalized = normalizeResult(requireValue(value));
+    return historyStore.findByResult(normalized).stream()
         .map(record -> toResponse(record, record.getResult().stripTrailingZeros()))
         .collect(Collectors.toList());
   }
 
+  /**
+   * Evaluations whose expression text contains {@code contains}, newest first, one page of
+   * {@code size} below the {@code beforeId} cursor ({@code null} for the first page). Fragments
+   * without {@value #MIN_SEARCH_LENGTH} consecutive letters or digits read at most
+   * {@code expeval.search.scan-rows} ids per page, so a page can be short or empty and still have a
+   * next one.
+   */
+  public ExpressionSearchResponse search(String contains, Long beforeId, int size) {
+    if (contains == null || contains.length() < MIN_SEARCH_LENGTH || contains.length() > MAX_SEARCH_LENGTH) {
+      throw new ExpressionValidationException("Search text must be between " + MIN_SEARCH_LENGTH + " and "
+          + MAX_SEARCH_LENGTH + " characters.");
+    }
+    if (size < 1 || size > MAX_SEARCH_PAGE_SIZE) {
+      throw new ExpressionValidationException("Size must be between 1 and " + MAX_SEARCH_PAGE_SIZE + ".");
+    }
+    long below = beforeId == null ? Long.MAX_VALUE : beforeId;
+    List<ExpressionRecord> records;
+    Long scannedFrom = null;
+    if (hasTrigram(contains)) {
+      records = historyStore.search(contains, below, size + 1);
+    } else {
+      // pg_trgm only indexes runs of letters and digits, so nothing narrows such a fragment down:
+      // read one window of ids and let the cursor continue below it
+      long to = Math.min(below, historyStore.lastId() + 1);
+      long from = Math.max(1, to - searchScanRows);
+      records = historyStore.scan(contains, from, to, size + 1);
+      scannedFrom = from > 1 ? from : null;
+    }
+    boolean more = records.size() > size;
+    List<ExpressionResponse> items = records.stream()
+        .limit(size)
+        .map(record -> toResponse(record, record.getResult() == null ? null : record.getResult().stripTrailingZeros()))
+        .toList();
+    return ExpressionSearchResponse.builder()
+        .items(items)
+        .nextBeforeId(more ? items.get(items.size() - 1).getId() : scannedFrom)
+        .build();
+  }
+
+  private static boolean hasTrigram(String text) {
+    int run = 0;
+    for (int i = 0; i < text.length(); i++) {
+      run = Character.isLetterOrDigit(text.charAt(i)) ? run + 1 : 0;
+      if (run == MIN_SEARCH_LENGTH) {
+        return true;
+      }
+    }
+    return false;
+  }
+
   private ExpressionResponse toResponse(ExpressionRecord record, BigDecimal result) {
     return ExpressionResponse.builder()
         .id(record.getId())
@@ -66,6 +276,13 @@ public class ExpressionService {
         .build();
   }
 
+  private static BigDecimal requireValue(BigDecimal value) {
+    if (value == null) {
+      throw new ExpressionValidationException("Result value is required.");
+    }
+    return value;
+  }
+
   private BigDecimal normalizeResult(BigDecimal result) {
     return result.setScale(RESULT_SCALE, RoundingMode.HALF_UP);
   }
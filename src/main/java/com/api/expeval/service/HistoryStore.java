@@ -0,0 +1,60 @@
+package com.api.expeval.service;
+
+import java.math.BigDecimal;
+import java.util.List;
+import com.api.expeval.model.ExpressionRecord;
+import com.api.expeval.util.CanonicalExpression;
+
+/**
+ * Storage for evaluation history, selected with {@code expeval.history.store}: {@code jpa} (default,
+ * one row per evaluation), {@code deduplicated} or {@code journal}.
+ */
+public interface HistoryStore {
+
+  /**
+   * @param canonical canonical form of the expression, {@code null} when it failed validation
+   */
+  void save(ExpressionRecord record, CanonicalExpression canonical);
+
+  List<ExpressionRecord> findByResult(BigDecimal normalizedResult);
+
+  /**
+   * Whether {@link #save} needs the canonical form of valid expressions; when neither the store nor
+   * the evaluation cache does, expressions are not canonicalized.
+   */
+  default boolean keysByCanonicalForm() {
+    return false;
+  }
+
+  /**
+   * Most recently stored successful expressions, newest first; used as a warm-up corpus. Stores
+   * that cannot list them cheaply return an empty list.
+   */
+  default List<String> recentExpressions(int limit) {
+    return List.of();
+  }
+
+  /**
+   * Records whose expression text contains {@code fragment} (matched literally, without wildcards)
+   * and whose id is below {@code beforeId}, newest first. Stores that cannot search by text return
+   * an empty list.
+   */
+  default List<ExpressionRecord> search(String fragment, long beforeId, int limit) {
+    return List.of();
+  }
+
+  /**
+   * Like {@link #search}, but only reads records with an id from {@code fromId} up to below
+   * {@code beforeId}, for fragments that no index narrows down.
+   */
+  default List<ExpressionRecord> scan(String fragment, long fromId, long beforeId, int limit) {
+    return List.of();
+  }
+
+  /**
+   * Highest record id, or 0 when there are none or the store has no ids.
+   */
+  default long lastId() {
+    return 0;
+  }
+}
@@ -0,0 +1,60 @@
+package com.api.expeval.service;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Change counters for find-by-result, striped by result value. A stored record bumps the counter
+ * of its result's stripe; two results sharing a stripe only cause extra cache misses. Counters live
+ * in this process, so the tag includes a per-start epoch and is only meaningful for the instance
+ * that issued it. Records stored through other instances sharing the database do not bump it, so
+ * the tag also rolls over every {@code expeval.http.result-tag-max-age}: that bounds how long such a
+ * record can be hidden behind a {@code 304}.
+ */
+@Component
+public class ResultChangeTracker {
+  private final AtomicLongArray versions;
+  private final int mask;
+  private final long maxAgeMillis;
+  private final Clock clock;
+  private final String epoch = Long.toHexString(ThreadLocalRandom.current().nextLong());
+
+  @Autowired
+  public ResultChangeTracker(@Value("${expeval.http.result-version-stripes:65536}") int stripes,
+                             @Value("${expeval.http.result-tag-max-age:10s}") Duration maxAge) {
+    this(stripes, maxAge, Clock.systemUTC());
+  }
+
+  ResultChangeTracker(int stripes, Duration maxAge, Clock clock) {
+    if (Integer.bitCount(stripes) != 1) {
+      throw new IllegalArgumentException("Result version stripes must be a power of two.");
+    }
+    if (maxAge.toMillis() < 1) {
+      throw new IllegalArgumentException("Result tag max age must be at least one millisecond.");
+    }
+    this.versions = new AtomicLongArray(stripes);
+    this.mask = stripes - 1;
+    this.maxAgeMillis = maxAge.toMillis();
+    this.clock = clock;
+  }
+
+  public void changed(BigDecimal normalizedResult) {
+    versions.incrementAndGet(stripe(normalizedResult));
+  }
+
+  public String etag(BigDecimal normalizedResult) {
+    return "\"" + epoch + '-' + Long.toHexString(versions.get(stripe(normalizedResult))) + '-'
+        + Long.toHexString(clock.millis() / maxAgeMillis) + "\"";
+  }
+
+  private int stripe(BigDecimal normalizedResult) {
+    int hash = normalizedResult.hashCode();
+    return (hash ^ (hash >>> 16)) & mask;
+  }
+}
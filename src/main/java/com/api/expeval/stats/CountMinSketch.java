@@ -0,0 +1,66 @@
+package com.api.expeval.stats;
+
+import java.util.Arrays;
+
+/**
+ * Count-min sketch over 64-bit item hashes. Estimates never undercount; with {@code width} columns
+ * the overcount is at most {@code 2 * total / width} with probability {@code 1 - 2^-depth}.
+ * Not thread-safe.
+ */
+public class CountMinSketch {
+  private final int depth;
+  private final int mask;
+  private final long[] counts;
+
+  public CountMinSketch(int depth, int width) {
+    if (Integer.bitCount(width) != 1) {
+      throw new IllegalArgumentException("Width must be a power of two.");
+    }
+    this.depth = depth;
+    this.mask = width - 1;
+    this.counts = new long[depth * width];
+  }
+
+  /**
+   * Adds one occurrence and returns the new estimate.
+   */
+  public long add(long hash) {
+    long mixed = Hashing.mix(hash);
+    int h1 = (int) mixed;
+    int h2 = (int) (mixed >>> 32);
+    long estimate = Long.MAX_VALUE;
+    for (int row = 0; row < depth; row++) {
+      int index = row * (mask + 1) + ((h1 + row * h2) & mask);
+      estimate = Math.min(estimate, ++counts[index]);
+    }
+    return estimate;
+  }
+
+  public long estimate(long hash) {
+    long mixed = Hashing.mix(hash);
+    int h1 = (int) mixed;
+    int h2 = (int) (mixed >>> 32);
+    long estimate = Long.MAX_VALUE;
+    for (int row = 0; row < depth; row++) {
+      estimate = Math.min(estimate, counts[row * (mask + 1) + ((h1 + row * h2) & mask)]);
+    }
+    return estimate;
+  }
+
+  /**
+   * Adds the counts of {@code other}, which must have the same dimensions.
+   */
+  public void merge(CountMinSketch other) {
+    for (int i = 0; i < counts.length; i++) {
+      counts[i] += other.counts[i];
+    }
+  }
+
+  public void clear() {
+    Arrays.fill(counts, 0);
+  }
+
+  public CountMinSketch emptyCopy() {
+    return new CountMinSketch(depth, mask + 1);
+  }
+}
@@ -0,0 +1,80 @@
+package com.api.expeval.stats;
+
+import java.math.BigDecimal;
+
+/**
+ * Histogram of values by sign and decimal order of magnitude in which every observation's weight
+ * halves each {@code halfLifeMillis}. Uses forward decay: new observations get exponentially larger
+ * weights relative to a landmark, so an update touches one bucket and reads divide by the current
+ * scale. Not thread-safe.
+ */
+public class DecayingHistogram {
+  static final int MIN_EXPONENT = -16;
+  static final int MAX_EXPONENT = 40;
+
+  private static final int DECADES = MAX_EXPONENT - MIN_EXPONENT + 1;
+  private static final double RESCALE_THRESHOLD = 1e100;
+
+  private final double lambda;
+  private final double[] weights = new double[2 * DECADES + 1];
+  private long landmarkMillis;
+
+  public DecayingHistogram(long halfLifeMillis, long nowMillis) {
+    this.lambda = Math.log(2) / halfLifeMillis;
+    this.landmarkMillis = nowMillis;
+  }
+
+  public void add(BigDecimal value, long nowMillis) {
+    double scale = Math.exp(lambda * (nowMillis - landmarkMillis));
+    if (scale > RESCALE_THRESHOLD) {
+      for (int i = 0; i < weights.length; i++) {
+        weights[i] /= scale;
+      }
+      landmarkMillis = nowMillis;
+      scale = 1;
+    }
+    weights[bucket(value)] += scale;
+  }
+
+  /**
+   * Current decayed weight of every bucket, indexed like {@link #lowerBound(int)}.
+   */
+  public double[] weights(long nowMillis) {
+    double scale = Math.exp(lambda * (nowMillis - landmarkMillis));
+    double[] decayed = new double[weights.length];
+    for (int i = 0; i < weights.length; i++) {
+      decayed[i] = weights[i] / scale;
+    }
+    return decayed;
+  }
+
+  /**
+   * Bounds of {@code bucket} by magnitude; the outermost buckets also hold everything beyond them.
+   */
+  public static BigDecimal lowerBound(int bucket) {
+    if (bucket == DECADES) {
+      return BigDecimal.ZERO;
+    }
+    return bucket > DECADES
+        ? BigDecimal.ONE.scaleByPowerOfTen(MIN_EXPONENT + bucket - DECADES - 1)
+        : BigDecimal.ONE.scaleByPowerOfTen(MAX_EXPONENT - bucket + 1).negate();
+  }
+
+  public static BigDecimal upperBound(int bucket) {
+    if (bucket == DECADES) {
+      return BigDecimal.ZERO;
+    }
+    return bucket > DECADES
+        ? BigDecimal.ONE.scaleByPowerOfTen(MIN_EXPONENT + bucket - DECADES)
+        : BigDecimal.ONE.scaleByPowerOfTen(MAX_EXPONENT - bucket).negate();
+  }
+
+  static int bucket(BigDecimal value) {
+    if (value.signum() == 0) {
+      return DECADES;
+    }
+    int exponent = value.precision() - value.scale() - 1;
+    int decade = Math.max(MIN_EXPONENT, Math.min(MAX_EXPONENT, exponent)) - MIN_EXPONENT;
+    return value.signum() > 0 ? DECADES + 1 + decade : DECADES - 1 - decade;
+  }
+}
@@ -0,0 +1,197 @@
+package com.api.expeval.stats;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.HdrHistogram.Histogram;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import com.api.expeval.dto.ExpressionStatsResponse;
+import com.api.expeval.exception.ExpressionValidationException;
+
+/**
+ * Evaluation statistics kept in fixed-size structures: one window per minute in a ring of
+ * {@code expeval.stats.window-minutes}, each with a latency histogram, heavy-hitter sketches for
+ * expressions and error messages and a distinct-expression counter, plus one result histogram that
+ * decays with {@code expeval.stats.result-half-life}. Memory does not grow with traffic, and a
+ * snapshot merges a bounded number of windows regardless of how many evaluations they saw.
+ */
+@Component
+public class EvaluationStats {
+  private static final long MAX_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(1);
+  private static final int SKETCH_DEPTH = 4;
+  private static final int SKETCH_WIDTH = 1024;
+  private static final int HLL_PRECISION = 12;
+
+  private final Clock clock;
+  private final Window[] windows;
+  private final DecayingHistogram results;
+
+  @Autowired
+  public EvaluationStats(@Value("${expeval.stats.window-minutes:60}") int windowMinutes,
+                         @Value("${expeval.stats.top-k:10}") int topK,
+                         @Value("${expeval.stats.result-half-life:10m}") Duration resultHalfLife) {
+    this(windowMinutes, topK, resultHalfLife, Clock.systemUTC());
+  }
+
+  EvaluationStats(int windowMinutes, int topK, Duration resultHalfLife, Clock clock) {
+    this.clock = clock;
+    this.windows = new Window[windowMinutes];
+    for (int i = 0; i < windowMinutes; i++) {
+      windows[i] = new Window(topK);
+    }
+    this.results = new DecayingHistogram(resultHalfLife.toMillis(), clock.millis());
+  }
+
+  /**
+   * @param expression   canonical text, or the raw text when the expression failed validation or the
+   *                     canonical form is not used (no result cache)
+   * @param result       {@code null} when the evaluation failed
+   * @param errorMessage {@code null} when the evaluation succeeded
+   */
+  public void record(String expression, BigDecimal result, String errorMessage, long latencyNanos) {
+    long nowMillis = clock.millis();
+    long minute = TimeUnit.MILLISECONDS.toMinutes(nowMillis);
+    Window window = windows[(int) (minute % windows.length)];
+    long expressionHash = Hashing.hash(expression);
+    synchronized (window) {
+      if (window.minute != minute) {
+        window.reset(minute);
+      }
+      window.evaluations++;
+      window.latency.recordValue(Math.min(MAX_LATENCY_MICROS, TimeUnit.NANOSECONDS.toMicros(latencyNanos)));
+      window.expressions.add(expression, expressionHash);
+      window.distinct.add(expressionHash);
+      if (errorMessage != null) {
+        window.errors++;
+        window.errorMessages.add(errorMessage, Hashing.hash(errorMessage));
+      }
+    }
+    if (result != null) {
+      synchronized (results) {
+        results.add(result, nowMillis);
+      }
+    }
+  }
+
+  /**
+   * Merges the windows of the last {@code minutes} minutes, including the current one.
+   */
+  public ExpressionStatsResponse snapshot(int minutes) {
+    if (minutes < 1 || minutes > windows.length) {
+      throw new ExpressionValidationException("Minutes must be between 1 and " + windows.length + ".");
+    }
+    long nowMillis = clock.millis();
+    long currentMinute = TimeUnit.MILLISECONDS.toMinutes(nowMillis);
+    Window merged = new Window(windows[0].expressions.emptyCopy(), windows[0].errorMessages.emptyCopy());
+    List<ExpressionStatsResponse.Minute> perMinute = new ArrayList<>(minutes);
+    for (long minute = currentMinute - minutes + 1; minute <= currentMinute; minute++) {
+      Window window = windows[(int) (minute % windows.length)];
+      long evaluations = 0;
+      long errors = 0;
+      synchronized (window) {
+        if (window.minute == minute) {
+          evaluations = window.evaluations;
+          errors = window.errors;
+          merged.merge(window);
+        }
+      }
+      perMinute.add(ExpressionStatsResponse.Minute.builder()
+          .minute(Instant.ofEpochSecond(TimeUnit.MINUTES.toSeconds(minute)))
+          .evaluations(evaluations)
+          .errors(errors)
+          .build());
+    }
+    double[] weights;
+    synchronized (results) {
+      weights = results.weights(nowMillis);
+    }
+    List<ExpressionStatsResponse.ResultBucket> distribution = new ArrayList<>();
+    for (int bucket = 0; bucket < weights.length; bucket++) {
+      if (weights[bucket] > 0) {
+        distribution.add(ExpressionStatsResponse.ResultBucket.builder()
+            .lowerBound(DecayingHistogram.lowerBound(bucket))
+            .upperBound(DecayingHistogram.upperBound(bucket))
+            .weight(weights[bucket])
+            .build());
+      }
+    }
+    Histogram latency = merged.latency;
+    return ExpressionStatsResponse.builder()
+        .from(Instant.ofEpochSecond(TimeUnit.MINUTES.toSeconds(currentMinute - minutes + 1)))
+        .to(Instant.ofEpochMilli(nowMillis))
+        .evaluations(merged.evaluations)
+        .errors(merged.errors)
+        .errorRate(merged.evaluations == 0 ? 0 : (double) merged.errors / merged.evaluations)
+        .distinctExpressions(merged.distinct.estimate())
+        .latencyMicros(ExpressionStatsResponse.Latency.builder()
+            .p50(latency.getValueAtPercentile(50))
+            .p90(latency.getValueAtPercentile(90))
+            .p99(latency.getValueAtPercentile(99))
+            .p999(latency.getValueAtPercentile(99.9))
+            .max(latency.getMaxValue())
+            .mean(latency.getTotalCount() == 0 ? 0 : latency.getMean())
+            .build())
+        .topExpressions(frequencies(merged.expressions))
+        .topErrors(frequencies(merged.errorMessages))
+        .perMinute(perMinute)
+        .resultDistribution(distribution)
+        .build();
+  }
+
+  private static List<ExpressionStatsResponse.Frequency> frequencies(FrequentItems items) {
+    List<ExpressionStatsResponse.Frequency> frequencies = new ArrayList<>();
+    for (Map.Entry<String, Long> entry : items.top()) {
+      frequencies.add(ExpressionStatsResponse.Frequency.builder()
+          .value(entry.getKey())
+          .count(entry.getValue())
+          .build());
+    }
+    return frequencies;
+  }
+
+  private static final class Window {
+    private final Histogram latency = new Histogram(MAX_LATENCY_MICROS, 2);
+    private final FrequentItems expressions;
+    private final FrequentItems errorMessages;
+    private final HyperLogLog distinct = new HyperLogLog(HLL_PRECISION);
+    private long minute = -1;
+    private long evaluations;
+    private long errors;
+
+    private Window(int topK) {
+      this(new FrequentItems(topK, new CountMinSketch(SKETCH_DEPTH, SKETCH_WIDTH)),
+          new FrequentItems(topK, new CountMinSketch(SKETCH_DEPTH, SKETCH_WIDTH)));
+    }
+
+    private Window(FrequentItems expressions, FrequentItems errorMessages) {
+      this.expressions = expressions;
+      this.errorMessages = errorMessages;
+    }
+
+    private void reset(long minute) {
+      this.minute = minute;
+      evaluations = 0;
+      errors = 0;
+      latency.reset();
+      expressions.clear();
+      errorMessages.clear();
+      distinct.clear();
+    }
+
+    private void merge(Window other) {
+      evaluations += other.evaluations;
+      errors += other.errors;
+      latency.add(other.latency);
+      expressions.merge(other.expressions);
+      errorMessages.merge(other.errorMessages);
+      distinct.merge(other.distinct);
+    }
+  }
+}
@@ -0,0 +1,68 @@
+package com.api.expeval.stats;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Top-K heavy hitters: a {@link CountMinSketch} counts every item and a bounded candidate set keeps
+ * the {@code capacity} items with the highest estimates seen so far. Not thread-safe.
+ */
+public class FrequentItems {
+  private final int capacity;
+  private final CountMinSketch sketch;
+  private final Map<String, Long> candidates = new HashMap<>();
+
+  public FrequentItems(int capacity, CountMinSketch sketch) {
+    this.capacity = capacity;
+    this.sketch = sketch;
+  }
+
+  public void add(String item, long hash) {
+    long estimate = sketch.add(hash);
+    if (candidates.containsKey(item) || candidates.size() < capacity) {
+      candidates.put(item, hash);
+      return;
+    }
+    String weakest = null;
+    long weakestEstimate = Long.MAX_VALUE;
+    for (Map.Entry<String, Long> candidate : candidates.entrySet()) {
+      long candidateEstimate = sketch.estimate(candidate.getValue());
+      if (candidateEstimate < weakestEstimate) {
+        weakest = candidate.getKey();
+        weakestEstimate = candidateEstimate;
+      }
+    }
+    if (estimate > weakestEstimate) {
+      candidates.remove(weakest);
+      candidates.put(item, hash);
+    }
+  }
+
+  public void merge(FrequentItems other) {
+    sketch.merge(other.sketch);
+    candidates.putAll(other.candidates);
+  }
+
+  /**
+   * Candidates ordered by estimated count, at most {@code capacity} of them.
+   */
+  public List<Map.Entry<String, Long>> top() {
+    List<Map.Entry<String, Long>> top = new ArrayList<>(candidates.size());
+    candidates.forEach((item, hash) -> top.add(Map.entry(item, sketch.estimate(hash))));
+    top.sort(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder())
+        .thenComparing(Map.Entry.comparingByKey()));
+    return top.size() > capacity ? top.subList(0, capacity) : top;
+  }
+
+  public void clear() {
+    sketch.clear();
+    candidates.clear();
+  }
+
+  public FrequentItems emptyCopy() {
+    return new FrequentItems(capacity, sketch.emptyCopy());
+  }
+}
@@ -0,0 +1,25 @@
+package com.api.expeval.stats;
+
+import com.api.expeval.util.ExpressionCanonicalizer;
+
+final class Hashing {
+
+  private Hashing() {
+  }
+
+  static long hash(String value) {
+    return ExpressionCanonicalizer.hash(value);
+  }
+
+  /**
+   * MurmurHash3 finalizer; spreads FNV-1a hashes, whose low bits are weak for short inputs.
+   */
+  static long mix(long hash) {
+    hash ^= hash >>> 33;
+    hash *= 0xff51afd7ed558ccdL;
+    hash ^= hash >>> 33;
+    hash *= 0xc4ceb9fe1a85ec53L;
+    hash ^= hash >>> 33;
+    return hash;
+  }
+}
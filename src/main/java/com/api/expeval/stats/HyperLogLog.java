@@ -0,0 +1,63 @@
+package com.api.expeval.stats;
+
+import java.util.Arrays;
+
+/**
+ * HyperLogLog distinct counter over 64-bit hashes with {@code 2^precision} one-byte registers
+ * (standard error about {@code 1.04 / sqrt(2^precision)}). Not thread-safe.
+ */
+public class HyperLogLog {
+  private final int precision;
+  private final byte[] registers;
+
+  public HyperLogLog(int precision) {
+    if (precision < 4 || precision > 18) {
+      throw new IllegalArgumentException("Precision must be between 4 and 18.");
+    }
+    this.precision = precision;
+    this.registers = new byte[1 << precision];
+  }
+
+  public void add(long hash) {
+    long mixed = Hashing.mix(hash);
+    int index = (int) (mixed >>> (64 - precision));
+    int rank = Long.numberOfLeadingZeros((mixed << precision) | (1L << (precision - 1))) + 1;
+    if (rank > registers[index]) {
+      registers[index] = (byte) rank;
+    }
+  }
+
+  public long estimate() {
+    int m = registers.length;
+    double sum = 0;
+    int zeros = 0;
+    for (byte register : registers) {
+      sum += 1.0 / (1L << register);
+      if (register == 0) {
+        zeros++;
+      }
+    }
+    double alpha = 0.7213 / (1 + 1.079 / m);
+    double estimate = alpha * m * m / sum;
+    if (estimate <= 2.5 * m && zeros > 0) {
+      estimate = m * Math.log((double) m / zeros);
+    }
+    return Math.round(estimate);
+  }
+
+  public void merge(HyperLogLog other) {
+    for (int i = 0; i < registers.length; i++) {
+      if (other.registers[i] > registers[i]) {
+        registers[i] = other.registers[i];
+      }
+    }
+  }
+
+  public void clear() {
+    Arrays.fill(registers, (byte) 0);
+  }
+
+  public HyperLogLog emptyCopy() {
+    return new HyperLogLog(precision);
+  }
+}
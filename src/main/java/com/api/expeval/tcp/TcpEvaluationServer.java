@@ -0,0 +1,220 @@
+package com.api.expeval.tcp;
+
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.WriteBufferWaterMark;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
+import io.netty.handler.codec.LengthFieldPrepender;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import com.api.expeval.dto.ExpressionResponse;
+import com.api.expeval.exception.ExpressionEvaluationException;
+import com.api.expeval.exception.ExpressionValidationException;
+import com.api.expeval.exception.ServiceOverloadedException;
+import com.api.expeval.model.PrecisionProfile;
+import com.api.expeval.service.ExpressionService;
+
+/**
+ * Netty listener for the {@link TcpProtocol}, next to the servlet container. Frames are decoded on
+ * the event loop and evaluated on a bounded worker pool through the same {@link ExpressionService}
+ * path as REST requests. A connection stops being read while it has
+ * {@code expeval.tcp.max-in-flight} requests outstanding or its outbound buffer is above the high
+ * watermark, so a fast client is slowed down by TCP flow control instead of queueing unbounded work.
+ */
+@Component
+@ConditionalOnProperty(name = "expeval.tcp.enabled", havingValue = "true")
+public class TcpEvaluationServer implements SmartLifecycle {
+  private static final Logger log = LoggerFactory.getLogger(TcpEvaluationServer.class);
+  private static final int MAX_EXPRESSION_LENGTH = 1000;
+
+  private final ExpressionService service;
+  private final int port;
+  private final int ioThreads;
+  private final int maxInFlight;
+  private final ThreadPoolExecutor workers;
+  private EventLoopGroup bossGroup;
+  private EventLoopGroup workerGroup;
+  private volatile Channel serverChannel;
+
+  public TcpEvaluationServer(ExpressionService service,
+                             @Value("${expeval.tcp.port:7070}") int port,
+                             @Value("${expeval.tcp.io-threads:0}") int ioThreads,
+                             @Value("${expeval.tcp.worker-threads:16}") int workerThreads,
+                             @Value("${expeval.tcp.queue-capacity:1024}") int queueCapacity,
+                             @Value("${expeval.tcp.max-in-flight:128}") int maxInFlight) {
+    this.service = service;
+    this.port = port;
+    this.ioThreads = ioThreads;
+    this.maxInFlight = maxInFlight;
+    AtomicInteger threadCount = new AtomicInteger();
+    this.workers = new ThreadPoolExecutor(workerThreads, workerThreads, 0, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(queueCapacity),
+        runnable -> new Thread(runnable, "tcp-eval-" + threadCount.incrementAndGet()));
+  }
+
+  @Override
+  public void start() {
+    bossGroup = new NioEventLoopGroup(1);
+    workerGroup = new NioEventLoopGroup(ioThreads);
+    ServerBootstrap bootstrap = new ServerBootstrap()
+        .group(bossGroup, workerGroup)
+        .channel(NioServerSocketChannel.class)
+        .childOption(ChannelOption.TCP_NODELAY, true)
+        .childOption(ChannelOption.WRITE_BUFFER_WATER_MARK, new WriteBufferWaterMark(32 * 1024, 256 * 1024))
+        .childHandler(new ChannelInitializer<SocketChannel>() {
+          @Override
+          protected void initChannel(SocketChannel channel) {
+            channel.pipeline()
+                .addLast(new LengthFieldBasedFrameDecoder(TcpProtocol.MAX_FRAME_BYTES, 0, TcpProtocol.LENGTH_BYTES,
+                    0, TcpProtocol.LENGTH_BYTES))
+                .addLast(new LengthFieldPrepender(TcpProtocol.LENGTH_BYTES))
+                .addLast(new RequestHandler());
+          }
+        });
+    serverChannel = bootstrap.bind(port).syncUninterruptibly().channel();
+    log.info("TCP evaluation listener started on port {}", localPort());
+  }
+
+  @Override
+  public void stop() {
+    if (serverChannel != null) {
+      serverChannel.close().syncUninterruptibly();
+      serverChannel = null;
+    }
+    workers.shutdown();
+    try {
+      workers.awaitTermination(5, TimeUnit.SECONDS);
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+    bossGroup.shutdownGracefully(0, 5, TimeUnit.SECONDS).syncUninterruptibly();
+    workerGroup.shutdownGracefully(0, 5, TimeUnit.SECONDS).syncUninterruptibly();
+  }
+
+  @Override
+  public boolean isRunning() {
+    return serverChannel != null;
+  }
+
+  public int localPort() {
+    return ((InetSocketAddress) serverChannel.localAddress()).getPort();
+  }
+
+  private final class RequestHandler extends SimpleChannelInboundHandler<ByteBuf> {
+    private int inFlight;
+
+    @Override
+    protected void channelRead0(ChannelHandlerContext ctx, ByteBuf frame) {
+      ByteBuffer request = frame.nioBuffer();
+      long correlationId;
+      PrecisionProfile precision;
+      String expression;
+      try {
+        correlationId = request.getLong();
+        precision = TcpProtocol.decodePrecision(request.get());
+        expression = TcpProtocol.getString(request);
+      } catch (RuntimeException ex) {
+        log.warn("Closing TCP connection {} after malformed frame", ctx.channel().remoteAddress());
+        ctx.close();
+        return;
+      }
+      if (expression.isBlank()) {
+        ctx.writeAndFlush(error(correlationId, TcpProtocol.STATUS_INVALID, "Expression is required."));
+        return;
+      }
+      if (expression.length() > MAX_EXPRESSION_LENGTH) {
+        ctx.writeAndFlush(error(correlationId, TcpProtocol.STATUS_INVALID, "Expression is too long."));
+        return;
+      }
+      try {
+        workers.execute(() -> {
+          ByteBuf response = evaluate(correlationId, expression, precision);
+          ctx.executor().execute(() -> complete(ctx, response));
+        });
+      } catch (RejectedExecutionException ex) {
+        ctx.writeAndFlush(error(correlationId, TcpProtocol.STATUS_OVERLOADED, "Server is overloaded."));
+        return;
+      }
+      if (++inFlight >= maxInFlight) {
+        ctx.channel().config().setAutoRead(false);
+      }
+    }
+
+    @Override
+    public void channelWritabilityChanged(ChannelHandlerContext ctx) {
+      updateAutoRead(ctx);
+      ctx.fireChannelWritabilityChanged();
+    }
+
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+      log.warn("TCP connection {} failed", ctx.channel().remoteAddress(), cause);
+      ctx.close();
+    }
+
+    private void complete(ChannelHandlerContext ctx, ByteBuf response) {
+      inFlight--;
+      if (ctx.channel().isActive()) {
+        ctx.writeAndFlush(response);
+      } else {
+        response.release();
+      }
+      updateAutoRead(ctx);
+    }
+
+    private void updateAutoRead(ChannelHandlerContext ctx) {
+      ctx.channel().config().setAutoRead(inFlight < maxInFlight && ctx.channel().isWritable());
+    }
+  }
+
+  private ByteBuf evaluate(long correlationId, String expression, PrecisionProfile precision) {
+    try {
+      ExpressionResponse response = service.evaluate(expression, precision);
+      ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES + 1 + Integer.BYTES + Short.BYTES
+          + response.getResult().unscaledValue().bitLength() / 8 + 1);
+      buffer.putLong(correlationId);
+      buffer.put(TcpProtocol.STATUS_OK);
+      TcpProtocol.putDecimal(buffer, response.getResult());
+      return Unpooled.wrappedBuffer(buffer.flip());
+    } catch (ExpressionValidationException ex) {
+      return error(correlationId, TcpProtocol.STATUS_INVALID, ex.getMessage());
+    } catch (ExpressionEvaluationException ex) {
+      return error(correlationId, TcpProtocol.STATUS_EVALUATION_ERROR, ex.getMessage());
+    } catch (ServiceOverloadedException ex) {
+      return error(correlationId, TcpProtocol.STATUS_OVERLOADED, ex.getMessage());
+    } catch (RuntimeException ex) {
+      log.error("Unhandled error", ex);
+      return error(correlationId, TcpProtocol.STATUS_SERVER_ERROR, ex.getMessage());
+    }
+  }
+
+  private static ByteBuf error(long correlationId, byte status, String message) {
+    String text = message == null ? "" : message;
+    ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES + 1 + Short.BYTES + text.length() * 3);
+    buffer.putLong(correlationId);
+    buffer.put(status);
+    TcpProtocol.putString(buffer, text);
+    return Unpooled.wrappedBuffer(buffer.flip());
+  }
+}
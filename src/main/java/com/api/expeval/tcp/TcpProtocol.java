@@ -0,0 +1,81 @@
+package com.api.expeval.tcp;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import com.api.expeval.model.PrecisionProfile;
+
+/**
+ * Wire format of the TCP evaluation protocol. Every frame is an {@code int} length followed by that
+ * many bytes; requests and responses carry a caller-chosen correlation id, and responses may arrive
+ * in any order.
+ * <pre>
+ * request:  long correlationId, byte precision (0 = default, else ordinal + 1),
+ *           ushort length, UTF-8 expression
+ * response: long correlationId, byte status,
+ *           OK:        int scale, ushort length, unscaled value bytes (two's complement)
+ *           otherwise: ushort length, UTF-8 error message
+ * </pre>
+ */
+public final class TcpProtocol {
+  public static final int LENGTH_BYTES = 4;
+  public static final int MAX_FRAME_BYTES = 64 * 1024;
+
+  public static final byte STATUS_OK = 0;
+  public static final byte STATUS_INVALID = 1;
+  public static final byte STATUS_EVALUATION_ERROR = 2;
+  public static final byte STATUS_OVERLOADED = 3;
+  public static final byte STATUS_SERVER_ERROR = 4;
+
+  private static final PrecisionProfile[] PROFILES = PrecisionProfile.values();
+
+  private TcpProtocol() {
+  }
+
+  public static byte encodePrecision(PrecisionProfile precision) {
+    return precision == null ? 0 : (byte) (precision.ordinal() + 1);
+  }
+
+  /**
+   * @throws IllegalArgumentException for an unknown precision code
+   */
+  public static PrecisionProfile decodePrecision(byte code) {
+    if (code == 0) {
+      return null;
+    }
+    if (code < 0 || code > PROFILES.length) {
+      throw new IllegalArgumentException("Unknown precision " + code + ".");
+    }
+    return PROFILES[code - 1];
+  }
+
+  public static void putString(ByteBuffer target, String value) {
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    if (bytes.length > 0xFFFF) {
+      throw new IllegalArgumentException("String exceeds " + 0xFFFF + " bytes.");
+    }
+    target.putShort((short) bytes.length);
+    target.put(bytes);
+  }
+
+  public static String getString(ByteBuffer source) {
+    byte[] bytes = new byte[source.getShort() & 0xFFFF];
+    source.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  public static void putDecimal(ByteBuffer target, BigDecimal value) {
+    byte[] unscaled = value.unscaledValue().toByteArray();
+    target.putInt(value.scale());
+    target.putShort((short) unscaled.length);
+    target.put(unscaled);
+  }
+
+  public static BigDecimal getDecimal(ByteBuffer source) {
+    int scale = source.getInt();
+    byte[] unscaled = new byte[source.getShort() & 0xFFFF];
+    source.get(unscaled);
+    return new BigDecimal(new BigInteger(unscaled), scale);
+  }
+}
@@ -0,0 +1,130 @@
+package com.api.expeval.tcp.client;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import com.api.expeval.model.PrecisionProfile;
+import com.api.expeval.tcp.TcpProtocol;
+
+/**
+ * Client for the TCP evaluation listener. One instance holds one persistent connection; calls are
+ * pipelined and matched to responses by correlation id, with at most {@code maxInFlight} requests
+ * outstanding. Thread-safe.
+ */
+public class ExpressionTcpClient implements AutoCloseable {
+  private final Socket socket;
+  private final DataOutputStream out;
+  private final DataInputStream in;
+  private final Semaphore permits;
+  private final Map<Long, CompletableFuture<BigDecimal>> pending = new ConcurrentHashMap<>();
+  private final AtomicLong correlationIds = new AtomicLong();
+  private final Thread reader;
+  private volatile IOException failure;
+
+  public ExpressionTcpClient(String host, int port, int maxInFlight) throws IOException {
+    this.socket = new Socket();
+    socket.setTcpNoDelay(true);
+    socket.connect(new InetSocketAddress(host, port));
+    this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+    this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+    this.permits = new Semaphore(maxInFlight);
+    this.reader = new Thread(this::readLoop, "expeval-tcp-client-reader");
+    this.reader.setDaemon(true);
+    this.reader.start();
+  }
+
+  public BigDecimal evaluate(String expression) {
+    try {
+      return evaluateAsync(expression, null).join();
+    } catch (CompletionException ex) {
+      if (ex.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      throw ex;
+    }
+  }
+
+  /**
+   * Sends a request without waiting for earlier ones; blocks only while {@code maxInFlight}
+   * requests are outstanding. The future fails with {@link ExpressionTcpException} when the server
+   * reports an error.
+   *
+   * @throws IllegalArgumentException when the expression does not fit in a frame
+   */
+  public CompletableFuture<BigDecimal> evaluateAsync(String expression, PrecisionProfile precision) {
+    // encoded before taking a permit, so an oversized expression leaves nothing pending
+    ByteBuffer frame = ByteBuffer.allocate(Long.BYTES + 1 + Short.BYTES + expression.length() * 3);
+    frame.putLong(0);
+    frame.put(TcpProtocol.encodePrecision(precision));
+    TcpProtocol.putString(frame, expression);
+    if (frame.position() > TcpProtocol.MAX_FRAME_BYTES) {
+      throw new IllegalArgumentException("Request exceeds " + TcpProtocol.MAX_FRAME_BYTES + " bytes.");
+    }
+    permits.acquireUninterruptibly();
+    long correlationId = correlationIds.incrementAndGet();
+    frame.putLong(0, correlationId);
+    CompletableFuture<BigDecimal> future = new CompletableFuture<>();
+    future.whenComplete((result, ex) -> permits.release());
+    pending.put(correlationId, future);
+    try {
+      synchronized (out) {
+        if (failure != null) {
+          throw failure;
+        }
+        out.writeInt(frame.position());
+        out.write(frame.array(), 0, frame.position());
+        out.flush();
+      }
+    } catch (IOException ex) {
+      pending.remove(correlationId);
+      future.completeExceptionally(ex);
+    }
+    return future;
+  }
+
+  @Override
+  public void close() throws IOException {
+    socket.close();
+    try {
+      reader.join();
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void readLoop() {
+    try {
+      while (true) {
+        byte[] frame = new byte[in.readInt()];
+        in.readFully(frame);
+        ByteBuffer response = ByteBuffer.wrap(frame);
+        CompletableFuture<BigDecimal> future = pending.remove(response.getLong());
+        if (future == null) {
+          continue;
+        }
+        byte status = response.get();
+        if (status == TcpProtocol.STATUS_OK) {
+          future.complete(TcpProtocol.getDecimal(response));
+        } else {
+          future.completeExceptionally(new ExpressionTcpException(status, TcpProtocol.getString(response)));
+        }
+      }
+    } catch (IOException ex) {
+      failure = ex;
+      pending.values().forEach(future -> future.completeExceptionally(ex));
+      pending.clear();
+    }
+  }
+}
@@ -0,0 +1,18 @@
+package com.api.expeval.tcp.client;
+
+/**
+ * Error reported by the server for one request; {@link #getStatus()} is one of the
+ * {@code TcpProtocol.STATUS_*} codes.
+ */
+public class ExpressionTcpException extends RuntimeException {
+  private final byte status;
+
+  public ExpressionTcpException(byte status, String message) {
+    super(message);
+    this.status = status;
+  }
+
+  public byte getStatus() {
+    return status;
+  }
+}
@@ -0,0 +1,367 @@
+package com.api.expeval.util;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
+import com.api.expeval.exception.ExpressionEvaluationException;
+import com.api.expeval.model.PrecisionProfile;
+
+/**
+ * Elementary functions on {@link BigDecimal} evaluated at a caller supplied {@link MathContext}.
+ * Contexts of at most {@value #DOUBLE_PRECISION} digits take a {@code double} fast path, so the last
+ * digit may differ by one unit there. Constants (ln 2, ln 10, pi) are cached at the few working
+ * precisions the {@link PrecisionProfile}s need; other precisions are served by rounding the next
+ * larger cached value, or computed without caching. {@code sin} and {@code cos} reject arguments
+ * above {@code 10^precision}, whose range reduction would need pi to as many digits.
+ */
+public final class BigDecimalMath {
+  static final int DOUBLE_PRECISION = 16;
+
+  private static final int GUARD_DIGITS = 10;
+  private static final int EXP_HALVINGS = 8;
+  private static final int DOUBLE_SEED_DIGITS = 15;
+  private static final BigDecimal TWO = BigDecimal.valueOf(2);
+  private static final BigDecimal HALF = new BigDecimal("0.5");
+  private static final BigDecimal EXP_HALVING_DIVISOR = TWO.pow(EXP_HALVINGS);
+  // ln(Double.MAX_VALUE): keeps results inside the range the previous double based power accepted.
+  private static final BigDecimal MAX_EXP_ARGUMENT = new BigDecimal("709.782712893384");
+  private static final BigDecimal LN_SERIES_RANGE = HALF;
+
+  // working precisions: exp/ln/pow (up to 3 extra digits) and trig with a 10^precision argument
+  private static final int[] CACHED_PRECISIONS = Arrays.stream(PrecisionProfile.values())
+      .mapToInt(profile -> profile.getMathContext().getPrecision())
+      .flatMap(precision -> IntStream.of(precision + GUARD_DIGITS + 3, 2 * precision + GUARD_DIGITS + 1))
+      .sorted()
+      .distinct()
+      .toArray();
+  private static final Map<Integer, BigDecimal> LN2_CACHE = new ConcurrentHashMap<>();
+  private static final Map<Integer, BigDecimal> LN10_CACHE = new ConcurrentHashMap<>();
+  private static final Map<Integer, BigDecimal> PI_CACHE = new ConcurrentHashMap<>();
+
+  private BigDecimalMath() {
+  }
+
+  public static BigDecimal sqrt(BigDecimal x, MathContext mc) {
+    if (x.signum() < 0) {
+      throw new ExpressionEvaluationException("Square root of a negative number.");
+    }
+    if (useDouble(mc, x)) {
+      return fromDouble(Math.sqrt(x.doubleValue()), mc, "Square root");
+    }
+    return x.sqrt(mc);
+  }
+
+  public static BigDecimal exp(BigDecimal x, MathContext mc) {
+    if (x.compareTo(MAX_EXP_ARGUMENT) > 0) {
+      throw new ExpressionEvaluationException("Exponential overflow.");
+    }
+    if (x.compareTo(MAX_EXP_ARGUMENT.negate()) < 0) {
+      return BigDecimal.ZERO;
+    }
+    if (x.signum() == 0) {
+      return BigDecimal.ONE;
+    }
+    if (useDouble(mc, x)) {
+      return fromDouble(Math.exp(x.doubleValue()), mc, "Exponential");
+    }
+    return expWork(x, working(mc, 0)).round(mc);
+  }
+
+  public static BigDecimal ln(BigDecimal x, MathContext mc) {
+    if (x.signum() <= 0) {
+      throw new ExpressionEvaluationException("Logarithm of a non-positive number.");
+    }
+    if (x.compareTo(BigDecimal.ONE) == 0) {
+      return BigDecimal.ZERO;
+    }
+    if (useDouble(mc, x)) {
+      return fromDouble(Math.log(x.doubleValue()), mc, "Logarithm");
+    }
+    return lnWork(x, working(mc, 0)).round(mc);
+  }
+
+  public static BigDecimal log10(BigDecimal x, MathContext mc) {
+    if (x.signum() <= 0) {
+      throw new ExpressionEvaluationException("Logarithm of a non-positive number.");
+    }
+    BigDecimal stripped = x.stripTrailingZeros();
+    if (stripped.unscaledValue().equals(BigInteger.ONE)) {
+      return BigDecimal.valueOf(-stripped.scale());
+    }
+    if (useDouble(mc, x)) {
+      return fromDouble(Math.log10(x.doubleValue()), mc, "Logarithm");
+    }
+    MathContext work = working(mc, 0);
+    return lnWork(x, work).divide(ln10(work), work).round(mc);
+  }
+
+  public static BigDecimal sin(BigDecimal x, MathContext mc) {
+    checkTrigArgument(x, mc, "Sine");
+    if (useDouble(mc, x)) {
+      return fromDouble(Math.sin(x.doubleValue()), mc, "Sine");
+    }
+    return trig(x, mc, false);
+  }
+
+  public static BigDecimal cos(BigDecimal x, MathContext mc) {
+    checkTrigArgument(x, mc, "Cosine");
+    if (useDouble(mc, x)) {
+      return fromDouble(Math.cos(x.doubleValue()), mc, "Cosine");
+    }
+    return trig(x, mc, true);
+  }
+
+  public static BigDecimal min(List<BigDecimal> values, MathContext mc) {
+    BigDecimal min = values.get(0);
+    for (BigDecimal value : values) {
+      min = value.compareTo(min) < 0 ? value : min;
+    }
+    return min.round(mc);
+  }
+
+  public static BigDecimal max(List<BigDecimal> values, MathContext mc) {
+    BigDecimal max = values.get(0);
+    for (BigDecimal value : values) {
+      max = value.compareTo(max) > 0 ? value : max;
+    }
+    return max.round(mc);
+  }
+
+  public static BigDecimal pow(BigDecimal base, BigDecimal exponent, MathContext mc) {
+    if (exponent.stripTrailingZeros().scale() <= 0) {
+      try {
+        return base.pow(exponent.intValueExact(), mc);
+      } catch (ArithmeticException ex) {
+        throw new ExpressionEvaluationException("Error in power operation: " + ex.getMessage());
+      }
+    }
+    if (base.signum() < 0 || (base.signum() == 0 && exponent.signum() < 0)) {
+      throw new ExpressionEvaluationException("Power operation resulted in an invalid number.");
+    }
+    if (base.signum() == 0) {
+      return BigDecimal.ZERO;
+    }
+    if (exponent.compareTo(HALF) == 0) {
+      return sqrt(base, mc);
+    }
+    if (useDouble(mc, base) && useDouble(mc, exponent)) {
+      return fromDouble(Math.pow(base.doubleValue(), exponent.doubleValue()), mc, "Power operation");
+    }
+    // exp amplifies the absolute error of its argument (at most ~709) into relative error
+    MathContext work = working(mc, 3);
+    BigDecimal z = exponent.multiply(lnWork(base, work), work);
+    if (z.compareTo(MAX_EXP_ARGUMENT) > 0) {
+      throw new ExpressionEvaluationException("Power operation resulted in an invalid number.");
+    }
+    if (z.compareTo(MAX_EXP_ARGUMENT.negate()) < 0) {
+      return BigDecimal.ZERO;
+    }
+    return expWork(z, work).round(mc);
+  }
+
+  public static BigDecimal pi(MathContext mc) {
+    return constant(PI_CACHE, mc, precision -> {
+      // Machin: pi = 16 * atan(1/5) - 4 * atan(1/239)
+      MathContext work = new MathContext(precision + GUARD_DIGITS, RoundingMode.HALF_EVEN);
+      BigDecimal pi = BigDecimal.valueOf(16).multiply(atanInverse(5, work), work)
+          .subtract(BigDecimal.valueOf(4).multiply(atanInverse(239, work), work), work);
+      return pi.round(new MathContext(precision, RoundingMode.HALF_EVEN));
+    }).round(mc);
+  }
+
+  static BigDecimal ln2(MathContext mc) {
+    return constant(LN2_CACHE, mc, precision -> {
+      // ln 2 = 2 * atanh(1/3)
+      MathContext work = new MathContext(precision + GUARD_DIGITS, RoundingMode.HALF_EVEN);
+      BigDecimal third = BigDecimal.ONE.divide(BigDecimal.valueOf(3), work);
+      return TWO.multiply(atanhSeries(third, work), work)
+          .round(new MathContext(precision, RoundingMode.HALF_EVEN));
+    }).round(mc);
+  }
+
+  static BigDecimal ln10(MathContext mc) {
+    return constant(LN10_CACHE, mc, precision -> {
+      // ln 10 = 3 * ln 2 + ln(5/4) = 3 * ln 2 + 2 * atanh(1/9)
+      MathContext work = new MathContext(precision + GUARD_DIGITS, RoundingMode.HALF_EVEN);
+      BigDecimal ninth = BigDecimal.ONE.divide(BigDecimal.valueOf(9), work);
+      return BigDecimal.valueOf(3).multiply(ln2(work), work)
+          .add(TWO.multiply(atanhSeries(ninth, work), work), work)
+          .round(new MathContext(precision, RoundingMode.HALF_EVEN));
+    }).round(mc);
+  }
+
+  private static BigDecimal constant(Map<Integer, BigDecimal> cache, MathContext mc,
+      IntFunction<BigDecimal> compute) {
+    for (int precision : CACHED_PRECISIONS) {
+      if (precision >= mc.getPrecision()) {
+        return cache.computeIfAbsent(precision, compute::apply).round(mc);
+      }
+    }
+    return compute.apply(mc.getPrecision()).round(mc);
+  }
+
+  // x = k * ln2 + r, then exp(r) = exp(r / 2^h)^(2^h); mc already includes guard digits
+  private static BigDecimal expWork(BigDecimal x, MathContext mc) {
+    BigDecimal ln2 = ln2(mc);
+    BigDecimal k = x.divide(ln2, 0, RoundingMode.HALF_EVEN);
+    BigDecimal r = x.subtract(ln2.multiply(k, mc), mc);
+    BigDecimal result = expSeries(r.divide(EXP_HALVING_DIVISOR, mc), mc);
+    for (int i = 0; i < EXP_HALVINGS; i++) {
+      result = result.multiply(result, mc);
+    }
+    int powerOfTwo = k.intValue();
+    if (powerOfTwo >= 0) {
+      return result.multiply(TWO.pow(powerOfTwo), mc);
+    }
+    return result.divide(TWO.pow(-powerOfTwo), mc);
+  }
+
+  // mc already includes guard digits
+  private static BigDecimal lnWork(BigDecimal x, MathContext mc) {
+    if (x.subtract(BigDecimal.ONE).abs().compareTo(LN_SERIES_RANGE) < 0) {
+      return lnSeries(x, mc);
+    }
+    // x = m * 10^e with m in [1, 10)
+    int exponent = x.precision() - x.scale() - 1;
+    BigDecimal lnM = lnNewton(x.movePointLeft(exponent), mc);
+    if (exponent == 0) {
+      return lnM;
+    }
+    return lnM.add(ln10(mc).multiply(BigDecimal.valueOf(exponent), mc), mc);
+  }
+
+  private static BigDecimal trig(BigDecimal x, MathContext mc, boolean cosine) {
+    int integerDigits = Math.max(0, x.precision() - x.scale());
+    MathContext work = working(mc, integerDigits);
+    BigDecimal halfPi = pi(work).divide(TWO, work);
+    BigDecimal quotient = x.divideToIntegralValue(halfPi, work);
+    BigDecimal r = x.subtract(quotient.multiply(halfPi, work), work);
+    int quadrant = quotient.toBigInteger().mod(BigInteger.valueOf(4)).intValue();
+    if (cosine) {
+      quadrant = (quadrant + 1) % 4;
+    }
+    BigDecimal result = switch (quadrant) {
+      case 0 -> sinSeries(r, work);
+      case 1 -> cosSeries(r, work);
+      case 2 -> sinSeries(r, work).negate();
+      default -> cosSeries(r, work).negate();
+    };
+    return result.round(mc);
+  }
+
+  private static BigDecimal expSeries(BigDecimal x, MathContext mc) {
+    BigDecimal epsilon = BigDecimal.ONE.movePointLeft(mc.getPrecision() + 1);
+    BigDecimal sum = BigDecimal.ONE;
+    BigDecimal term = BigDecimal.ONE;
+    for (int n = 1; term.abs().compareTo(epsilon) > 0; n++) {
+      term = term.multiply(x, mc).divide(BigDecimal.valueOf(n), mc);
+      sum = sum.add(term, mc);
+    }
+    return sum;
+  }
+
+  private static BigDecimal sinSeries(BigDecimal x, MathContext mc) {
+    return alternatingSeries(x, x, 2, mc);
+  }
+
+  private static BigDecimal cosSeries(BigDecimal x, MathContext mc) {
+    return alternatingSeries(BigDecimal.ONE, x, 1, mc);
+  }
+
+  // sum of (-1)^k * first * x^(2k) / ((n)(n+1)...(n+2k-1))
+  private static BigDecimal alternatingSeries(BigDecimal first, BigDecimal x, int n, MathContext mc) {
+    BigDecimal epsilon = BigDecimal.ONE.movePointLeft(mc.getPrecision() + 1);
+    BigDecimal square = x.multiply(x, mc);
+    BigDecimal sum = first;
+    BigDecimal term = first;
+    for (int k = n; term.signum() != 0 && term.abs().compareTo(epsilon) > 0; k += 2) {
+      term = term.multiply(square, mc)
+          .divide(BigDecimal.valueOf((long) k * (k + 1)), mc)
+          .negate();
+      sum = sum.add(term, mc);
+    }
+    return sum;
+  }
+
+  // atanh(z) = z + z^3/3 + z^5/5 + ...
+  private static BigDecimal atanhSeries(BigDecimal z, MathContext mc) {
+    BigDecimal epsilon = z.abs().movePointLeft(mc.getPrecision() + 1);
+    BigDecimal square = z.multiply(z, mc);
+    BigDecimal power = z;
+    BigDecimal sum = z;
+    for (int n = 3; ; n += 2) {
+      power = power.multiply(square, mc);
+      BigDecimal term = power.divide(BigDecimal.valueOf(n), mc);
+      if (term.abs().compareTo(epsilon) < 0) {
+        return sum;
+      }
+      sum = sum.add(term, mc);
+    }
+  }
+
+  // atan(1/n) = 1/n - 1/(3 n^3) + 1/(5 n^5) - ...
+  private static BigDecimal atanInverse(int n, MathContext mc) {
+    BigDecimal square = BigDecimal.valueOf((long) n * n);
+    BigDecimal power = BigDecimal.ONE.divide(BigDecimal.valueOf(n), mc);
+    BigDecimal epsilon = power.movePointLeft(mc.getPrecision() + 1);
+    BigDecimal sum = power;
+    boolean subtract = true;
+    for (int k = 3; ; k += 2) {
+      power = power.divide(square, mc);
+      BigDecimal term = power.divide(BigDecimal.valueOf(k), mc);
+      if (term.compareTo(epsilon) < 0) {
+        return sum;
+      }
+      sum = subtract ? sum.subtract(term, mc) : sum.add(term, mc);
+      subtract = !subtract;
+    }
+  }
+
+  // ln x = 2 * atanh((x - 1) / (x + 1)), keeps relative accuracy for x close to 1
+  private static BigDecimal lnSeries(BigDecimal x, MathContext mc) {
+    BigDecimal z = x.subtract(BigDecimal.ONE).divide(x.add(BigDecimal.ONE), mc);
+    return TWO.multiply(atanhSeries(z, mc), mc);
+  }
+
+  // Halley iteration y <- y + 2 (m - e^y) / (m + e^y) triples the correct digits of the double seed
+  private static BigDecimal lnNewton(BigDecimal m, MathContext mc) {
+    BigDecimal y = new BigDecimal(Math.log(m.doubleValue()));
+    for (int digits = DOUBLE_SEED_DIGITS; digits < mc.getPrecision(); digits *= 3) {
+      BigDecimal ey = expWork(y, mc);
+      y = y.add(TWO.multiply(m.subtract(ey, mc), mc).divide(m.add(ey, mc), mc), mc);
+    }
+    return y;
+  }
+
+  private static void checkTrigArgument(BigDecimal x, MathContext mc, String operation) {
+    if (x.abs().compareTo(BigDecimal.ONE.scaleByPowerOfTen(mc.getPrecision())) > 0) {
+      throw new ExpressionEvaluationException(operation + " argument is too large.");
+    }
+  }
+
+  private static MathContext working(MathContext mc, int extraDigits) {
+    return new MathContext(mc.getPrecision() + GUARD_DIGITS + extraDigits, RoundingMode.HALF_EVEN);
+  }
+
+  private static boolean useDouble(MathContext mc, BigDecimal x) {
+    if (mc.getPrecision() == 0 || mc.getPrecision() > DOUBLE_PRECISION) {
+      return false;
+    }
+    double value = x.doubleValue();
+    return !Double.isInfinite(value) && (value != 0 || x.signum() == 0);
+  }
+
+  private static BigDecimal fromDouble(double value, MathContext mc, String operation) {
+    if (Double.isInfinite(value) || Double.isNaN(value)) {
+      throw new ExpressionEvaluationException(operation + " resulted in an invalid number.");
+    }
+    return new BigDecimal(value, mc);
+  }
+}
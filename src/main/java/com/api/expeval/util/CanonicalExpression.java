@@ -0,0 +1,10 @@
+package com.api.expeval.util;
+
+import com.api.expeval.model.PrecisionProfile;
+
+public record CanonicalExpression(String text, PrecisionProfile precision, long hash) {
+
+  public String key() {
+    return precision.name() + ':' + text;
+  }
+}
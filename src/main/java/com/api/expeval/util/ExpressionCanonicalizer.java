@@ -0,0 +1,80 @@
+package com.api.expeval.util;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import com.api.expeval.model.PrecisionProfile;
+
+/**
+ * Produces a stable text form of an expression: no whitespace, only the parentheses the grammar
+ * needs, literals without trailing zeros and the two operands of every {@code +} and {@code *}
+ * (and the arguments of {@code min}/{@code max}) in a fixed order. Only single operations are
+ * reordered, never chains, so the canonical form evaluates to the same result under any rounding.
+ */
+public final class ExpressionCanonicalizer {
+  private static final int ATOMIC = Integer.MAX_VALUE;
+  private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+  private static final long FNV_PRIME = 0x100000001b3L;
+
+  private ExpressionCanonicalizer() {
+  }
+
+  public static CanonicalExpression canonicalize(String exp, PrecisionProfile profile) {
+    String text = ExpressionParser.parse(exp, new Printer(profile.getMathContext())).text();
+    return new CanonicalExpression(text, profile, hash(profile.name() + ':' + text));
+  }
+
+  // 64-bit FNV-1a
+  public static long hash(String key) {
+    long hash = FNV_OFFSET_BASIS;
+    for (int i = 0; i < key.length(); i++) {
+      hash ^= key.charAt(i);
+      hash *= FNV_PRIME;
+    }
+    return hash;
+  }
+
+  private record Term(String text, int precedence) {
+  }
+
+  private static final class Printer implements ExpressionReducer<Term> {
+    private final MathContext mc;
+
+    private Printer(MathContext mc) {
+      this.mc = mc;
+    }
+
+    @Override
+    public Term number(String literal) {
+      return new Term(new BigDecimal(literal, mc).stripTrailingZeros().toPlainString(), ATOMIC);
+    }
+
+    @Override
+    public Term binary(char operator, Term left, Term right) {
+      int precedence = ExpressionParser.precedence(operator);
+      if ((operator == '+' || operator == '*') && left.text().compareTo(right.text()) > 0) {
+        Term swapped = left;
+        left = right;
+        right = swapped;
+      }
+      // all operators are left-associative, so only the right operand needs parentheses on a tie
+      String leftText = left.precedence() < precedence ? '(' + left.text() + ')' : left.text();
+      String rightText = right.precedence() <= precedence ? '(' + right.text() + ')' : right.text();
+      return new Term(leftText + operator + rightText, precedence);
+    }
+
+    @Override
+    public Term function(MathFunction function, List<Term> arguments) {
+      List<String> texts = new ArrayList<>(arguments.size());
+      for (Term argument : arguments) {
+        texts.add(argument.text());
+      }
+      if (function == MathFunction.MIN || function == MathFunction.MAX) {
+        Collections.sort(texts);
+      }
+      return new Term(function.functionName() + '(' + String.join(",", texts) + ')', ATOMIC);
+    }
+  }
+}
@@ -3,22 +3,30 @@ package com.api.expeval.util;
 
 import java.math.BigDecimal;
 import java.math.MathContext;
-import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Stack;
 import com.api.expeval.exception.ExpressionEvaluationException;
 import com.api.expeval.exception.ExpressionValidationException;
+import com.api.expeval.model.PrecisionProfile;
 
 public class ExpressionParser {
-  private static final MathContext MATH_CONTEXT = new MathContext(32, RoundingMode.HALF_UP);
-  private static final int DIVISION_SCALE = 16;
-
   public static BigDecimal evaluate(String exp) {
+    return evaluate(exp, PrecisionProfile.STANDARD);
+  }
+
+  public static BigDecimal evaluate(String exp, PrecisionProfile profile) {
+    return parse(exp, new Evaluator(profile));
+  }
+
+  public static <T> T parse(String exp, ExpressionReducer<T> reducer) {
     if (exp == null || exp.trim().isEmpty()) {
       throw new ExpressionValidationException("Expression is blank.");
     }
 
-    Stack<BigDecimal> nums = new Stack<>();
+    Stack<T> nums = new Stack<>();
     Stack<Character> ops = new Stack<>();
+    Stack<Call> calls = new Stack<>();
     TokenType previous = TokenType.NONE;
     int i = 0;
     while (i < exp.length()) {
@@ -29,40 +37,50 @@ public class ExpressionParser {
       }
 
       if (Character.isDigit(current) || current == '.') {
-        i = readNumber(exp, i, nums, false);
+        i = readNumber(exp, i, nums, false, reducer);
         previous = TokenType.NUMBER;
         continue;
       }
 
       if (current == '+' || current == '-') {
         boolean unary = previous == TokenType.NONE || previous == TokenType.OPERATOR
-            || previous == TokenType.LEFT_PAREN;
+            || previous == TokenType.LEFT_PAREN || previous == TokenType.COMMA;
         if (unary) {
           int nextIndex = i + 1;
           while (nextIndex < exp.length() && Character.isWhitespace(exp.charAt(nextIndex))) {
             nextIndex++;
           }
-          if (nextIndex < exp.length() && exp.charAt(nextIndex) == '(') {
+          if (nextIndex < exp.length()
+              && (exp.charAt(nextIndex) == '(' || Character.isLetter(exp.charAt(nextIndex)))) {
             if (current == '-') {
-              nums.push(BigDecimal.ZERO);
+              nums.push(reducer.number("0"));
               ops.push('-');
             }
             previous = TokenType.OPERATOR;
             i = nextIndex;
             continue;
           }
-          i = readNumber(exp, nextIndex, nums, current == '-');
+          i = readNumber(exp, nextIndex, nums, current == '-', reducer);
           previous = TokenType.NUMBER;
           continue;
         }
       }
 
+      if (Character.isLetter(current)) {
+        if (previous == TokenType.NUMBER || previous == TokenType.RIGHT_PAREN) {
+          throw new ExpressionValidationException("Missing operator at position " + i);
+        }
+        i = readFunction(exp, i, ops, calls);
+        previous = TokenType.LEFT_PAREN;
+        continue;
+      }
+
       if (isOperator(current)) {
         if (previous != TokenType.NUMBER && previous != TokenType.RIGHT_PAREN) {
           throw new ExpressionValidationException("Operator without left operand at position " + i);
         }
         while (!ops.isEmpty() && precedence(ops.peek()) >= precedence(current)) {
-          apply(nums, ops.pop());
+          apply(nums, ops.pop(), reducer);
         }
         ops.push(current);
         previous = TokenType.OPERATOR;
@@ -72,21 +90,46 @@ public class ExpressionParser {
 
       if (current == '(') {
         ops.push(current);
+        calls.push(new Call(null));
         previous = TokenType.LEFT_PAREN;
         i++;
         continue;
       }
 
+      if (current == ',') {
+        if (previous == TokenType.OPERATOR || previous == TokenType.LEFT_PAREN
+            || previous == TokenType.COMMA) {
+          throw new ExpressionValidationException("Missing function argument at position " + i);
+        }
+        while (!ops.isEmpty() && ops.peek() != '(') {
+          apply(nums, ops.pop(), reducer);
+        }
+        if (calls.isEmpty() || calls.peek().function == null) {
+          throw new ExpressionValidationException("Unexpected ',' at position " + i);
+        }
+        calls.peek().arguments++;
+        previous = TokenType.COMMA;
+        i++;
+        continue;
+      }
+
       if (current == ')') {
+        if (previous == TokenType.COMMA) {
+          throw new ExpressionValidationException("Missing function argument at position " + i);
+        }
         if (previous == TokenType.OPERATOR || previous == TokenType.LEFT_PAREN) {
           throw new ExpressionValidationException("Empty parentheses at position " + i);
         }
         while (!ops.isEmpty() && ops.peek() != '(') {
-          apply(nums, ops.pop());
+          apply(nums, ops.pop(), reducer);
         }
         if (ops.isEmpty() || ops.pop() != '(') {
           throw new ExpressionValidationException("Unmatched closing parenthesis at position " + i);
         }
+        Call call = calls.pop();
+        if (call.function != null) {
+          applyFunction(nums, call, reducer);
+        }
         previous = TokenType.RIGHT_PAREN;
         i++;
         continue;
@@ -95,7 +138,7 @@ public class ExpressionParser {
       throw new ExpressionValidationException("Invalid character '" + current + "' at position " + i);
     }
 
-    if (previous == TokenType.OPERATOR) {
+    if (previous == TokenType.OPERATOR || previous == TokenType.COMMA) {
       throw new ExpressionValidationException("Expression ends with an operator.");
     }
 
@@ -104,7 +147,7 @@ public class ExpressionParser {
       if (op == '(') {
         throw new ExpressionValidationException("Unmatched opening parenthesis.");
       }
-      apply(nums, op);
+      apply(nums, op, reducer);
     }
 
     if (nums.size() != 1) {
@@ -113,7 +156,8 @@ public class ExpressionParser {
     return nums.pop();
   }
 
-  private static int readNumber(String exp, int start, Stack<BigDecimal> nums, boolean negative) {
+  private static <T> int readNumber(String exp, int start, Stack<T> nums, boolean negative,
+                                    ExpressionReducer<T> reducer) {
     StringBuilder sb = new StringBuilder();
     int i = start;
     if (negative) {
@@ -146,72 +190,61 @@ public class ExpressionParser {
     }
 
     try {
-      nums.push(new BigDecimal(sb.toString(), MATH_CONTEXT));
+      nums.push(reducer.number(sb.toString()));
     } catch (NumberFormatException ex) {
       throw new ExpressionValidationException("Invalid number format.");
     }
     return i;
   }
 
-  private static void apply(Stack<BigDecimal> nums, char op) {
+  private static int readFunction(String exp, int start, Stack<Character> ops, Stack<Call> calls) {
+    int i = start;
+    while (i < exp.length() && Character.isLetterOrDigit(exp.charAt(i))) {
+      i++;
+    }
+    String name = exp.substring(start, i);
+    MathFunction function = MathFunction.forName(name);
+    if (function == null) {
+      throw new ExpressionValidationException("Unknown function '" + name + "' at position " + start);
+    }
+    while (i < exp.length() && Character.isWhitespace(exp.charAt(i))) {
+      i++;
+    }
+    if (i >= exp.length() || exp.charAt(i) != '(') {
+      throw new ExpressionValidationException("Missing '(' after function '" + name + "' at position " + start);
+    }
+    ops.push('(');
+    calls.push(new Call(function));
+    return i + 1;
+  }
+
+  private static <T> void applyFunction(Stack<T> nums, Call call, ExpressionReducer<T> reducer) {
+    if (!call.function.acceptsArguments(call.arguments)) {
+      throw new ExpressionValidationException("Wrong number of arguments for function '"
+          + call.function.functionName() + "'.");
+    }
+    if (nums.size() < call.arguments) {
+      throw new ExpressionValidationException("Function without enough arguments.");
+    }
+    List<T> args = new ArrayList<>(nums.subList(nums.size() - call.arguments, nums.size()));
+    nums.setSize(nums.size() - call.arguments);
+    nums.push(reducer.function(call.function, args));
+  }
+
+  private static <T> void apply(Stack<T> nums, char op, ExpressionReducer<T> reducer) {
     if (nums.size() < 2) {
       throw new ExpressionValidationException("Operator without enough operands.");
     }
-    BigDecimal b = nums.pop();
-    BigDecimal a = nums.pop();
-    switch (op) {
-      case '+':
-        nums.push(a.add(b, MATH_CONTEXT));
-        break;
-      case '-':
-        nums.push(a.subtract(b, MATH_CONTEXT));
-        break;
-      case '*':
-        nums.push(a.multiply(b, MATH_CONTEXT));
-        break;
-      case '^':
-        try {
-          // BigDecimal.pow() only accepts integer exponents. 
-          // For decimal exponents, we need a more complex implementation or limit it to integers.
-          // Given the context of a simple expression evaluator, let's try to handle integer exponents first,
-          // or use Math.pow for more complex ones, though it loses precision.
-          // Let's check if b is an integer.
-          if (b.stripTrailingZeros().scale() <= 0) {
-            nums.push(a.pow(b.intValueExact(), MATH_CONTEXT));
-          } else {
-            // For non-integer exponents, we use double-based Math.pow then back to BigDecimal
-            double res = Math.pow(a.doubleValue(), b.doubleValue());
-            if (Double.isInfinite(res) || Double.isNaN(res)) {
-              throw new ExpressionEvaluationException("Power operation resulted in an invalid number.");
-            }
-            nums.push(new BigDecimal(String.valueOf(res), MATH_CONTEXT));
-          }
-        } catch (ArithmeticException ex) {
-          throw new ExpressionEvaluationException("Error in power operation: " + ex.getMessage());
-        }
-        break;
-      case '/':
-        if (b.compareTo(BigDecimal.ZERO) == 0) {
-          throw new ExpressionEvaluationException("Division by zero.");
-        }
-        nums.push(a.divide(b, DIVISION_SCALE, RoundingMode.HALF_UP));
-        break;
-      case '%':
-        if (b.compareTo(BigDecimal.ZERO) == 0) {
-          throw new ExpressionEvaluationException("Modulo by zero.");
-        }
-        nums.push(a.remainder(b, MATH_CONTEXT));
-        break;
-      default:
-        throw new ExpressionValidationException("Unsupported operator: " + op);
-    }
+    T b = nums.pop();
+    T a = nums.pop();
+    nums.push(reducer.binary(op, a, b));
   }
 
   private static boolean isOperator(char op) {
     return op == '+' || op == '-' || op == '*' || op == '/' || op == '^' || op == '%';
   }
 
-  private static int precedence(char op) {
+  static int precedence(char op) {
     if (op == '+' || op == '-') {
       return 1;
     }
@@ -229,6 +262,62 @@ public class ExpressionParser {
     NUMBER,
     OPERATOR,
     LEFT_PAREN,
-    RIGHT_PAREN
+    RIGHT_PAREN,
+    COMMA
+  }
+
+  private static final class Evaluator implements ExpressionReducer<BigDecimal> {
+    private final PrecisionProfile profile;
+    private final MathContext mc;
+
+    private Evaluator(PrecisionProfile profile) {
+      this.profile = profile;
+      this.mc = profile.getMathContext();
+    }
+
+    @Override
+    public BigDecimal number(String literal) {
+      return new BigDecimal(literal, mc);
+    }
+
+    @Override
+    public BigDecimal binary(char op, BigDecimal a, BigDecimal b) {
+      switch (op) {
+        case '+':
+          return a.add(b, mc);
+        case '-':
+          return a.subtract(b, mc);
+        case '*':
+          return a.multiply(b, mc);
+        case '^':
+          return BigDecimalMath.pow(a, b, mc);
+        case '/':
+          if (b.compareTo(BigDecimal.ZERO) == 0) {
+            throw new ExpressionEvaluationException("Division by zero.");
+          }
+          return profile.divide(a, b);
+        case '%':
+          if (b.compareTo(BigDecimal.ZERO) == 0) {
+            throw new ExpressionEvaluationException("Modulo by zero.");
+          }
+          return a.remainder(b, mc);
+        default:
+          throw new ExpressionValidationException("Unsupported operator: " + op);
+      }
+    }
+
+    @Override
+    public BigDecimal function(MathFunction function, List<BigDecimal> args) {
+      return function.apply(args, mc);
+    }
+  }
+
+  private static final class Call {
+    private final MathFunction function;
+    private int arguments = 1;
+
+    private Call(MathFunction function) {
+      this.function = function;
+    }
   }
 }
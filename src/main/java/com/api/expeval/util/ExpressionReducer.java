@@ -0,0 +1,16 @@
+package com.api.expeval.util;
+
+import java.util.List;
+
+/**
+ * Receives the operands and operators of an expression in evaluation order from
+ * {@link ExpressionParser#parse(String, ExpressionReducer)}.
+ */
+public interface ExpressionReducer<T> {
+
+  T number(String literal);
+
+  T binary(char operator, T left, T right);
+
+  T function(MathFunction function, List<T> arguments);
+}
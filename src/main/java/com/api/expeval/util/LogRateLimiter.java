@@ -0,0 +1,38 @@
+package com.api.expeval.util;
+
+/**
+ * Lets at most {@code permitsPerSecond} log lines through per one-second window and counts the
+ * rest, so a burst of identical failures costs a counter increment instead of a log write.
+ */
+public class LogRateLimiter {
+  private static final long WINDOW_NANOS = 1_000_000_000L;
+
+  private final int permitsPerSecond;
+  private long windowStart = System.nanoTime();
+  private int used;
+  private long suppressed;
+
+  public LogRateLimiter(int permitsPerSecond) {
+    this.permitsPerSecond = permitsPerSecond;
+  }
+
+  /**
+   * @return -1 when the line must be dropped, otherwise the number of lines dropped since the last
+   * permitted one
+   */
+  public synchronized long tryAcquire() {
+    long now = System.nanoTime();
+    if (now - windowStart >= WINDOW_NANOS) {
+      windowStart = now;
+      used = 0;
+    }
+    if (used >= permitsPerSecond) {
+      suppressed++;
+      return -1;
+    }
+    used++;
+    long dropped = suppressed;
+    suppressed = 0;
+    return dropped;
+  }
+}
@@ -0,0 +1,33 @@
+package com.api.expeval.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class LruCache<K, V> {
+  private final int maxSize;
+  private final Map<K, V> entries;
+
+  public LruCache(int maxSize) {
+    this.maxSize = maxSize;
+    this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+        return size() > LruCache.this.maxSize;
+      }
+    };
+  }
+
+  public synchronized V get(K key) {
+    return entries.get(key);
+  }
+
+  public synchronized void put(K key, V value) {
+    if (maxSize > 0) {
+      entries.put(key, value);
+    }
+  }
+
+  public synchronized int size() {
+    return entries.size();
+  }
+}
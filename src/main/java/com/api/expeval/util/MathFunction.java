@@ -0,0 +1,63 @@
+package com.api.expeval.util;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public enum MathFunction {
+  SQRT("sqrt", 1, 1),
+  LN("ln", 1, 1),
+  LOG10("log10", 1, 1),
+  EXP("exp", 1, 1),
+  SIN("sin", 1, 1),
+  COS("cos", 1, 1),
+  ABS("abs", 1, 1),
+  MIN("min", 1, Integer.MAX_VALUE),
+  MAX("max", 1, Integer.MAX_VALUE);
+
+  private static final Map<String, MathFunction> BY_NAME = new HashMap<>();
+
+  static {
+    for (MathFunction function : values()) {
+      BY_NAME.put(function.functionName, function);
+    }
+  }
+
+  private final String functionName;
+  private final int minArguments;
+  private final int maxArguments;
+
+  MathFunction(String functionName, int minArguments, int maxArguments) {
+    this.functionName = functionName;
+    this.minArguments = minArguments;
+    this.maxArguments = maxArguments;
+  }
+
+  public static MathFunction forName(String name) {
+    return BY_NAME.get(name);
+  }
+
+  public String functionName() {
+    return functionName;
+  }
+
+  public boolean acceptsArguments(int count) {
+    return count >= minArguments && count <= maxArguments;
+  }
+
+  public BigDecimal apply(List<BigDecimal> args, MathContext mc) {
+    return switch (this) {
+      case SQRT -> BigDecimalMath.sqrt(args.get(0), mc);
+      case LN -> BigDecimalMath.ln(args.get(0), mc);
+      case LOG10 -> BigDecimalMath.log10(args.get(0), mc);
+      case EXP -> BigDecimalMath.exp(args.get(0), mc);
+      case SIN -> BigDecimalMath.sin(args.get(0), mc);
+      case COS -> BigDecimalMath.cos(args.get(0), mc);
+      case ABS -> args.get(0).abs(mc);
+      case MIN -> BigDecimalMath.min(args, mc);
+      case MAX -> BigDecimalMath.max(args, mc);
+    };
+  }
+}
@@ -0,0 +1,365 @@
+package com.api.expeval.util;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.math.RoundingMode;
+
+/**
+ * Exact rational number in lowest terms with a positive denominator. Values whose numerator and
+ * denominator fit in a {@code long} are stored and combined as longs with overflow checks; only
+ * results that overflow switch to {@link BigInteger}. Immutable.
+ */
+public final class Rational implements Comparable<Rational> {
+  public static final Rational ZERO = new Rational(0, 1);
+  public static final Rational ONE = new Rational(1, 1);
+
+  private static final BigInteger LONG_MIN = BigInteger.valueOf(Long.MIN_VALUE);
+  private static final BigInteger FIVE = BigInteger.valueOf(5);
+  private static final long[] LONG_POWERS_OF_TEN = new long[19];
+
+  static {
+    LONG_POWERS_OF_TEN[0] = 1;
+    for (int i = 1; i < LONG_POWERS_OF_TEN.length; i++) {
+      LONG_POWERS_OF_TEN[i] = LONG_POWERS_OF_TEN[i - 1] * 10;
+    }
+  }
+
+  // valid when bigNumerator is null; never Long.MIN_VALUE, so negation and abs cannot overflow
+  private final long numerator;
+  private final long denominator;
+  private final BigInteger bigNumerator;
+  private final BigInteger bigDenominator;
+
+  private Rational(long numerator, long denominator) {
+    this.numerator = numerator;
+    this.denominator = denominator;
+    this.bigNumerator = null;
+    this.bigDenominator = null;
+  }
+
+  private Rational(BigInteger numerator, BigInteger denominator) {
+    this.numerator = 0;
+    this.denominator = 0;
+    this.bigNumerator = numerator;
+    this.bigDenominator = denominator;
+  }
+
+  public static Rational of(long numerator, long denominator) {
+    if (denominator == 0) {
+      throw new ArithmeticException("Zero denominator");
+    }
+    if (numerator == 0) {
+      return ZERO;
+    }
+    if (numerator == Long.MIN_VALUE || denominator == Long.MIN_VALUE) {
+      return of(BigInteger.valueOf(numerator), BigInteger.valueOf(denominator));
+    }
+    long gcd = gcd(Math.abs(numerator), Math.abs(denominator));
+    long n = numerator / gcd;
+    long d = denominator / gcd;
+    return d < 0 ? new Rational(-n, -d) : new Rational(n, d);
+  }
+
+  public static Rational of(BigInteger numerator, BigInteger denominator) {
+    if (denominator.signum() == 0) {
+      throw new ArithmeticException("Zero denominator");
+    }
+    if (numerator.signum() == 0) {
+      return ZERO;
+    }
+    BigInteger gcd = numerator.gcd(denominator);
+    BigInteger n = numerator.divide(gcd);
+    BigInteger d = denominator.divide(gcd);
+    if (d.signum() < 0) {
+      n = n.negate();
+      d = d.negate();
+    }
+    if (n.bitLength() < Long.SIZE && d.bitLength() < Long.SIZE && !n.equals(LONG_MIN)) {
+      return new Rational(n.longValue(), d.longValue());
+    }
+    return new Rational(n, d);
+  }
+
+  /**
+   * Exact value of a decimal; {@code 0.1} is {@code 1/10}.
+   */
+  public static Rational valueOf(BigDecimal value) {
+    int scale = value.scale();
+    BigInteger unscaled = value.unscaledValue();
+    if (scale <= 0) {
+      return of(unscaled.multiply(BigInteger.TEN.pow(-scale)), BigInteger.ONE);
+    }
+    if (scale < 19 && unscaled.bitLength() < Long.SIZE) {
+      return of(unscaled.longValue(), LONG_POWERS_OF_TEN[scale]);
+    }
+    return of(unscaled, BigInteger.TEN.pow(scale));
+  }
+
+  /**
+   * Exact value of a decimal literal such as {@code -12.5}; literals of up to 18 digits are parsed
+   * without allocating a {@link BigDecimal}.
+   *
+   * @throws NumberFormatException when {@code literal} is not a decimal number
+   */
+  public static Rational parse(String literal) {
+    int length = literal.length();
+    int start = length > 0 && literal.charAt(0) == '-' ? 1 : 0;
+    if (length - start > 19) {
+      return valueOf(new BigDecimal(literal));
+    }
+    long unscaled = 0;
+    int digits = 0;
+    int scale = -1;
+    for (int i = start; i < length; i++) {
+      char c = literal.charAt(i);
+      if (c == '.' && scale < 0) {
+        scale = 0;
+      } else if (c >= '0' && c <= '9') {
+        unscaled = unscaled * 10 + (c - '0');
+        digits++;
+        if (scale >= 0) {
+          scale++;
+        }
+      } else {
+        throw new NumberFormatException("Invalid decimal: " + literal);
+      }
+    }
+    if (digits == 0 || digits > 18) {
+      return valueOf(new BigDecimal(literal));
+    }
+    return of(start == 1 ? -unscaled : unscaled, LONG_POWERS_OF_TEN[Math.max(scale, 0)]);
+  }
+
+  public BigInteger numerator() {
+    return bigNumerator == null ? BigInteger.valueOf(numerator) : bigNumerator;
+  }
+
+  public BigInteger denominator() {
+    return bigDenominator == null ? BigInteger.valueOf(denominator) : bigDenominator;
+  }
+
+  public int signum() {
+    return bigNumerator == null ? Long.signum(numerator) : bigNumerator.signum();
+  }
+
+  public boolean isInteger() {
+    return bigNumerator == null ? denominator == 1 : bigDenominator.equals(BigInteger.ONE);
+  }
+
+  /**
+   * Bit length of the numerator plus that of the denominator, a measure of the cost of further
+   * arithmetic.
+   */
+  public long bitLength() {
+    if (bigNumerator == null) {
+      return 2 * Long.SIZE - Long.numberOfLeadingZeros(Math.abs(numerator)) - Long.numberOfLeadingZeros(denominator);
+    }
+    return (long) bigNumerator.bitLength() + bigDenominator.bitLength();
+  }
+
+  public Rational negate() {
+    if (bigNumerator == null) {
+      return new Rational(-numerator, denominator);
+    }
+    return of(bigNumerator.negate(), bigDenominator);
+  }
+
+  public Rational abs() {
+    return signum() < 0 ? negate() : this;
+  }
+
+  public Rational add(Rational other) {
+    if (bigNumerator == null && other.bigNumerator == null) {
+      // Knuth 4.5.1: only gcd(t, g) can be left to cancel, which keeps the operands small
+      long g = gcd(denominator, other.denominator);
+      long scaled = denominator / g;
+      long otherScaled = other.denominator / g;
+      if (productFits(numerator, otherScaled) && productFits(other.numerator, scaled)
+          && productFits(denominator, otherScaled)) {
+        long x = numerator * otherScaled;
+        long y = other.numerator * scaled;
+        long t = x + y;
+        if (((x ^ t) & (y ^ t)) >= 0 && t != Long.MIN_VALUE) {
+          if (t == 0) {
+            return ZERO;
+          }
+          long g2 = g == 1 ? 1 : gcd(Math.abs(t), g);
+          return new Rational(t / g2, scaled * (other.denominator / g2));
+        }
+      }
+    }
+    BigInteger d = denominator();
+    BigInteger otherD = other.denominator();
+    if (d.equals(otherD)) {
+      return of(numerator().add(other.numerator()), d);
+    }
+    return of(numerator().multiply(otherD).add(other.numerator().multiply(d)), d.multiply(otherD));
+  }
+
+  public Rational subtract(Rational other) {
+    return add(other.negate());
+  }
+
+  public Rational multiply(Rational other) {
+    if (bigNumerator == null && other.bigNumerator == null) {
+      // cross-reduce first, so the products stay small and are already in lowest terms
+      long g1 = gcd(Math.abs(numerator), other.denominator);
+      long g2 = gcd(Math.abs(other.numerator), denominator);
+      long a = numerator / g1;
+      long b = other.numerator / g2;
+      long c = denominator / g2;
+      long d = other.denominator / g1;
+      if (productFits(a, b) && productFits(c, d)) {
+        long n = a * b;
+        if (n == 0) {
+          return ZERO;
+        }
+        if (n != Long.MIN_VALUE) {
+          return new Rational(n, c * d);
+        }
+      }
+    }
+    return of(numerator().multiply(other.numerator()), denominator().multiply(other.denominator()));
+  }
+
+  /**
+   * @throws ArithmeticException when {@code other} is zero
+   */
+  public Rational divide(Rational other) {
+    if (other.signum() == 0) {
+      throw new ArithmeticException("Division by zero");
+    }
+    return multiply(other.reciprocal());
+  }
+
+  /**
+   * Remainder of truncating division, with the sign of this value, like
+   * {@link BigDecimal#remainder}.
+   *
+   * @throws ArithmeticException when {@code other} is zero
+   */
+  public Rational remainder(Rational other) {
+    Rational quotient = divide(other);
+    BigInteger truncated = quotient.numerator().divide(quotient.denominator());
+    return subtract(other.multiply(of(truncated, BigInteger.ONE)));
+  }
+
+  /**
+   * @throws ArithmeticException when this value is zero and {@code exponent} is negative
+   */
+  public Rational pow(int exponent) {
+    if (exponent < 0) {
+      if (signum() == 0) {
+        throw new ArithmeticException("Division by zero");
+      }
+      return reciprocal().pow(-exponent);
+    }
+    return of(numerator().pow(exponent), denominator().pow(exponent));
+  }
+
+  private Rational reciprocal() {
+    return bigNumerator == null ? of(denominator, numerator) : of(bigDenominator, bigNumerator);
+  }
+
+  /**
+   * Rounds to {@code mc} significant digits.
+   */
+  public BigDecimal toBigDecimal(MathContext mc) {
+    return new BigDecimal(numerator()).divide(new BigDecimal(denominator()), mc);
+  }
+
+  /**
+   * Decimal materialization: exact when the decimal expansion ends within {@code scale} places,
+   * otherwise truncated to {@code scale} places. A truncated value lies strictly between the
+   * result and the next multiple of 10^-scale, so {@code HALF_UP} rounding to fewer places gives
+   * the same result as rounding the exact value.
+   */
+  public BigDecimal toBigDecimal(int scale) {
+    if (bigNumerator == null) {
+      long rest = denominator >> Long.numberOfTrailingZeros(denominator);
+      int fives = 0;
+      while (rest % 5 == 0) {
+        rest /= 5;
+        fives++;
+      }
+      if (rest == 1 && Math.max(Long.numberOfTrailingZeros(denominator), fives) <= scale) {
+        return BigDecimal.valueOf(numerator).divide(BigDecimal.valueOf(denominator));
+      }
+      return BigDecimal.valueOf(numerator).divide(BigDecimal.valueOf(denominator), scale, RoundingMode.DOWN);
+    }
+    BigInteger d = bigDenominator;
+    int twos = d.getLowestSetBit();
+    BigInteger rest = d.shiftRight(twos);
+    int fives = 0;
+    BigInteger[] division;
+    while ((division = rest.divideAndRemainder(FIVE))[1].signum() == 0) {
+      rest = division[0];
+      fives++;
+    }
+    int exact = Math.max(twos, fives);
+    if (rest.equals(BigInteger.ONE) && exact <= scale) {
+      // n / (2^twos * 5^fives) = n * 2^(exact - twos) * 5^(exact - fives) / 10^exact
+      return new BigDecimal(numerator().shiftLeft(exact - twos).multiply(FIVE.pow(exact - fives)), exact);
+    }
+    return new BigDecimal(numerator()).divide(new BigDecimal(d), scale, RoundingMode.DOWN);
+  }
+
+  @Override
+  public int compareTo(Rational other) {
+    if (bigNumerator == null && other.bigNumerator == null
+        && productFits(numerator, other.denominator) && productFits(other.numerator, denominator)) {
+      return Long.compare(numerator * other.denominator, other.numerator * denominator);
+    }
+    return numerator().multiply(other.denominator()).compareTo(other.numerator().multiply(denominator()));
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    // both sides are in lowest terms, and values that fit in longs are always stored as longs
+    if (!(other instanceof Rational that)) {
+      return false;
+    }
+    if (bigNumerator == null) {
+      return that.bigNumerator == null && numerator == that.numerator && denominator == that.denominator;
+    }
+    return bigNumerator.equals(that.bigNumerator) && bigDenominator.equals(that.bigDenominator);
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * numerator().hashCode() + denominator().hashCode();
+  }
+
+  @Override
+  public String toString() {
+    return isInteger() ? numerator().toString() : numerator() + "/" + denominator();
+  }
+
+  // overflow checks without Math.*Exact: an overflow there throws, which costs far more than the
+  // BigInteger arithmetic it falls back to
+  private static boolean productFits(long a, long b) {
+    return Math.multiplyHigh(a, b) == (a * b) >> 63;
+  }
+
+  /**
+   * Binary GCD of non-negative values.
+   */
+  private static long gcd(long a, long b) {
+    if (a == 0 || b == 0) {
+      return a | b;
+    }
+    int shift = Long.numberOfTrailingZeros(a | b);
+    a >>= Long.numberOfTrailingZeros(a);
+    while (b != 0) {
+      b >>= Long.numberOfTrailingZeros(b);
+      if (a > b) {
+        long t = a;
+        a = b;
+        b = t;
+      }
+      b -= a;
+    }
+    return a << shift;
+  }
+}
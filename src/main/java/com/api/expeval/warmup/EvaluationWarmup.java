@@ -0,0 +1,212 @@
+package com.api.expeval.warmup;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.management.CompilationMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+import com.api.expeval.dto.ExpressionResponse;
+import com.api.expeval.exception.ExpressionEvaluationException;
+import com.api.expeval.exception.ExpressionValidationException;
+import com.api.expeval.model.PrecisionProfile;
+import com.api.expeval.service.ExpressionService;
+import com.api.expeval.service.HistoryStore;
+
+/**
+ * Replays a representative corpus through the evaluation path after startup so the parser,
+ * Jackson and Hibernate read paths are compiled before real traffic arrives. Nothing is stored:
+ * evaluations bypass the cache and history, and lookups by result are read-only. Runs in rounds of
+ * {@code expeval.warmup.round-size} evaluations until JIT compilation time grows by at most
+ * {@code expeval.warmup.compile-threshold} for {@code expeval.warmup.stable-rounds} consecutive
+ * rounds, or {@code expeval.warmup.max-duration} passes.
+ *
+ * <p>Registered as the {@code warmup} health contributor, which is DOWN while warm-up runs; add it
+ * to the readiness group so traffic is routed only once the evaluator is hot.
+ */
+@Component("warmup")
+public class EvaluationWarmup implements ApplicationRunner, HealthIndicator {
+  private static final Logger log = LoggerFactory.getLogger(EvaluationWarmup.class);
+  private static final int LOOKUP_EVERY = 32;
+
+  private final ExpressionService service;
+  private final HistoryStore historyStore;
+  private final ObjectMapper objectMapper;
+  private final boolean enabled;
+  private final String source;
+  private final Resource corpus;
+  private final int historySize;
+  private final int roundSize;
+  private final int stableRounds;
+  private final Duration compileThreshold;
+  private final Duration maxDuration;
+  private volatile boolean finished;
+  private volatile String outcome = "pending";
+  private volatile long iterations;
+  private volatile long durationNanos;
+
+  public EvaluationWarmup(ExpressionService service, HistoryStore historyStore, ObjectMapper objectMapper,
+                          MeterRegistry registry,
+                          @Value("${expeval.warmup.enabled:false}") boolean enabled,
+                          @Value("${expeval.warmup.source:bundled}") String source,
+                          @Value("${expeval.warmup.corpus:classpath:warmup/expressions.txt}") Resource corpus,
+                          @Value("${expeval.warmup.history-size:500}") int historySize,
+                          @Value("${expeval.warmup.round-size:2000}") int roundSize,
+                          @Value("${expeval.warmup.stable-rounds:3}") int stableRounds,
+                          @Value("${expeval.warmup.compile-threshold:20ms}") Duration compileThreshold,
+                          @Value("${expeval.warmup.max-duration:60s}") Duration maxDuration) {
+    this.service = service;
+    this.historyStore = historyStore;
+    this.objectMapper = objectMapper;
+    this.enabled = enabled;
+    this.source = source;
+    this.corpus = corpus;
+    this.historySize = historySize;
+    this.roundSize = roundSize;
+    this.stableRounds = stableRounds;
+    this.compileThreshold = compileThreshold;
+    this.maxDuration = maxDuration;
+    TimeGauge.builder("expeval.warmup.duration", this, TimeUnit.NANOSECONDS, warmup -> warmup.durationNanos)
+        .register(registry);
+    Gauge.builder("expeval.warmup.iterations", this, warmup -> warmup.iterations).register(registry);
+  }
+
+  @Override
+  public void run(ApplicationArguments args) {
+    if (!enabled) {
+      finish("disabled");
+      return;
+    }
+    Thread thread = new Thread(this::warmUp, "expeval-warmup");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  @Override
+  public Health health() {
+    Health.Builder health = finished ? Health.up() : Health.down();
+    return health
+        .withDetail("outcome", outcome)
+        .withDetail("iterations", iterations)
+        .withDetail("durationMillis", TimeUnit.NANOSECONDS.toMillis(durationNanos))
+        .build();
+  }
+
+  public boolean isFinished() {
+    return finished;
+  }
+
+  private void warmUp() {
+    long started = System.nanoTime();
+    try {
+      outcome = "running";
+      List<String> expressions = loadCorpus();
+      if (expressions.isEmpty()) {
+        finish("empty corpus");
+        return;
+      }
+      CompilationMXBean jit = ManagementFactory.getCompilationMXBean();
+      boolean monitored = jit != null && jit.isCompilationTimeMonitoringSupported();
+      long deadline = started + maxDuration.toNanos();
+      long compileMillis = monitored ? jit.getTotalCompilationTime() : 0;
+      PrecisionProfile[] profiles = PrecisionProfile.values();
+      long count = 0;
+      int stable = 0;
+      while (true) {
+        for (int i = 0; i < roundSize; i++, count++) {
+          exercise(expressions.get((int) (count % expressions.size())),
+              profiles[(int) (count / expressions.size() % profiles.length)], count);
+        }
+        iterations = count;
+        durationNanos = System.nanoTime() - started;
+        if (System.nanoTime() - deadline >= 0) {
+          finish("max duration reached");
+          break;
+        }
+        // without compilation time, fall back to a fixed number of rounds
+        long compiled = monitored ? jit.getTotalCompilationTime() : compileMillis;
+        stable = compiled - compileMillis <= compileThreshold.toMillis() ? stable + 1 : 0;
+        compileMillis = compiled;
+        if (stable >= stableRounds) {
+          finish(monitored ? "compilation stable" : "rounds completed");
+          break;
+        }
+      }
+      log.info("JIT warm-up finished after {} evaluations in {} ms ({})", iterations,
+          TimeUnit.NANOSECONDS.toMillis(durationNanos), outcome);
+    } catch (RuntimeException ex) {
+      // a failed warm-up only costs latency, so it must not keep the instance out of rotation
+      log.warn("JIT warm-up failed after {} evaluations", iterations, ex);
+      finish("failed: " + ex.getMessage());
+    } finally {
+      durationNanos = System.nanoTime() - started;
+    }
+  }
+
+  private void exercise(String expression, PrecisionProfile precision, long count) {
+    try {
+      ExpressionResponse response = service.evaluateWithoutHistory(expression, precision);
+      objectMapper.writeValueAsBytes(response);
+      if (count % LOOKUP_EVERY == 0) {
+        objectMapper.writeValueAsBytes(service.findByResult(response.getResult()));
+      }
+    } catch (ExpressionValidationException | ExpressionEvaluationException ex) {
+      // history may contain expressions that fail under another precision profile
+    } catch (JsonProcessingException ex) {
+      throw new IllegalStateException("Could not serialize warm-up response", ex);
+    }
+  }
+
+  private List<String> loadCorpus() {
+    Set<String> expressions = new LinkedHashSet<>();
+    if (!source.equals("history")) {
+      expressions.addAll(readBundled());
+    }
+    if (!source.equals("bundled")) {
+      expressions.addAll(historyStore.recentExpressions(historySize));
+    }
+    return new ArrayList<>(expressions);
+  }
+
+  private List<String> readBundled() {
+    List<String> expressions = new ArrayList<>();
+    try (BufferedReader reader = new BufferedReader(
+        new InputStreamReader(corpus.getInputStream(), StandardCharsets.UTF_8))) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        line = line.strip();
+        if (!line.isEmpty() && !line.startsWith("#")) {
+          expressions.add(line);
+        }
+      }
+    } catch (IOException ex) {
+      throw new IllegalStateException("Could not read warm-up corpus " + corpus, ex);
+    }
+    return expressions;
+  }
+
+  private void finish(String outcome) {
+    this.outcome = outcome;
+    this.finished = true;
+  }
+}
@@ -0,0 +1,119 @@
+package com.api.expeval.archive;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import com.api.expeval.model.ExpressionRecord;
+import com.api.expeval.model.ExpressionStatus;
+
+class HistoryArchiveTest {
+
+  @TempDir
+  Path directory;
+
+  private static ExpressionRecord record(long id, String expression, String result) {
+    ExpressionRecord record = new ExpressionRecord();
+    record.setId(id);
+    record.setExpression(expression);
+    record.setCreatedAt(Instant.ofEpochSecond(1_700_000_000L + id, 123_000));
+    if (result != null) {
+      record.setResult(new BigDecimal(result).setScale(16));
+      record.setStatus(ExpressionStatus.SUCCESS);
+    } else {
+      record.setStatus(ExpressionStatus.ERROR);
+      record.setErrorMessage("Division by zero.");
+    }
+    return record;
+  }
+
+  @Test
+  void roundTripsRecordsMatchingResult() throws IOException {
+    ArchiveSegment segment = ArchiveSegment.write(directory, List.of(
+        record(3, "1+2", "3"),
+        record(4, "1/0", null),
+        record(7, "6/2", "3"),
+        record(9, "2*2", "4")));
+
+    assertEquals(4, segment.rows());
+    assertEquals(3, segment.minId());
+    assertEquals(9, segment.maxId());
+    assertArrayEquals(new long[] {3, 4, 7, 9}, segment.ids());
+
+    List<ExpressionRecord> records = segment.findByResult(new BigDecimal("3.0000000000000000"));
+    assertEquals(2, records.size());
+    ExpressionRecord first = records.get(0);
+    assertEquals(3L, first.getId());
+    assertEquals("1+2", first.getExpression());
+    assertEquals(new BigDecimal("3.0000000000000000"), first.getResult());
+    assertEquals(ExpressionStatus.SUCCESS, first.getStatus());
+    assertEquals(Instant.ofEpochSecond(1_700_000_003L, 123_000), first.getCreatedAt());
+    assertNull(first.getErrorMessage());
+    assertEquals("6/2", records.get(1).getExpression());
+  }
+
+  @Test
+  void skipsSegmentsOutsideResultRange() throws IOException {
+    ArchiveSegment segment = ArchiveSegment.write(directory, List.of(
+        record(1, "1+1", "2"),
+        record(2, "5*2", "10")));
+
+    assertTrue(segment.mayContain(new BigDecimal("2")));
+    assertTrue(segment.mayContain(new BigDecimal("7")));
+    assertFalse(segment.mayContain(new BigDecimal("1.9999999999999999")));
+    assertFalse(segment.mayContain(new BigDecimal("10.0000000000000001")));
+    assertTrue(segment.findByResult(new BigDecimal("7")).isEmpty());
+
+    ArchiveSegment errorsOnly = ArchiveSegment.write(directory, List.of(record(3, "1/0", null)));
+    assertFalse(errorsOnly.mayContain(BigDecimal.ZERO));
+  }
+
+  @Test
+  void reopensSegmentsInIdOrderAndMarksTheNewestUnreconciled() throws IOException {
+    HistoryArchive archive = new HistoryArchive(directory);
+    assertEquals(0, archive.maxArchivedId());
+    assertNull(archive.unreconciled());
+
+    List<ExpressionRecord> batch = new ArrayList<>();
+    for (long id = 1; id <= 1000; id++) {
+      batch.add(record(id, id + "-" + id, "0"));
+    }
+    archive.register(archive.write(batch));
+    ArchiveSegment newest = archive.write(List.of(record(1001, "2-2", "0"), record(1002, "3+4", "7")));
+    archive.register(newest);
+    assertEquals(newest, archive.unreconciled());
+    archive.reconciled(newest);
+    assertNull(archive.unreconciled());
+    assertEquals(1002, archive.maxArchivedId());
+
+    HistoryArchive reopened = new HistoryArchive(directory);
+    assertEquals(1002, reopened.maxArchivedId());
+    // the newest segment's rows may still be in the database until the archiver reconciles it, but
+    // it is searchable meanwhile
+    assertEquals(1002L, reopened.unreconciled().maxId());
+    reopened.reconciled(reopened.unreconciled());
+    assertNull(reopened.unreconciled());
+
+    List<ExpressionRecord> zeros = reopened.findByResult(new BigDecimal("0E-16"));
+    assertEquals(1001, zeros.size());
+    assertEquals(1L, zeros.get(0).getId());
+    assertEquals(1001L, zeros.get(1000).getId());
+    assertEquals(List.of("3+4"),
+        reopened.findByResult(new BigDecimal("7")).stream().map(ExpressionRecord::getExpression).toList());
+    try (Stream<Path> files = Files.list(directory)) {
+      assertTrue(files.noneMatch(file -> file.toString().endsWith(".tmp")));
+    }
+  }
+}
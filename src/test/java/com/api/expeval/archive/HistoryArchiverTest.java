@@ -0,0 +1,118 @@
+package com.api.expeval.archive;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import com.api.expeval.dto.ExpressionResponse;
+import com.api.expeval.repository.ExpressionRecordRepository;
+import com.api.expeval.service.ExpressionService;
+
+// the database is shared with the other test classes: only rows backdated past max-age are archived
+@SpringBootTest(properties = {"expeval.archive.enabled=true", "expeval.archive.max-age=36500d"})
+class HistoryArchiverTest {
+  private static final OffsetDateTime LONG_AGO = OffsetDateTime.of(1900, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+
+  @TempDir
+  static Path archiveDirectory;
+
+  @TempDir
+  Path crashDirectory;
+
+  @DynamicPropertySource
+  static void archiveProperties(DynamicPropertyRegistry registry) {
+    registry.add("expeval.archive.directory", archiveDirectory::toString);
+  }
+
+  @Autowired
+  private ExpressionService expressionService;
+
+  @Autowired
+  private HistoryArchiver archiver;
+
+  @Autowired
+  private HistoryArchive archive;
+
+  @Autowired
+  private ExpressionRecordRepository repository;
+
+  @Autowired
+  private PlatformTransactionManager transactionManager;
+
+  @Autowired
+  private JdbcTemplate jdbc;
+
+  @Test
+  void movesOldRecordsToSegmentsAndKeepsThemSearchable() {
+    long value = System.nanoTime();
+    BigDecimal stored = BigDecimal.valueOf(value).setScale(16);
+    expressionService.evaluate(value + "+0");
+    expressionService.evaluate(value + "*1");
+    backdate(stored);
+    long others = repository.count() - 2;
+
+    archiver.archive();
+
+    assertTrue(repository.findByResult(stored).isEmpty());
+    assertEquals(others, repository.count());
+    expressionService.evaluate(value + "+0");
+
+    List<ExpressionResponse> results = expressionService.findByResult(BigDecimal.valueOf(value));
+    assertEquals(List.of(value + "+0", value + "*1", value + "+0"),
+        results.stream().map(ExpressionResponse::getExpression).toList());
+    assertEquals(BigDecimal.valueOf(value), results.get(0).getResult());
+  }
+
+  @Test
+  void deletesRowsOfSegmentLeftBehindByCrashBeforeShowingIt() throws IOException {
+    long value = System.nanoTime();
+    BigDecimal stored = BigDecimal.valueOf(value).setScale(16);
+    expressionService.evaluate(value + "*1");
+    new HistoryArchive(crashDirectory).write(repository.findByResult(stored));
+
+    HistoryArchive restarted = new HistoryArchive(crashDirectory);
+    assertEquals(1, restarted.findByResult(stored).size());
+    assertEquals(1, repository.findByResult(stored).size());
+    new HistoryArchiver(repository, restarted, transactionManager, Duration.ofDays(36500), 100).reconcile();
+
+    assertTrue(repository.findByResult(stored).isEmpty());
+    assertEquals(1, restarted.findByResult(stored).size());
+    assertNull(restarted.unreconciled());
+  }
+
+  @Test
+  void returnsRecordsInTheArchiveAndTheDatabaseOnce() throws IOException {
+    long value = System.nanoTime();
+    BigDecimal stored = BigDecimal.valueOf(value).setScale(16);
+    expressionService.evaluate(value + "*1");
+    // registered, but the delete has not run yet
+    archive.register(archive.write(repository.findByResult(stored)));
+
+    assertEquals(1, repository.findByResult(stored).size());
+    assertEquals(List.of(value + "*1"), expressionService.findByResult(BigDecimal.valueOf(value)).stream()
+        .map(ExpressionResponse::getExpression).toList());
+
+    archiver.reconcile();
+    assertTrue(repository.findByResult(stored).isEmpty());
+    assertEquals(1, expressionService.findByResult(BigDecimal.valueOf(value)).size());
+  }
+
+  private void backdate(BigDecimal result) {
+    jdbc.update("update expression_records set created_at = ? where result = ?", LONG_AGO, result);
+  }
+}
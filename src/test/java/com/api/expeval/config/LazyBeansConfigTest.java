@@ -0,0 +1,43 @@
+package com.api.expeval.config;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+@SpringBootTest(properties = "expeval.startup.lazy-packages=org.springdoc")
+@AutoConfigureMockMvc
+class LazyBeansConfigTest {
+
+  @Autowired
+  private ConfigurableListableBeanFactory beanFactory;
+
+  @Autowired
+  private MockMvc mockMvc;
+
+  @Test
+  void marksOnlyConfiguredPackagesLazyAndKeepsThemWorking() throws Exception {
+    List<BeanDefinition> springdoc = Arrays.stream(beanFactory.getBeanDefinitionNames())
+        .map(beanFactory::getBeanDefinition)
+        .filter(definition -> String.valueOf(definition.getResourceDescription()).contains("org/springdoc/"))
+        .toList();
+
+    assertFalse(springdoc.isEmpty());
+    assertTrue(springdoc.stream().allMatch(BeanDefinition::isLazyInit));
+    assertFalse(beanFactory.getBeanDefinition("expressionService").isLazyInit());
+    mockMvc.perform(get("/v3/api-docs"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.paths['/api/v1/expressions/calculate']").exists());
+  }
+}
@@ -0,0 +1,84 @@
+package com.api.expeval.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+class ReadWriteRoutingDataSourceTest {
+  private final DataSource primary = h2("routing_primary");
+  private final DataSource read = h2("routing_read");
+
+  private static DataSource h2(String name) {
+    return new DriverManagerDataSource("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+  }
+
+  private static String currentDatabase(TransactionTemplate transactions, JdbcTemplate jdbc, boolean readOnly) {
+    transactions.setReadOnly(readOnly);
+    return transactions.execute(status -> jdbc.queryForObject("select database()", String.class));
+  }
+
+  private static TransactionTemplate transactions(DataSource dataSource) {
+    return new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+  }
+
+  private static DataSource proxy(ReadWriteRoutingDataSource routing) {
+    routing.afterPropertiesSet();
+    return new LazyConnectionDataSourceProxy(routing);
+  }
+
+  @Test
+  void routesReadOnlyTransactionsToReadDataSource() {
+    DataSource dataSource = proxy(new ReadWriteRoutingDataSource(primary, read, Duration.ZERO, null));
+    JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+    TransactionTemplate transactions = transactions(dataSource);
+
+    assertEquals("ROUTING_READ", currentDatabase(transactions, jdbc, true));
+    assertEquals("ROUTING_PRIMARY", currentDatabase(transactions, jdbc, false));
+    assertEquals("ROUTING_PRIMARY", jdbc.queryForObject("select database()", String.class));
+  }
+
+  @Test
+  void fallsBackToPrimaryWhenReplicaIsTooStale() {
+    ReadWriteRoutingDataSource routing =
+        new ReadWriteRoutingDataSource(primary, read, Duration.ofSeconds(30), "select 45.5");
+    DataSource dataSource = proxy(routing);
+    TransactionTemplate transactions = transactions(dataSource);
+    JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+
+    routing.refreshReadState();
+
+    assertFalse(routing.isReadUsable());
+    assertEquals("ROUTING_PRIMARY", currentDatabase(transactions, jdbc, true));
+  }
+
+  @Test
+  void resumesReadsOnceReplicaCatchesUp() {
+    ReadWriteRoutingDataSource routing =
+        new ReadWriteRoutingDataSource(primary, read, Duration.ofSeconds(30), "select 1.5");
+    DataSource dataSource = proxy(routing);
+
+    routing.refreshReadState();
+
+    assertTrue(routing.isReadUsable());
+    assertEquals("ROUTING_READ", currentDatabase(transactions(dataSource), new JdbcTemplate(dataSource), true));
+  }
+
+  @Test
+  void fallsBackToPrimaryWhenReplicaIsUnreachable() {
+    DataSource unreachable = new DriverManagerDataSource("jdbc:h2:mem:routing_missing;IFEXISTS=TRUE", "sa", "");
+    ReadWriteRoutingDataSource routing = new ReadWriteRoutingDataSource(primary, unreachable, Duration.ZERO, null);
+    DataSource dataSource = proxy(routing);
+
+    assertEquals("ROUTING_PRIMARY", currentDatabase(transactions(dataSource), new JdbcTemplate(dataSource), true));
+    assertFalse(routing.isReadUsable());
+  }
+}
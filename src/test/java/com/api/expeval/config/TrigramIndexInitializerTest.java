@@ -0,0 +1,62 @@
+package com.api.expeval.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+// runs against the configured PostgreSQL test database and is skipped on any other; the startup
+// build is disabled so that only this test builds the index in this context
+@SpringBootTest(properties = "expeval.search.trigram-index=false")
+class TrigramIndexInitializerTest {
+  private static final String TABLE = "expression_records";
+  private static final String INDEX = "idx_expression_records_expression_trgm";
+
+  @Autowired
+  private ObjectProvider<DataSource> dataSources;
+
+  @Autowired
+  private JdbcTemplate jdbc;
+
+  @Test
+  void buildsTheIndexOnlyWhileHoldingTheAdvisoryLock() throws SQLException {
+    DataSource dataSource = dataSources.getObject();
+    try (Connection connection = dataSource.getConnection()) {
+      assumeTrue("PostgreSQL".equals(connection.getMetaData().getDatabaseProductName()), "needs PostgreSQL");
+    }
+    TrigramIndexInitializer initializer = new TrigramIndexInitializer(dataSources, "jpa");
+
+    try (Connection holder = dataSource.getConnection()) {
+      JdbcTemplate lock = new JdbcTemplate(new SingleConnectionDataSource(holder, true));
+      // blocks while a build started by another test context still holds it
+      lock.queryForList("select pg_advisory_lock(hashtext(?))", INDEX);
+      jdbc.execute("drop index concurrently if exists " + INDEX);
+
+      assertFalse(initializer.createIndexLocked(dataSource, TABLE));
+      assertNull(indexValid());
+      lock.queryForObject("select pg_advisory_unlock(hashtext(?))", Boolean.class, INDEX);
+    }
+
+    assertTrue(initializer.createIndexLocked(dataSource, TABLE));
+    assertEquals(Boolean.TRUE, indexValid());
+    // a valid index is kept as it is
+    assertTrue(initializer.createIndexLocked(dataSource, TABLE));
+    assertEquals(Boolean.TRUE, indexValid());
+  }
+
+  private Boolean indexValid() {
+    return jdbc.query("select i.indisvalid from pg_index i where i.indexrelid = to_regclass(?)",
+        rs -> rs.next() ? rs.getBoolean(1) : null, INDEX);
+  }
+}
@@ -1,12 +1,26 @@
 package com.api.expeval.controller;
 
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import com.api.expeval.dto.ExpressionRequest;
+import com.api.expeval.model.PrecisionProfile;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
@@ -17,6 +31,7 @@ import org.springframework.test.web.servlet.MockMvc;
 @SpringBootTest
 @AutoConfigureMockMvc
 class ExpressionControllerTest {
+  private static final AtomicInteger FRESH_OPERANDS = new AtomicInteger();
 
   @Autowired
   private MockMvc mockMvc;
@@ -64,6 +79,222 @@ class ExpressionControllerTest {
         .andExpect(status().isBadRequest());
   }
 
+  @Test
+  void calculatesWithRequestedPrecision() throws Exception {
+    ExpressionRequest request = new ExpressionRequest();
+    request.setExpression("1/3");
+    request.setPrecision(PrecisionProfile.HIGH);
+
+    mockMvc.perform(post("/api/v1/expressions/calculate")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(objectMapper.writeValueAsString(request)))
+        .andExpect(status().isOk())
+        .andExpect(content().string(containsString("\"result\":0.33333333333333333333333333333333,")));
+  }
+
+  @Test
+  void rejectsUnknownPrecision() throws Exception {
+    mockMvc.perform(post("/api/v1/expressions/calculate")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("{\"expression\":\"1+1\",\"precision\":\"EXTREME\"}"))
+        .andExpect(status().isBadRequest())
+        .andExpect(jsonPath("$.message").value("Malformed request body."));
+  }
+
+  @Test
+  void reportsStatsForRecentEvaluations() throws Exception {
+    // the suite runs this class twice against the same context, so tests that count use fresh operands
+    int operand = 9000 + FRESH_OPERANDS.incrementAndGet();
+    ExpressionRequest request = new ExpressionRequest();
+    request.setExpression(operand + "+9");
+    for (int i = 0; i < 3; i++) {
+      mockMvc.perform(post("/api/v1/expressions/calculate")
+              .contentType(MediaType.APPLICATION_JSON)
+              .content(objectMapper.writeValueAsString(request)))
+          .andExpect(status().isOk());
+    }
+
+    mockMvc.perform(get("/api/v1/expressions/stats").queryParam("minutes", "2"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.evaluations").isNumber())
+        .andExpect(jsonPath("$.perMinute.length()").value(2))
+        .andExpect(jsonPath("$.latencyMicros.p99").isNumber())
+        .andExpect(jsonPath("$.topExpressions[?(@.value == '9+" + operand + "')].count").value(3));
+
+    mockMvc.perform(get("/api/v1/expressions/stats").queryParam("minutes", "0"))
+        .andExpect(status().isBadRequest());
+  }
+
+  @Test
+  void negotiatesBinaryFormats() throws Exception {
+    CBORMapper cbor = new CBORMapper();
+    ExpressionRequest request = new ExpressionRequest();
+    request.setExpression("7.25*2");
+
+    byte[] calculated = mockMvc.perform(post("/api/v1/expressions/calculate")
+            .contentType(MediaType.APPLICATION_CBOR)
+            .accept(MediaType.APPLICATION_CBOR)
+            .content(cbor.writeValueAsBytes(request)))
+        .andExpect(status().isOk())
+        .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+        .andReturn().getResponse().getContentAsByteArray();
+    JsonNode response = cbor.readTree(calculated);
+    assertTrue(response.get("result").isBigDecimal());
+    assertEquals(new BigDecimal("14.5"), response.get("result").decimalValue());
+    assertTrue(response.get("createdAt").isIntegralNumber());
+
+    byte[] found = mockMvc.perform(get("/api/v1/expressions/find-by-result")
+            .queryParam("value", "14.5")
+            .accept("application/x-jackson-smile"))
+        .andExpect(status().isOk())
+        .andExpect(content().contentType("application/x-jackson-smile"))
+        .andReturn().getResponse().getContentAsByteArray();
+    JsonNode records = new SmileMapper().readTree(found);
+    assertEquals("7.25*2", records.get(0).get("expression").asText());
+    assertEquals(0, new BigDecimal("14.5").compareTo(records.get(0).get("result").decimalValue()));
+  }
+
+  @Test
+  void conditionalGetSkipsEvaluationForKnownExpression() throws Exception {
+    String etag = mockMvc.perform(get("/api/v1/expressions/calculate").queryParam("expression", "6100 + 6"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.result").value(6106))
+        .andExpect(header().string("Cache-Control", "max-age=86400, public"))
+        .andReturn().getResponse().getHeader("ETag");
+    assertTrue(etag.startsWith("W/\"parser-1-STANDARD-"), etag);
+
+    mockMvc.perform(get("/api/v1/expressions/calculate")
+            .queryParam("expression", "6+6100")
+            .header("If-None-Match", etag))
+        .andExpect(status().isNotModified())
+        .andExpect(header().string("ETag", etag));
+
+    mockMvc.perform(get("/api/v1/expressions/calculate")
+            .queryParam("expression", "6+6100")
+            .queryParam("precision", "HIGH")
+            .header("If-None-Match", etag))
+        .andExpect(status().isOk());
+
+    mockMvc.perform(get("/api/v1/expressions/calculate").queryParam("precision", "EXTREME")
+            .queryParam("expression", "1+1"))
+        .andExpect(status().isBadRequest());
+  }
+
+  @Test
+  void cacheableCalculateReportsTheSameErrorsAsPost() throws Exception {
+    mockMvc.perform(get("/api/v1/expressions/calculate").queryParam("expression", "1/0+"))
+        .andExpect(status().isUnprocessableEntity())
+        .andExpect(jsonPath("$.message").value("Division by zero."));
+  }
+
+  @Test
+  void findByResultRevalidatesUntilMatchingRecordIsStored() throws Exception {
+    int result = 6200 + FRESH_OPERANDS.incrementAndGet();
+    mockMvc.perform(get("/api/v1/expressions/calculate").queryParam("expression", (result - 6) + "+6"))
+        .andExpect(status().isOk());
+    String etag = mockMvc.perform(get("/api/v1/expressions/find-by-result").queryParam("value", "" + result))
+        .andExpect(status().isOk())
+        .andExpect(header().string("Cache-Control", "no-cache"))
+        .andExpect(jsonPath("$.length()").value(1))
+        .andReturn().getResponse().getHeader("ETag");
+
+    mockMvc.perform(get("/api/v1/expressions/find-by-result")
+            .queryParam("value", result + ".00")
+            .header("If-None-Match", etag))
+        .andExpect(status().isNotModified());
+
+    mockMvc.perform(get("/api/v1/expressions/calculate").queryParam("expression", result + "*1"))
+        .andExpect(status().isOk());
+
+    mockMvc.perform(get("/api/v1/expressions/find-by-result")
+            .queryParam("value", "" + result)
+            .header("If-None-Match", etag))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.length()").value(2));
+  }
+
+  @Test
+  void searchMatchesTextLiterallyAndPagesNewestFirst() throws Exception {
+    String marker = "" + (83000 + FRESH_OPERANDS.incrementAndGet());
+    mockMvc.perform(get("/api/v1/expressions/calculate").queryParam("expression", "(5+" + marker + ")%7"))
+        .andExpect(status().isOk());
+    mockMvc.perform(get("/api/v1/expressions/calculate").queryParam("expression", "(5+" + marker + ")*7"))
+        .andExpect(status().isOk());
+
+    String page = mockMvc.perform(get("/api/v1/expressions/search")
+            .queryParam("contains", "+" + marker + ")")
+            .queryParam("size", "1"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.items.length()").value(1))
+        .andExpect(jsonPath("$.items[0].expression").value("(5+" + marker + ")*7"))
+        .andReturn().getResponse().getContentAsString();
+    String nextBeforeId = objectMapper.readTree(page).get("nextBeforeId").asText();
+
+    mockMvc.perform(get("/api/v1/expressions/search")
+            .queryParam("contains", "+" + marker + ")")
+            .queryParam("size", "1")
+            .queryParam("beforeId", nextBeforeId))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.items[0].expression").value("(5+" + marker + ")%7"))
+        .andExpect(jsonPath("$.nextBeforeId").doesNotExist());
+
+    mockMvc.perform(get("/api/v1/expressions/search").queryParam("contains", marker + ")%7"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.items.length()").value(1));
+    mockMvc.perform(get("/api/v1/expressions/search").queryParam("contains", marker + ")_7"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.items.length()").value(0));
+  }
+
+  @Test
+  void searchFindsFragmentsWithoutTrigrams() throws Exception {
+    mockMvc.perform(get("/api/v1/expressions/calculate").queryParam("expression", "7^0.5*2+1"))
+        .andExpect(status().isOk());
+
+    mockMvc.perform(get("/api/v1/expressions/search").queryParam("contains", "^0.5*2+1").queryParam("size", "1"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.items.length()").value(1))
+        .andExpect(jsonPath("$.items[0].expression").value("7^0.5*2+1"));
+  }
+
+  @Test
+  void searchRejectsInvalidParameters() throws Exception {
+    mockMvc.perform(get("/api/v1/expressions/search").queryParam("contains", "^0"))
+        .andExpect(status().isBadRequest())
+        .andExpect(jsonPath("$.message").value("Search text must be between 3 and 1000 characters."));
+    mockMvc.perform(get("/api/v1/expressions/search").queryParam("contains", "^0.5").queryParam("size", "101"))
+        .andExpect(status().isBadRequest())
+        .andExpect(jsonPath("$.message").value("Size must be between 1 and 100."));
+  }
+
+  @Test
+  void exportsHistoryAsGzipCsv() throws Exception {
+    int operand = 8400 + FRESH_OPERANDS.incrementAndGet();
+    mockMvc.perform(get("/api/v1/expressions/calculate").queryParam("expression", operand + "+0.5"))
+        .andExpect(status().isOk());
+
+    byte[] body = mockMvc.perform(get("/api/v1/expressions/export").queryParam("status", "SUCCESS"))
+        .andExpect(status().isOk())
+        .andExpect(content().contentType("application/gzip"))
+        .andExpect(header().string("Content-Disposition", containsString("expression_records.csv.gz")))
+        .andReturn().getResponse().getContentAsByteArray();
+    String csv = new String(new GZIPInputStream(new ByteArrayInputStream(body)).readAllBytes(), StandardCharsets.UTF_8);
+    assertTrue(csv.startsWith("id,created_at,status,expression,result,error_message\n"));
+    assertTrue(csv.contains(",SUCCESS," + operand + "+0.5," + operand + ".5,\n"));
+
+    byte[] parquet = mockMvc.perform(get("/api/v1/expressions/export").queryParam("format", "PARQUET")
+            .queryParam("afterId", Long.toString(Long.MAX_VALUE)))
+        .andExpect(status().isOk())
+        .andExpect(content().contentType("application/vnd.apache.parquet"))
+        .andExpect(header().string("Content-Disposition", containsString("expression_records.parquet")))
+        .andReturn().getResponse().getContentAsByteArray();
+    String magic = new String(parquet, StandardCharsets.US_ASCII);
+    assertTrue(magic.startsWith("PAR1") && magic.endsWith("PAR1"));
+
+    mockMvc.perform(get("/api/v1/expressions/export").queryParam("from", "yesterday"))
+        .andExpect(status().isBadRequest());
+  }
+
   @Test
   void findByResultRequiresValue() throws Exception {
     mockMvc.perform(get("/api/v1/expressions/find-by-result"))
@@ -0,0 +1,81 @@
+package com.api.expeval.controller;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import com.api.expeval.export.ExportFormat;
+
+@SpringBootTest(properties = {"expeval.export.max-concurrent=1", "expeval.export.retry-after=45s"})
+@AutoConfigureMockMvc
+class HistoryExportControllerTest {
+
+  @Autowired
+  private MockMvc mockMvc;
+
+  @Autowired
+  private HistoryExportController controller;
+
+  @Test
+  void rejectsExportsOverTheLimitUntilOneFinishes() throws Exception {
+    CountDownLatch writing = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    // a download whose client does not read yet
+    MockHttpServletResponse slowClient = new MockHttpServletResponse() {
+      @Override
+      public ServletOutputStream getOutputStream() {
+        return new ServletOutputStream() {
+          @Override
+          public void write(int b) {
+            writing.countDown();
+            try {
+              release.await();
+            } catch (InterruptedException ex) {
+              Thread.currentThread().interrupt();
+            }
+          }
+
+          @Override
+          public boolean isReady() {
+            return true;
+          }
+
+          @Override
+          public void setWriteListener(WriteListener listener) {
+          }
+        };
+      }
+    };
+    CompletableFuture<Void> running = CompletableFuture.runAsync(() -> {
+      try {
+        controller.export(null, null, null, Long.MAX_VALUE, ExportFormat.CSV, slowClient);
+      } catch (Exception ex) {
+        throw new IllegalStateException(ex);
+      }
+    });
+    assertTrue(writing.await(10, TimeUnit.SECONDS));
+
+    mockMvc.perform(get("/api/v1/expressions/export"))
+        .andExpect(status().isServiceUnavailable())
+        .andExpect(header().string("Retry-After", "45"))
+        .andExpect(jsonPath("$.message").value("Too many exports in progress, retry later."));
+
+    release.countDown();
+    running.get(10, TimeUnit.SECONDS);
+    mockMvc.perform(get("/api/v1/expressions/export").queryParam("afterId", Long.toString(Long.MAX_VALUE)))
+        .andExpect(status().isOk());
+  }
+}
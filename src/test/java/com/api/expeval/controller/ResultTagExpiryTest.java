@@ -0,0 +1,50 @@
+package com.api.expeval.controller;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.api.expeval.model.ExpressionRecord;
+import com.api.expeval.model.ExpressionStatus;
+import com.api.expeval.repository.ExpressionRecordRepository;
+import java.math.BigDecimal;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+// runs with the real max-age bound rather than the 1d the other tests use to keep their tags stable
+@SpringBootTest(properties = "expeval.http.result-tag-max-age=300ms")
+@AutoConfigureMockMvc
+class ResultTagExpiryTest {
+
+  @Autowired
+  private MockMvc mockMvc;
+
+  @Autowired
+  private ExpressionRecordRepository repository;
+
+  @Test
+  void findByResultShowsRecordsStoredByAnotherInstanceOnceTheTagExpires() throws Exception {
+    BigDecimal result = BigDecimal.valueOf(System.nanoTime());
+    String etag = mockMvc.perform(get("/api/v1/expressions/find-by-result").queryParam("value", result.toString()))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.length()").value(0))
+        .andReturn().getResponse().getHeader("ETag");
+
+    // saved straight to the table, as another instance would, so this instance's tracker never hears of it
+    ExpressionRecord record = new ExpressionRecord();
+    record.setExpression(result + "+0");
+    record.setResult(result.setScale(16));
+    record.setStatus(ExpressionStatus.SUCCESS);
+    repository.save(record);
+
+    Thread.sleep(350);
+    mockMvc.perform(get("/api/v1/expressions/find-by-result")
+            .queryParam("value", result.toString())
+            .header("If-None-Match", etag))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.length()").value(1));
+  }
+}
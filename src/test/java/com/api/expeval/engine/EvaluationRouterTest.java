@@ -0,0 +1,92 @@
+package com.api.expeval.engine;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.function.BiFunction;
+import org.junit.jupiter.api.Test;
+import com.api.expeval.exception.ExpressionEvaluationException;
+import com.api.expeval.model.PrecisionProfile;
+
+class EvaluationRouterTest {
+  private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+  private static ExpressionEngine engine(String name, BiFunction<String, PrecisionProfile, BigDecimal> evaluator) {
+    return new ExpressionEngine() {
+      @Override
+      public String name() {
+        return name;
+      }
+
+      @Override
+      public BigDecimal evaluate(String expression, PrecisionProfile precision) {
+        return evaluator.apply(expression, precision);
+      }
+    };
+  }
+
+  private EvaluationRouter router(ExpressionEngine candidate) {
+    return new EvaluationRouter(List.of(new ParserExpressionEngine(), candidate), registry,
+        ParserExpressionEngine.NAME, candidate.name(), 1.0, false, Runnable::run);
+  }
+
+  private double comparisons(String outcome) {
+    return registry.get("expeval.engine.shadow.comparisons").tag("outcome", outcome).counter().count();
+  }
+
+  @Test
+  void countsMatchingResultsAndFailures() {
+    EvaluationRouter router = router(engine("copy", (expression, precision) ->
+        new ParserExpressionEngine().evaluate(expression, precision)));
+
+    assertEquals(new BigDecimal("7"), router.evaluate("3+4", PrecisionProfile.STANDARD));
+    assertThrows(ExpressionEvaluationException.class, () -> router.evaluate("1/0", PrecisionProfile.STANDARD));
+
+    assertEquals(2, comparisons("match"));
+    assertEquals(0, comparisons("result-mismatch"));
+    assertEquals(2, registry.get("expeval.engine.shadow.latency-ratio").summary().count());
+  }
+
+  @Test
+  void requiresBitExactResultsAndSameExceptionTypes() {
+    EvaluationRouter router = router(engine("sloppy", (expression, precision) -> {
+      if (expression.contains("/0")) {
+        throw new ArithmeticException("Division by zero");
+      }
+      return new ParserExpressionEngine().evaluate(expression, precision).setScale(2);
+    }));
+
+    assertEquals(new BigDecimal("0.5"), router.evaluate("1/2", PrecisionProfile.FAST).stripTrailingZeros());
+    assertThrows(ExpressionEvaluationException.class, () -> router.evaluate("1/0", PrecisionProfile.FAST));
+
+    assertEquals(1, comparisons("result-mismatch"));
+    assertEquals(1, comparisons("exception-mismatch"));
+    assertEquals(0, comparisons("match"));
+  }
+
+  @Test
+  void roundedComparisonIgnoresDigitsBeyondResultScale() {
+    EvaluationRouter router = new EvaluationRouter(List.of(new ParserExpressionEngine(), new RationalExpressionEngine()),
+        registry, ParserExpressionEngine.NAME, RationalExpressionEngine.NAME, 1.0, true, Runnable::run);
+
+    router.evaluate("2/3", PrecisionProfile.STANDARD);
+    router.evaluate("1/3*3", PrecisionProfile.STANDARD);
+
+    assertEquals(1, comparisons("match"));
+    assertEquals(1, comparisons("result-mismatch"));
+  }
+
+  @Test
+  void servesOnlyPrimaryResultsAndRejectsUnknownEngines() {
+    EvaluationRouter router = router(engine("broken", (expression, precision) -> {
+      throw new IllegalStateException("candidate failure");
+    }));
+
+    assertEquals(new BigDecimal("2"), router.evaluate("1+1", PrecisionProfile.STANDARD));
+    assertThrows(IllegalStateException.class, () -> new EvaluationRouter(List.of(new ParserExpressionEngine()),
+        registry, "missing", "", 0, false, Runnable::run));
+  }
+}
@@ -0,0 +1,55 @@
+package com.api.expeval.engine;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import com.api.expeval.exception.ExpressionEvaluationException;
+import com.api.expeval.model.PrecisionProfile;
+import com.api.expeval.service.ExpressionService;
+
+class RationalExpressionEngineTest {
+  private final RationalExpressionEngine rational = new RationalExpressionEngine();
+  private final ParserExpressionEngine parser = new ParserExpressionEngine();
+
+  private BigDecimal stored(ExpressionEngine engine, String expression) {
+    return engine.evaluate(expression, PrecisionProfile.STANDARD)
+        .setScale(ExpressionService.RESULT_SCALE, RoundingMode.HALF_UP);
+  }
+
+  @Test
+  void doesNotAccumulateRoundingErrorInDivisionChains() {
+    assertEquals(new BigDecimal("0.9999999999999999"), stored(parser, "1/3*3"));
+    assertEquals(new BigDecimal("1.0000000000000000"), stored(rational, "1/3*3"));
+    assertEquals(new BigDecimal("1.3000000000000000"), stored(rational, "(1/7)*7 + 0.1 + 0.2"));
+    assertEquals(new BigDecimal("0.6666666666666667"), stored(rational, "2/3"));
+    assertEquals(new BigDecimal("1"), rational.evaluate("(2/3)/(4/6)", PrecisionProfile.HIGH));
+  }
+
+  @Test
+  void agreesWithParserWhereItIsExact() {
+    for (String expression : List.of("3+4*6-12", "2^10", "2^-2", "-(2.5)^3", "min(1/4, 0.3)", "abs(-5/2)", "7%3",
+        "-7%3", "7.5%2", "sqrt(16)", "2^0.5", "ln(1)+exp(0)", "max(1, 2, 3)/8")) {
+      assertEquals(stored(parser, expression), stored(rational, expression), expression);
+    }
+  }
+
+  @Test
+  void failsLikeParser() {
+    for (String expression : List.of("1/0", "5%0", "0^-1", "1+", "2*(3", "foo(1)", "1..2", "sqrt(-1)", "ln(0)")) {
+      RuntimeException expected = assertThrows(RuntimeException.class, () -> stored(parser, expression));
+      RuntimeException actual = assertThrows(RuntimeException.class, () -> stored(rational, expression));
+      assertEquals(expected.getClass(), actual.getClass(), expression);
+      assertEquals(expected.getMessage(), actual.getMessage(), expression);
+    }
+  }
+
+  @Test
+  void boundsExactPowers() {
+    assertEquals(30103, rational.evaluate("2^100000", PrecisionProfile.FAST).precision());
+    assertThrows(ExpressionEvaluationException.class, () -> rational.evaluate("10^200000", PrecisionProfile.FAST));
+  }
+}
@@ -0,0 +1,164 @@
+package com.api.expeval.export;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import com.api.expeval.model.ExpressionRecord;
+import com.api.expeval.model.ExpressionStatus;
+import com.api.expeval.repository.ExpressionRecordRepository;
+
+@SpringBootTest(properties = "expeval.export.checkpoint-rows=1")
+class HistoryExporterTest {
+
+  @TempDir
+  Path directory;
+
+  @Autowired
+  private HistoryExporter exporter;
+
+  @Autowired
+  private ExpressionRecordRepository repository;
+
+  private ExpressionRecord save(String expression, BigDecimal result, String errorMessage) {
+    ExpressionRecord record = new ExpressionRecord();
+    record.setExpression(expression);
+    record.setResult(result);
+    record.setStatus(result == null ? ExpressionStatus.ERROR : ExpressionStatus.SUCCESS);
+    record.setErrorMessage(errorMessage);
+    // reloaded, so created_at carries the precision the database kept
+    return repository.findById(repository.save(record).getId()).orElseThrow();
+  }
+
+  private static String row(ExpressionRecord record, String rest) {
+    return record.getId() + "," + record.getCreatedAt() + "," + rest + "\n";
+  }
+
+  private static String gunzip(byte[] bytes) throws IOException {
+    try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+      return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+    }
+  }
+
+  private static byte[] gzip(String text) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (OutputStream out = new GZIPOutputStream(bytes)) {
+      out.write(text.getBytes(StandardCharsets.UTF_8));
+    }
+    return bytes.toByteArray();
+  }
+
+  @Test
+  void exportsRowsAfterCheckpointAsQuotedCsv() throws IOException {
+    // the suite runs every test class a second time, so rows are selected after a fresh checkpoint
+    long afterId = save("1+1", new BigDecimal("2.0000000000000000"), null).getId();
+    ExpressionRecord success = save("min(4, 2.5)", new BigDecimal("2.5000000000000000"), null);
+    ExpressionRecord error = save("1/0", null, "Division by zero, \"0\".");
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    long rows = exporter.export(new ExportFilter(null, null, null, afterId), ExportFormat.CSV, out);
+
+    assertEquals(2, rows);
+    assertEquals(HistoryExporter.HEADER
+            + row(success, "SUCCESS,\"min(4, 2.5)\",2.5,")
+            + row(error, "ERROR,1/0,,\"Division by zero, \"\"0\"\".\""),
+        gunzip(out.toByteArray()));
+
+    out.reset();
+    exporter.export(new ExportFilter(null, null, ExpressionStatus.ERROR, afterId), ExportFormat.CSV, out);
+    assertEquals(HistoryExporter.HEADER + row(error, "ERROR,1/0,,\"Division by zero, \"\"0\"\".\""),
+        gunzip(out.toByteArray()));
+
+    out.reset();
+    exporter.export(new ExportFilter(null, success.getCreatedAt(), null, afterId), ExportFormat.CSV, out);
+    assertEquals(HistoryExporter.HEADER, gunzip(out.toByteArray()));
+  }
+
+  @Test
+  void resumesInterruptedFileExportFromCheckpoint() throws IOException {
+    long afterId = save("2+2", new BigDecimal("4.0000000000000000"), null).getId();
+    ExpressionRecord first = save("3+3", new BigDecimal("6.0000000000000000"), null);
+    ExpressionRecord second = save("4+4", new BigDecimal("8.0000000000000000"), null);
+    ExpressionRecord third = save("5+5", new BigDecimal("10.0000000000000000"), null);
+    String expected = HistoryExporter.HEADER + row(first, "SUCCESS,3+3,6,") + row(second, "SUCCESS,4+4,8,")
+        + row(third, "SUCCESS,5+5,10,");
+    ExportFilter filter = new ExportFilter(null, null, null, afterId);
+
+    Path complete = directory.resolve("complete.csv.gz");
+    assertEquals(3, exporter.exportToFile(filter, complete));
+    assertEquals(expected, gunzip(Files.readAllBytes(complete)));
+    assertFalse(Files.exists(directory.resolve("complete.csv.gz.checkpoint")));
+
+    // a run that died after checkpointing the first row, in the middle of writing the next member
+    Path interrupted = directory.resolve("interrupted.csv.gz");
+    byte[] checkpointed = gzip(HistoryExporter.HEADER + row(first, "SUCCESS,3+3,6,"));
+    Files.write(interrupted, checkpointed);
+    Files.write(interrupted, new byte[] {0x1f, (byte) 0x8b, 8, 0, 42}, StandardOpenOption.APPEND);
+    Path checkpoint = directory.resolve("interrupted.csv.gz.checkpoint");
+    Files.writeString(checkpoint, "afterId=" + afterId + "\nformat=CSV\noffset=" + checkpointed.length
+        + "\nlastId=" + first.getId() + "\n");
+
+    // resuming with another filter would mix its rows into the file
+    ExportFilter other = new ExportFilter(null, null, ExpressionStatus.SUCCESS, afterId);
+    assertThrows(IllegalStateException.class, () -> exporter.exportToFile(other, interrupted));
+    assertTrue(Files.exists(checkpoint));
+    assertEquals(2, exporter.exportToFile(filter, interrupted));
+    assertEquals(expected, gunzip(Files.readAllBytes(interrupted)));
+    assertFalse(Files.exists(directory.resolve("interrupted.csv.gz.checkpoint")));
+  }
+
+  @Test
+  void resumesInterruptedParquetExportFromCheckpoint() throws IOException {
+    long afterId = save("6+6", new BigDecimal("12.0000000000000000"), null).getId();
+    ExpressionRecord first = save("7*7", new BigDecimal("49.0000000000000000"), null);
+    ExpressionRecord second = save("7/0", null, "Division by zero.");
+    ExportFilter filter = new ExportFilter(null, null, null, afterId);
+
+    Path complete = directory.resolve("complete.parquet");
+    assertEquals(2, exporter.exportToFile(filter, complete));
+    byte[] expected = Files.readAllBytes(complete);
+    assertArrayEquals(ParquetHistoryWriter.MAGIC, Arrays.copyOfRange(expected, 0, 4));
+    assertArrayEquals(ParquetHistoryWriter.MAGIC, Arrays.copyOfRange(expected, expected.length - 4, expected.length));
+    ByteArrayOutputStream streamed = new ByteArrayOutputStream();
+    assertEquals(2, exporter.export(filter, ExportFormat.PARQUET, streamed));
+    assertArrayEquals(expected, streamed.toByteArray());
+
+    // a run that died after checkpointing the row group of the first row, in the middle of the next
+    ByteArrayOutputStream checkpointed = new ByteArrayOutputStream();
+    ParquetHistoryWriter writer = new ParquetHistoryWriter(checkpointed);
+    writer.write(first.getId(), first.getCreatedAt(), "SUCCESS", "7*7", first.getResult(), null);
+    writer.endRowGroup();
+    ParquetHistoryWriter.ParquetState state = writer.state();
+    Path interrupted = directory.resolve("interrupted.parquet");
+    Files.write(interrupted, checkpointed.toByteArray());
+    Files.write(interrupted, new byte[] {21, 0, 21, 42}, StandardOpenOption.APPEND);
+    Files.writeString(directory.resolve("interrupted.parquet.checkpoint"),
+        "afterId=" + afterId + "\nformat=PARQUET\noffset=" + state.position() + "\nlastId=" + first.getId()
+            + "\nrows=" + state.rows() + "\nrowGroups="
+            + Base64.getEncoder().encodeToString(state.rowGroups().get(0)) + "\n");
+
+    assertEquals(1, exporter.exportToFile(filter, interrupted));
+    assertArrayEquals(expected, Files.readAllBytes(interrupted));
+    assertFalse(Files.exists(directory.resolve("interrupted.parquet.checkpoint")));
+  }
+}
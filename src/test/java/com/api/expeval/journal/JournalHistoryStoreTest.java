@@ -0,0 +1,153 @@
+package com.api.expeval.journal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import com.api.expeval.model.ExpressionRecord;
+import com.api.expeval.model.ExpressionStatus;
+
+class JournalHistoryStoreTest {
+  private static final int SEGMENT_BYTES = 1 << 20;
+
+  @TempDir
+  Path directory;
+
+  private JournalHistoryStore open(boolean syncWrites) {
+    return open(syncWrites, 16);
+  }
+
+  private JournalHistoryStore open(boolean syncWrites, int maxSegments) {
+    return new JournalHistoryStore(new Journal(directory, SEGMENT_BYTES, 5, syncWrites, maxSegments));
+  }
+
+  private static ExpressionRecord success(String expression, String result) {
+    ExpressionRecord record = new ExpressionRecord();
+    record.setExpression(expression);
+    record.setResult(new BigDecimal(result));
+    record.setStatus(ExpressionStatus.SUCCESS);
+    return record;
+  }
+
+  private static ExpressionRecord error(String expression, String message) {
+    ExpressionRecord record = new ExpressionRecord();
+    record.setExpression(expression);
+    record.setStatus(ExpressionStatus.ERROR);
+    record.setErrorMessage(message);
+    return record;
+  }
+
+  @Test
+  void findsSavedRecordsByResult() {
+    JournalHistoryStore store = open(false);
+    store.save(success("1+2", "3.0000000000000000"), null);
+    store.save(error("1/0", "Division by zero."), null);
+    store.save(success("6/2", "3.0000000000000000"), null);
+    store.save(success("2*2", "4.0000000000000000"), null);
+
+    List<ExpressionRecord> records = store.findByResult(new BigDecimal("3.0000000000000000"));
+    assertEquals(List.of("1+2", "6/2"), records.stream().map(ExpressionRecord::getExpression).toList());
+    assertEquals(0L, records.get(0).getId());
+    assertEquals(2L, records.get(1).getId());
+    assertEquals(0, new BigDecimal("3").compareTo(records.get(0).getResult()));
+    assertEquals(ExpressionStatus.SUCCESS, records.get(0).getStatus());
+    store.close();
+  }
+
+  @Test
+  void recoversRecordsAfterReopen() {
+    JournalHistoryStore store = open(true);
+    store.save(success("1+1", "2.0000000000000000"), null);
+    ExpressionRecord failed = error("1/0", "Division by zero.");
+    store.save(failed, null);
+    store.close();
+
+    JournalHistoryStore reopened = open(false);
+    reopened.save(success("4/2", "2.0000000000000000"), null);
+    List<ExpressionRecord> records = reopened.findByResult(new BigDecimal("2"));
+    assertEquals(List.of("1+1", "4/2"), records.stream().map(ExpressionRecord::getExpression).toList());
+    assertEquals(2L, records.get(1).getId());
+    reopened.close();
+  }
+
+  @Test
+  void rollsOverToNewSegments() {
+    JournalHistoryStore store = open(false);
+    String padding = "1+".repeat(4000) + "1";
+    for (int i = 0; i < 200; i++) {
+      store.save(success(padding, "4001.0000000000000000"), null);
+    }
+    assertEquals(200, store.findByResult(new BigDecimal("4001")).size());
+    store.close();
+
+    JournalHistoryStore reopened = open(false);
+    assertEquals(200, reopened.findByResult(new BigDecimal("4001")).size());
+    reopened.close();
+  }
+
+  @Test
+  void deletesSegmentsBeyondTheKeptOnesWithTheirIndex() throws IOException {
+    JournalHistoryStore store = open(false, 2);
+    String padding = "1+".repeat(4000) + "1";
+    for (int i = 0; i < 400; i++) {
+      store.save(success(padding, "4001.0000000000000000"), null);
+    }
+    store.save(success("1+1", "2.0000000000000000"), null);
+
+    List<ExpressionRecord> kept = store.findByResult(new BigDecimal("4001"));
+    assertTrue(kept.size() > 0 && kept.size() < 400, "kept " + kept.size());
+    assertEquals(399L, kept.get(kept.size() - 1).getId());
+    assertEquals(1, store.findByResult(new BigDecimal("2")).size());
+    try (Stream<Path> files = Files.list(directory)) {
+      assertEquals(2, files.count());
+    }
+    store.close();
+
+    JournalHistoryStore reopened = open(false, 2);
+    assertEquals(kept.size(), reopened.findByResult(new BigDecimal("4001")).size());
+    reopened.save(success("3-1", "2.0000000000000000"), null);
+    assertEquals(List.of(400L, 401L), reopened.findByResult(new BigDecimal("2")).stream()
+        .map(ExpressionRecord::getId).toList());
+    reopened.close();
+  }
+
+  @Test
+  void discardsTornTailOnRecovery() throws IOException {
+    JournalHistoryStore store = open(true);
+    store.save(success("1+1", "2.0000000000000000"), null);
+    store.save(success("3-1", "2.0000000000000000"), null);
+    store.close();
+
+    Path segment;
+    try (Stream<Path> files = Files.list(directory)) {
+      segment = files.findFirst().orElseThrow();
+    }
+    try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+      ByteBuffer header = ByteBuffer.allocate(4);
+      channel.read(header, Journal.SEGMENT_HEADER_BYTES);
+      int secondEntry = Journal.SEGMENT_HEADER_BYTES + JournalRecordCodec.HEADER_BYTES + header.flip().getInt();
+      channel.write(ByteBuffer.wrap(new byte[] {0x7f}), secondEntry + JournalRecordCodec.HEADER_BYTES + 3);
+    }
+
+    JournalHistoryStore reopened = open(false);
+    List<ExpressionRecord> records = reopened.findByResult(new BigDecimal("2"));
+    assertEquals(List.of("1+1"), records.stream().map(ExpressionRecord::getExpression).toList());
+    reopened.save(success("5-3", "2.0000000000000000"), null);
+    records = reopened.findByResult(new BigDecimal("2"));
+    assertEquals(List.of("1+1", "5-3"), records.stream().map(ExpressionRecord::getExpression).toList());
+    assertEquals(1L, records.get(1).getId());
+    assertNull(records.get(1).getErrorMessage());
+    reopened.close();
+  }
+}
@@ -0,0 +1,60 @@
+package com.api.expeval.journal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.nio.file.Path;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+// the deployment the README describes for running without Postgres
+@SpringBootTest(properties = {"expeval.history.store=journal",
+    "spring.autoconfigure.exclude=org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration,"
+        + "org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration"})
+@AutoConfigureMockMvc
+class JournalStoreApplicationTest {
+
+  @TempDir
+  static Path journalDirectory;
+
+  @DynamicPropertySource
+  static void journalProperties(DynamicPropertyRegistry registry) {
+    registry.add("expeval.history.journal.directory", journalDirectory::toString);
+  }
+
+  @Autowired
+  private MockMvc mockMvc;
+
+  @Autowired
+  private ApplicationContext context;
+
+  @Test
+  void startsWithoutDatabaseAndServesHistoryFromJournal() throws Exception {
+    assertEquals(0, context.getBeanNamesForType(DataSource.class).length);
+    long operand = System.nanoTime() % 1_000_000_000L;
+
+    mockMvc.perform(get("/api/v1/expressions/calculate").queryParam("expression", operand + "+0.5"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.result").value(operand + 0.5));
+    mockMvc.perform(get("/api/v1/expressions/calculate").queryParam("expression", "1/0"))
+        .andExpect(status().isUnprocessableEntity());
+
+    mockMvc.perform(get("/api/v1/expressions/find-by-result").queryParam("value", operand + ".5"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.length()").value(1))
+        .andExpect(jsonPath("$[0].expression").value(operand + "+0.5"));
+    mockMvc.perform(get("/api/v1/expressions/search").queryParam("contains", Long.toString(operand)))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.items.length()").value(0));
+  }
+}
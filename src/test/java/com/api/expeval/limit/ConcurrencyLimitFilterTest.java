@@ -0,0 +1,96 @@
+package com.api.expeval.limit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+class ConcurrencyLimitFilterTest {
+  private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+  private final ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(
+      new ObjectMapper().findAndRegisterModules(), registry, 1, 1, 1, 1.0, 30, Duration.ofSeconds(2));
+
+  private static MockHttpServletRequest request(String path) {
+    MockHttpServletRequest request = new MockHttpServletRequest("POST", path);
+    request.setRequestURI(path);
+    return request;
+  }
+
+  @Test
+  void rejectsRequestsOverTheLimitWithRetryAfter() throws Exception {
+    CountDownLatch entered = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    CompletableFuture<Void> first = CompletableFuture.runAsync(() -> {
+      try {
+        filter.doFilter(request(ConcurrencyLimitFilter.LIMITED_PATH), new MockHttpServletResponse(),
+            (req, res) -> {
+              entered.countDown();
+              try {
+                release.await();
+              } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+              }
+            });
+      } catch (Exception ex) {
+        throw new IllegalStateException(ex);
+      }
+    });
+    assertTrue(entered.await(5, TimeUnit.SECONDS));
+
+    MockHttpServletResponse rejected = new MockHttpServletResponse();
+    filter.doFilter(request(ConcurrencyLimitFilter.LIMITED_PATH), rejected, new MockFilterChain());
+    MockHttpServletResponse unlimited = new MockHttpServletResponse();
+    filter.doFilter(request("/api/v1/expressions/find-by-result"), unlimited, new MockFilterChain());
+
+    assertEquals(503, rejected.getStatus());
+    assertEquals("2", rejected.getHeader("Retry-After"));
+    assertTrue(rejected.getContentAsString().contains("\"status\":503"));
+    assertEquals(200, unlimited.getStatus());
+    assertEquals(1.0, registry.get("expeval.limit.rejected").counter().count());
+    assertEquals(1.0, registry.get("expeval.limit.in-flight").gauge().value());
+
+    release.countDown();
+    first.get(5, TimeUnit.SECONDS);
+    MockHttpServletResponse accepted = new MockHttpServletResponse();
+    filter.doFilter(request(ConcurrencyLimitFilter.LIMITED_PATH), accepted, new MockFilterChain());
+    assertEquals(200, accepted.getStatus());
+    assertEquals(1.0, registry.get("expeval.limit.current").gauge().value());
+  }
+
+  @Test
+  void samplesOnlyEvaluationLatency() throws Exception {
+    // a window of one sample, so the first sampled request sets the baseline
+    ConcurrencyLimitFilter sampling = new ConcurrencyLimitFilter(new ObjectMapper(), new SimpleMeterRegistry(),
+        1, 1, 1, 1.0, 1, Duration.ofSeconds(1));
+
+    for (int status : new int[] {304, 400, 422}) {
+      sampling.doFilter(request(ConcurrencyLimitFilter.LIMITED_PATH), new MockHttpServletResponse(),
+          (req, res) -> ((MockHttpServletResponse) res).setStatus(status));
+    }
+    sampling.doFilter(request(ConcurrencyLimitFilter.LIMITED_PATH), new MockHttpServletResponse(), (req, res) -> {
+      RequestContextHolder.setRequestAttributes(new ServletRequestAttributes((HttpServletRequest) req));
+      try {
+        ConcurrencyLimitFilter.skipLatencySample();
+      } finally {
+        RequestContextHolder.resetRequestAttributes();
+      }
+    });
+    assertEquals(0, sampling.noLoadNanos());
+
+    sampling.doFilter(request(ConcurrencyLimitFilter.LIMITED_PATH), new MockHttpServletResponse(),
+        new MockFilterChain());
+    assertTrue(sampling.noLoadNanos() > 0);
+  }
+}
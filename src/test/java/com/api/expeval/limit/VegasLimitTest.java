@@ -0,0 +1,91 @@
+package com.api.expeval.limit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class VegasLimitTest {
+  private static final long MILLI = 1_000_000L;
+
+  // app-limited samples, which fill the first window without moving the limit
+  private static void learnBaseline(VegasLimit limit, long latencyNanos) {
+    while (limit.noLoadNanos() == 0) {
+      limit.update(latencyNanos, 1, false);
+    }
+  }
+
+  @Test
+  void holdsUntilFirstWindowIsComplete() {
+    VegasLimit limit = new VegasLimit(20, 4, 200, 1.0, 1);
+    for (int i = 0; i < 19; i++) {
+      limit.update(10 * MILLI, 20, false);
+    }
+    assertEquals(20, limit.limit());
+    assertEquals(0, limit.noLoadNanos());
+  }
+
+  @Test
+  void growsWhileLatencyStaysAtNoLoadLevel() {
+    VegasLimit limit = new VegasLimit(20, 4, 200, 1.0, 1000);
+    learnBaseline(limit, 10 * MILLI);
+
+    for (int i = 0; i < 10; i++) {
+      limit.update(10 * MILLI, limit.limit(), false);
+    }
+
+    assertTrue(limit.limit() > 100, "limit was " + limit.limit());
+  }
+
+  @Test
+  void shrinksWhenRequestsQueueAndStopsAtMinimum() {
+    VegasLimit limit = new VegasLimit(100, 4, 200, 1.0, 1000);
+    learnBaseline(limit, 10 * MILLI);
+
+    limit.update(50 * MILLI, 100, false);
+    assertEquals(98, limit.limit());
+
+    for (int i = 0; i < 200; i++) {
+      limit.update(50 * MILLI, limit.limit(), false);
+    }
+    assertTrue(limit.limit() <= 10, "limit was " + limit.limit());
+    for (int i = 0; i < 10; i++) {
+      limit.update(50 * MILLI, limit.limit(), true);
+    }
+    assertEquals(4, limit.limit());
+  }
+
+  @Test
+  void shrinksOnOverloadErrorsAndIgnoresLatencyWhenAppLimited() {
+    VegasLimit limit = new VegasLimit(100, 4, 200, 1.0, 1000);
+    learnBaseline(limit, 10 * MILLI);
+
+    limit.update(10 * MILLI, 10, false);
+    assertEquals(100, limit.limit());
+    limit.update(10 * MILLI, 10, true);
+    assertEquals(98, limit.limit());
+  }
+
+  @Test
+  void singleFastSampleDoesNotBecomeTheBaseline() {
+    VegasLimit limit = new VegasLimit(10, 4, 200, 1.0, 10);
+    limit.update(MILLI / 10, 1, false);
+    learnBaseline(limit, 10 * MILLI);
+
+    assertEquals(10 * MILLI, limit.noLoadNanos());
+  }
+
+  @Test
+  void relearnsNoLoadLatencyEveryWindow() {
+    VegasLimit limit = new VegasLimit(10, 4, 200, 1.0, 1);
+    learnBaseline(limit, 10 * MILLI);
+    for (int i = 0; i < 9; i++) {
+      limit.update(40 * MILLI, 1, false);
+    }
+    assertEquals(10 * MILLI, limit.noLoadNanos());
+
+    limit.update(40 * MILLI, 1, false);
+
+    assertEquals(40 * MILLI, limit.noLoadNanos());
+  }
+}
@@ -0,0 +1,156 @@
+package com.api.expeval.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import com.api.expeval.dto.ExpressionResponse;
+import com.api.expeval.exception.ExpressionEvaluationException;
+import com.api.expeval.exception.ServiceOverloadedException;
+import com.api.expeval.model.ExpressionRecord;
+import com.api.expeval.model.ExpressionStatus;
+import com.api.expeval.model.PrecisionProfile;
+import com.api.expeval.model.UniqueExpression;
+import com.api.expeval.repository.UniqueExpressionRepository;
+import com.api.expeval.util.CanonicalExpression;
+import com.api.expeval.util.ExpressionCanonicalizer;
+
+@SpringBootTest(properties = {
+    "expeval.history.store=deduplicated",
+    "expeval.history.flush-batch-size=1"
+})
+class DeduplicatedHistoryServiceTest {
+
+  @Autowired
+  private ExpressionService expressionService;
+
+  @Autowired
+  private DeduplicatedHistoryService historyService;
+
+  @Autowired
+  private UniqueExpressionRepository repository;
+
+  @Autowired
+  private DataSource dataSource;
+
+  @Autowired
+  private PlatformTransactionManager transactionManager;
+
+  @Test
+  void countsEquivalentExpressionsOnce() {
+    long before = occurrences("STANDARD:1+4000");
+    expressionService.evaluate("4000+1");
+    expressionService.evaluate(" 1 + 4000 ");
+    expressionService.evaluate("(4000)+(1)");
+
+    List<ExpressionResponse> beforeFlush = expressionService.findByResult(new BigDecimal("4001"));
+    assertEquals(before + 3, beforeFlush.size());
+    assertNotNull(beforeFlush.get(0).getId());
+    assertTrue(beforeFlush.stream().allMatch(response -> response.getExpression().equals("4000+1")));
+
+    historyService.flush();
+    expressionService.evaluate("4000 + 1");
+    historyService.flush();
+
+    List<UniqueExpression> stored = repository.findByResult(new BigDecimal("4001"));
+    assertEquals(1, stored.size());
+    assertEquals(before + 4, stored.get(0).getOccurrences());
+    assertEquals(before + 4, expressionService.findByResult(new BigDecimal("4001")).size());
+  }
+
+  @Test
+  void refusesNewExpressionsWhileTooManyArePending() {
+    DeduplicatedHistoryService capped = new DeduplicatedHistoryService(repository, dataSource, transactionManager,
+        500, 1, 5000);
+    long value = System.nanoTime();
+    capped.save(success(value), null);
+    capped.save(success(value), null);
+
+    ServiceOverloadedException ex = assertThrows(ServiceOverloadedException.class,
+        () -> capped.save(success(value + 1), null));
+    assertEquals(Duration.ofSeconds(5), ex.getRetryAfter());
+
+    capped.flush();
+    capped.save(success(value + 1), null);
+    capped.flush();
+    assertEquals(2, repository.findByResult(BigDecimal.valueOf(value)).get(0).getOccurrences());
+    assertEquals(1, repository.findByResult(BigDecimal.valueOf(value + 1)).get(0).getOccurrences());
+  }
+
+  @Test
+  void storesErrorsOncePerExpression() {
+    long before = occurrences("STANDARD:77/0");
+    assertThrows(ExpressionEvaluationException.class, () -> expressionService.evaluate("77/0"));
+    assertThrows(ExpressionEvaluationException.class, () -> expressionService.evaluate("77 / 0"));
+    historyService.flush();
+
+    assertTrue(repository.findAll().stream()
+        .anyMatch(unique -> unique.getExpression().equals("77/0")
+            && unique.getStatus() == ExpressionStatus.ERROR
+            && unique.getOccurrences() == before + 2));
+  }
+
+  @Test
+  void doesNotRecountChunksCommittedBeforeAFailure() {
+    long first = System.nanoTime();
+    long second = first + 1;
+    expressionService.evaluate(first + "*1");
+    historyService.save(tooLong(), null);
+    expressionService.evaluate(second + "*1");
+    historyService.flush();
+    historyService.flush();
+
+    assertEquals(1, repository.findByResult(BigDecimal.valueOf(first)).get(0).getOccurrences());
+    assertEquals(1, repository.findByResult(BigDecimal.valueOf(second)).get(0).getOccurrences());
+  }
+
+  @Test
+  void instancesSharingTheDatabaseAddUpOneRow() {
+    DeduplicatedHistoryService other = new DeduplicatedHistoryService(repository, dataSource, transactionManager, 500,
+        100, 5000);
+    long value = System.nanoTime();
+    CanonicalExpression canonical = ExpressionCanonicalizer.canonicalize(value + "*1", PrecisionProfile.STANDARD);
+    historyService.save(success(value), canonical);
+    other.save(success(value), canonical);
+    other.save(success(value), canonical);
+    historyService.flush();
+    other.flush();
+
+    List<UniqueExpression> stored = repository.findByResult(BigDecimal.valueOf(value));
+    assertEquals(1, stored.size());
+    assertEquals(3, stored.get(0).getOccurrences());
+  }
+
+  private static ExpressionRecord success(long value) {
+    ExpressionRecord record = new ExpressionRecord();
+    record.setExpression(value + "*1");
+    record.setResult(BigDecimal.valueOf(value));
+    record.setStatus(ExpressionStatus.SUCCESS);
+    return record;
+  }
+
+  private static ExpressionRecord tooLong() {
+    ExpressionRecord record = new ExpressionRecord();
+    record.setExpression("1".repeat(4096));
+    record.setStatus(ExpressionStatus.ERROR);
+    record.setErrorMessage("Expression is too long.");
+    return record;
+  }
+
+  // the suite runs every test class a second time against the same database
+  private long occurrences(String canonicalKey) {
+    return repository.findAll().stream()
+        .filter(unique -> unique.getCanonicalKey().equals(canonicalKey))
+        .mapToLong(UniqueExpression::getOccurrences)
+        .sum();
+  }
+}
@@ -0,0 +1,32 @@
+package com.api.expeval.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import com.api.expeval.dto.ExpressionSearchResponse;
+
+@SpringBootTest(properties = "expeval.search.scan-rows=2")
+class ExpressionSearchScanTest {
+
+  @Autowired
+  private ExpressionService expressionService;
+
+  @Test
+  void fragmentsWithoutTrigramsScanOneWindowOfIdsPerPage() {
+    long operand = System.nanoTime() % 1_000_000;
+    expressionService.evaluate(operand + "*0.5");
+    expressionService.evaluate(operand + "+1");
+    expressionService.evaluate(operand + "+2");
+
+    ExpressionSearchResponse newest = expressionService.search("*0.5", null, 1);
+    assertTrue(newest.getItems().isEmpty());
+    assertNotNull(newest.getNextBeforeId());
+
+    ExpressionSearchResponse older = expressionService.search("*0.5", newest.getNextBeforeId(), 1);
+    assertEquals(operand + "*0.5", older.getItems().get(0).getExpression());
+  }
+}
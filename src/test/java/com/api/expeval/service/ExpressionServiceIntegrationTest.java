@@ -2,6 +2,7 @@ package com.api.expeval.service;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -12,6 +13,7 @@ import org.springframework.boot.test.context.SpringBootTest;
 import com.api.expeval.model.ExpressionRecord;
 import com.api.expeval.model.ExpressionStatus;
 import com.api.expeval.repository.ExpressionRecordRepository;
+import com.api.expeval.exception.ExpressionEvaluationException;
 import com.api.expeval.exception.ExpressionValidationException;
 
 @SpringBootTest
@@ -55,6 +57,37 @@ class ExpressionServiceIntegrationTest {
         assertTrue(foundErrorRecord, "Validation error record should be persisted in the database");
     }
 
+    @Test
+    void testRejectedExpressionIsAnsweredFromNegativeCache() {
+        long persisted = errorRecords("4 + * 4");
+        ExpressionValidationException first = assertThrows(ExpressionValidationException.class,
+                () -> expressionService.evaluate("4 + * 4"));
+        ExpressionValidationException second = assertThrows(ExpressionValidationException.class,
+                () -> expressionService.evaluate("4 + * 4"));
+        ExpressionEvaluationException divided = assertThrows(ExpressionEvaluationException.class,
+                () -> expressionService.evaluate("4/0"));
+
+        assertSame(first, second);
+        assertEquals(0, first.getStackTrace().length);
+        assertSame(divided, assertThrows(ExpressionEvaluationException.class,
+                () -> expressionService.evaluate(" 4 / 0.0 ")));
+        assertEquals(persisted + 2, errorRecords("4 + * 4"));
+    }
+
+    @Test
+    void testFirstErrorMetWhileEvaluatingIsReported() {
+        ExpressionEvaluationException ex = assertThrows(ExpressionEvaluationException.class,
+                () -> expressionService.evaluate("1/0+"));
+        assertEquals("Division by zero.", ex.getMessage());
+        assertThrows(ExpressionValidationException.class, () -> expressionService.evaluate("1+0/"));
+    }
+
+    private long errorRecords(String expression) {
+        return repository.findAll().stream()
+                .filter(r -> r.getExpression().equals(expression) && r.getStatus() == ExpressionStatus.ERROR)
+                .count();
+    }
+
     @Test
     void testFindByResultNull() {
         assertThrows(ExpressionValidationException.class, () -> {
@@ -0,0 +1,76 @@
+package com.api.expeval.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import org.junit.jupiter.api.Test;
+
+class ResultChangeTrackerTest {
+  private final MutableClock clock = new MutableClock(Instant.parse("2026-01-01T00:00:00Z"));
+  private final ResultChangeTracker tracker = new ResultChangeTracker(16, Duration.ofSeconds(10), clock);
+
+  @Test
+  void tagChangesWhenResultIsStoredHere() {
+    BigDecimal result = new BigDecimal("42");
+    String tag = tracker.etag(result);
+    assertEquals(tag, tracker.etag(result));
+
+    tracker.changed(result);
+    assertNotEquals(tag, tracker.etag(result));
+  }
+
+  @Test
+  void tagExpiresSoRecordsStoredElsewhereShowUp() {
+    BigDecimal result = new BigDecimal("42");
+    String tag = tracker.etag(result);
+
+    clock.advance(Duration.ofSeconds(9));
+    assertEquals(tag, tracker.etag(result));
+    clock.advance(Duration.ofSeconds(1));
+    assertNotEquals(tag, tracker.etag(result));
+  }
+
+  @Test
+  void tagNeverOutlivesMaxAgeWhateverTheStartingInstant() {
+    BigDecimal result = new BigDecimal("42");
+    for (int offset = 0; offset < 10_000; offset += 1_250) {
+      clock.advance(Duration.ofMillis(offset));
+      String tag = tracker.etag(result);
+      clock.advance(Duration.ofSeconds(10).plusMillis(1));
+      assertNotEquals(tag, tracker.etag(result));
+    }
+  }
+
+  private static final class MutableClock extends Clock {
+    private Instant now;
+
+    private MutableClock(Instant now) {
+      this.now = now;
+    }
+
+    private void advance(Duration duration) {
+      now = now.plus(duration);
+    }
+
+    @Override
+    public ZoneId getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      return this;
+    }
+
+    @Override
+    public Instant instant() {
+      return now;
+    }
+  }
+}
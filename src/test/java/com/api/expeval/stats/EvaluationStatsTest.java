@@ -0,0 +1,136 @@
+package com.api.expeval.stats;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import com.api.expeval.dto.ExpressionStatsResponse;
+import com.api.expeval.exception.ExpressionValidationException;
+
+class EvaluationStatsTest {
+  private final MutableClock clock = new MutableClock(Instant.parse("2026-01-01T00:00:30Z"));
+  private final EvaluationStats stats = new EvaluationStats(10, 3, Duration.ofMinutes(1), clock);
+
+  @Test
+  void aggregatesRecentMinutes() {
+    for (int i = 0; i < 50; i++) {
+      stats.record("1+1", new BigDecimal("2"), null, 40_000);
+    }
+    for (int i = 0; i < 20; i++) {
+      stats.record("2*3", new BigDecimal("6"), null, 80_000);
+    }
+    clock.advance(Duration.ofMinutes(1));
+    for (int i = 0; i < 10; i++) {
+      stats.record("1/0", null, "Division by zero.", 2_000_000);
+    }
+    for (int i = 0; i < 100; i++) {
+      stats.record(i + "*2", new BigDecimal(2 * i), null, 50_000);
+    }
+
+    ExpressionStatsResponse snapshot = stats.snapshot(2);
+    assertEquals(180, snapshot.getEvaluations());
+    assertEquals(10, snapshot.getErrors());
+    assertEquals(10.0 / 180, snapshot.getErrorRate(), 1e-12);
+    assertTrue(Math.abs(snapshot.getDistinctExpressions() - 103) <= 5, "distinct " + snapshot.getDistinctExpressions());
+    assertEquals(List.of("1+1", "2*3", "1/0"),
+        snapshot.getTopExpressions().stream().map(ExpressionStatsResponse.Frequency::getValue).toList());
+    assertEquals(50, snapshot.getTopExpressions().get(0).getCount());
+    assertEquals("Division by zero.", snapshot.getTopErrors().get(0).getValue());
+    assertEquals(10, snapshot.getTopErrors().get(0).getCount());
+    assertEquals(List.of(70L, 110L),
+        snapshot.getPerMinute().stream().map(ExpressionStatsResponse.Minute::getEvaluations).toList());
+    assertEquals(50, snapshot.getLatencyMicros().getP50());
+    assertTrue(snapshot.getLatencyMicros().getMax() >= 1_990);
+
+    ExpressionStatsResponse lastMinute = stats.snapshot(1);
+    assertEquals(110, lastMinute.getEvaluations());
+    assertEquals("1/0", lastMinute.getTopExpressions().get(0).getValue());
+  }
+
+  @Test
+  void forgetsWindowsOutsideTheRing() {
+    stats.record("1+1", new BigDecimal("2"), null, 1_000);
+    clock.advance(Duration.ofMinutes(10));
+    stats.record("1+2", new BigDecimal("3"), null, 1_000);
+
+    ExpressionStatsResponse snapshot = stats.snapshot(10);
+    assertEquals(1, snapshot.getEvaluations());
+    assertEquals("1+2", snapshot.getTopExpressions().get(0).getValue());
+    assertThrows(ExpressionValidationException.class, () -> stats.snapshot(11));
+    assertThrows(ExpressionValidationException.class, () -> stats.snapshot(0));
+  }
+
+  @Test
+  void decaysResultDistribution() {
+    stats.record("1+1", new BigDecimal("2"), null, 1_000);
+    stats.record("0-5", new BigDecimal("-5"), null, 1_000);
+    stats.record("0*1", BigDecimal.ZERO, null, 1_000);
+    clock.advance(Duration.ofMinutes(1));
+    stats.record("100+1", new BigDecimal("101"), null, 1_000);
+
+    List<ExpressionStatsResponse.ResultBucket> buckets = stats.snapshot(1).getResultDistribution();
+    assertEquals(4, buckets.size());
+    assertEquals(0, new BigDecimal("-10").compareTo(buckets.get(0).getLowerBound()));
+    assertEquals(0, new BigDecimal("-1").compareTo(buckets.get(0).getUpperBound()));
+    assertEquals(0.5, buckets.get(0).getWeight(), 1e-9);
+    assertEquals(0, BigDecimal.ZERO.compareTo(buckets.get(1).getLowerBound()));
+    assertEquals(0, BigDecimal.ONE.compareTo(buckets.get(2).getLowerBound()));
+    assertEquals(0.5, buckets.get(2).getWeight(), 1e-9);
+    assertEquals(0, new BigDecimal("100").compareTo(buckets.get(3).getLowerBound()));
+    assertEquals(0, new BigDecimal("1000").compareTo(buckets.get(3).getUpperBound()));
+    assertEquals(1.0, buckets.get(3).getWeight(), 1e-9);
+  }
+
+  @Test
+  void sketchesStayAccurate() {
+    HyperLogLog distinct = new HyperLogLog(12);
+    CountMinSketch counts = new CountMinSketch(4, 1024);
+    for (int i = 0; i < 100_000; i++) {
+      long hash = Hashing.hash("x" + i);
+      distinct.add(hash);
+      counts.add(hash);
+    }
+    assertTrue(Math.abs(distinct.estimate() - 100_000) < 5_000, "estimate " + distinct.estimate());
+    long hot = Hashing.hash("hot");
+    for (int i = 0; i < 1_000; i++) {
+      counts.add(hot);
+    }
+    long estimate = counts.estimate(hot);
+    assertTrue(estimate >= 1_000 && estimate <= 1_000 + 2 * 101_000 / 1024, "estimate " + estimate);
+  }
+
+  private static final class MutableClock extends Clock {
+    private Instant now;
+
+    private MutableClock(Instant now) {
+      this.now = now;
+    }
+
+    private void advance(Duration duration) {
+      now = now.plus(duration);
+    }
+
+    @Override
+    public ZoneId getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      return this;
+    }
+
+    @Override
+    public Instant instant() {
+      return now;
+    }
+  }
+}
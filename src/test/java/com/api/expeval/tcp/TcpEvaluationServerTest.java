@@ -0,0 +1,68 @@
+package com.api.expeval.tcp;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import com.api.expeval.model.PrecisionProfile;
+import com.api.expeval.tcp.client.ExpressionTcpClient;
+import com.api.expeval.tcp.client.ExpressionTcpException;
+
+@SpringBootTest(properties = {"expeval.tcp.enabled=true", "expeval.tcp.port=0", "expeval.tcp.max-in-flight=8"})
+class TcpEvaluationServerTest {
+
+  @Autowired
+  private TcpEvaluationServer server;
+
+  @Test
+  void evaluatesPipelinedRequests() throws Exception {
+    try (ExpressionTcpClient client = new ExpressionTcpClient("localhost", server.localPort(), 64)) {
+      assertEquals(new BigDecimal("15"), client.evaluate("3+4*6-12"));
+
+      List<CompletableFuture<BigDecimal>> futures = new ArrayList<>();
+      for (int i = 0; i < 500; i++) {
+        futures.add(client.evaluateAsync(i + "*2", null));
+      }
+      for (int i = 0; i < 500; i++) {
+        assertEquals(0, BigDecimal.valueOf(2L * i).compareTo(futures.get(i).join()));
+      }
+      assertEquals(new BigDecimal("0.3333333333333333"),
+          client.evaluateAsync("1/3", PrecisionProfile.FAST).join());
+    }
+  }
+
+  @Test
+  void reportsErrorsWithStatus() throws Exception {
+    try (ExpressionTcpClient client = new ExpressionTcpClient("localhost", server.localPort(), 4)) {
+      ExpressionTcpException evaluation = assertThrows(ExpressionTcpException.class, () -> client.evaluate("1/0"));
+      assertEquals(TcpProtocol.STATUS_EVALUATION_ERROR, evaluation.getStatus());
+
+      ExpressionTcpException invalid = assertThrows(ExpressionTcpException.class, () -> client.evaluate("1+"));
+      assertEquals(TcpProtocol.STATUS_INVALID, invalid.getStatus());
+
+      ExpressionTcpException blank = assertThrows(ExpressionTcpException.class, () -> client.evaluate(" "));
+      assertEquals("Expression is required.", blank.getMessage());
+
+      assertEquals(new BigDecimal("2"), client.evaluate("1+1"));
+    }
+  }
+
+  @Test
+  void rejectsOversizedExpressionWithoutHoldingAPermit() throws Exception {
+    try (ExpressionTcpClient client = new ExpressionTcpClient("localhost", server.localPort(), 2)) {
+      for (String oversized : List.of("1+".repeat(40_000) + "1", "1+".repeat(32_766) + "1")) {
+        assertThrows(IllegalArgumentException.class, () -> client.evaluateAsync(oversized, null));
+      }
+      // with a leaked permit this blocks forever, so it runs on a pool thread
+      assertEquals(new BigDecimal("2"),
+          CompletableFuture.supplyAsync(() -> client.evaluateAsync("1+1", null).join()).get(10, TimeUnit.SECONDS));
+    }
+  }
+}
@@ -0,0 +1,109 @@
+package com.api.expeval.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import com.api.expeval.exception.ExpressionEvaluationException;
+
+class BigDecimalMathTest {
+
+  private static final MathContext MC = new MathContext(32, RoundingMode.HALF_UP);
+  private static final MathContext HIGH = new MathContext(64, RoundingMode.HALF_UP);
+  private static final MathContext FAST = new MathContext(16, RoundingMode.HALF_EVEN);
+
+  @Test
+  void computesConstants() {
+    assertEquals(new BigDecimal("3.1415926535897932384626433832795"), BigDecimalMath.pi(MC));
+    assertEquals(new BigDecimal("0.69314718055994530941723212145818"), BigDecimalMath.ln2(MC));
+    assertEquals(new BigDecimal("2.3025850929940456840179914546844"), BigDecimalMath.ln10(MC));
+  }
+
+  @Test
+  void computesConstantsAtHighPrecision() {
+    assertEquals(new BigDecimal("3.141592653589793238462643383279502884197169399375105820974944592"),
+        BigDecimalMath.pi(HIGH));
+  }
+
+  @Test
+  void evaluatesExpAndLn() {
+    assertEquals(new BigDecimal("2.7182818284590452353602874713527"), BigDecimalMath.exp(BigDecimal.ONE, MC));
+    assertEquals(new BigDecimal("0.36787944117144232159552377016146"),
+        BigDecimalMath.exp(BigDecimal.ONE.negate(), MC));
+    assertEquals(new BigDecimal("18.631401766168018033193933347963"),
+        BigDecimalMath.ln(new BigDecimal("123456789"), MC));
+    assertEquals(new BigDecimal("-0.0010005003335835335001429822540683"),
+        BigDecimalMath.ln(new BigDecimal("0.999"), MC));
+  }
+
+  @Test
+  void evaluatesLog10() {
+    assertEquals(0, BigDecimal.valueOf(-2).compareTo(BigDecimalMath.log10(new BigDecimal("0.01"), MC)));
+    assertEquals(new BigDecimal("0.30102999566398119521373889472449"),
+        BigDecimalMath.log10(BigDecimal.valueOf(2), MC));
+  }
+
+  @Test
+  void evaluatesTrigonometryWithRangeReduction() {
+    assertEquals(new BigDecimal("0.84147098480789650665250232163030"), BigDecimalMath.sin(BigDecimal.ONE, MC));
+    assertEquals(new BigDecimal("0.86231887228768393410193851395084"),
+        BigDecimalMath.cos(BigDecimal.valueOf(100), MC));
+    assertEquals(new BigDecimal("-0.65698659871878909039699909159364"),
+        BigDecimalMath.sin(BigDecimal.valueOf(-7), MC));
+  }
+
+  @Test
+  void rejectsTrigArgumentsTooLargeToReduce() {
+    BigDecimal limit = BigDecimal.ONE.scaleByPowerOfTen(32);
+    assertEquals(new BigDecimal("0.39019702543336304916976132128934"), BigDecimalMath.sin(limit, MC));
+    assertThrows(ExpressionEvaluationException.class,
+        () -> BigDecimalMath.sin(limit.add(BigDecimal.ONE), MC));
+    assertThrows(ExpressionEvaluationException.class,
+        () -> BigDecimalMath.cos(BigDecimal.ONE.scaleByPowerOfTen(20000).negate(), MC));
+    assertThrows(ExpressionEvaluationException.class,
+        () -> BigDecimalMath.sin(BigDecimal.ONE.scaleByPowerOfTen(17), FAST));
+  }
+
+  @Test
+  void evaluatesNonIntegerPower() {
+    assertEquals(new BigDecimal("2.8284271247461900976033774484194"),
+        BigDecimalMath.pow(BigDecimal.valueOf(2), new BigDecimal("1.5"), MC));
+    assertEquals(new BigDecimal("1.9952623149688796013524553967395"),
+        BigDecimalMath.pow(BigDecimal.TEN, new BigDecimal("0.3"), MC));
+    assertEquals(0, BigDecimal.valueOf(2).compareTo(
+        BigDecimalMath.pow(BigDecimal.valueOf(4), new BigDecimal("0.5"), MC)));
+  }
+
+  @Test
+  void usesDoubleFastPathAtLowPrecision() {
+    BigDecimal result = BigDecimalMath.sqrt(BigDecimal.valueOf(2), FAST);
+    assertEquals(16, result.precision());
+    assertEquals(new BigDecimal("1.414213562373095"), result.stripTrailingZeros());
+    assertEquals(0, new BigDecimal("2.718281828459045")
+        .compareTo(BigDecimalMath.exp(BigDecimal.ONE, FAST)));
+  }
+
+  @Test
+  void selectsMinAndMax() {
+    List<BigDecimal> values = List.of(BigDecimal.ONE, new BigDecimal("-2.5"), BigDecimal.TEN);
+    assertEquals(new BigDecimal("-2.5"), BigDecimalMath.min(values, MC));
+    assertEquals(BigDecimal.TEN, BigDecimalMath.max(values, MC));
+  }
+
+  @Test
+  void rejectsInvalidArguments() {
+    assertThrows(ExpressionEvaluationException.class,
+        () -> BigDecimalMath.sqrt(BigDecimal.ONE.negate(), MC));
+    assertThrows(ExpressionEvaluationException.class, () -> BigDecimalMath.ln(BigDecimal.ZERO, MC));
+    assertThrows(ExpressionEvaluationException.class,
+        () -> BigDecimalMath.log10(BigDecimal.ONE.negate(), MC));
+    assertThrows(ExpressionEvaluationException.class,
+        () -> BigDecimalMath.exp(BigDecimal.valueOf(710), MC));
+    assertThrows(ExpressionEvaluationException.class,
+        () -> BigDecimalMath.pow(BigDecimal.ZERO, new BigDecimal("-0.5"), MC));
+  }
+}
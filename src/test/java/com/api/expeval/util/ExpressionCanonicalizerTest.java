@@ -0,0 +1,78 @@
+package com.api.expeval.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.math.BigDecimal;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import com.api.expeval.exception.ExpressionValidationException;
+import com.api.expeval.model.PrecisionProfile;
+
+class ExpressionCanonicalizerTest {
+
+  private static CanonicalExpression canonical(String exp) {
+    return ExpressionCanonicalizer.canonicalize(exp, PrecisionProfile.STANDARD);
+  }
+
+  @Test
+  void equivalentSpellingsShareKey() {
+    CanonicalExpression expected = canonical("1+2");
+    assertEquals("1+2", expected.text());
+    assertEquals(expected, canonical(" 1 + 2 "));
+    assertEquals(expected, canonical("2+1"));
+    assertEquals(expected, canonical("(1)+(2)"));
+    assertEquals(expected, canonical("((2)) + 1.00"));
+  }
+
+  @Test
+  void keepsParenthesesTheGrammarNeeds() {
+    assertEquals("(1+2)*3", canonical("(1+2)*3").text());
+    assertEquals("10-(2-3)", canonical("10-(2-3)").text());
+    assertEquals("10-2-3", canonical("(10-2)-3").text());
+    assertEquals("2^(2^3)", canonical("2^(2^3)").text());
+    assertEquals("2^2^3", canonical("2^2^3").text());
+  }
+
+  @Test
+  void doesNotReassociateChains() {
+    assertNotEquals(canonical("(1+2)+3").text(), canonical("1+(2+3)").text());
+    assertEquals(canonical("3+(1+2)"), canonical("(2+1)+3"));
+  }
+
+  @Test
+  void normalizesUnaryAndFunctions() {
+    assertEquals("0-(2+3)", canonical("-(3 + 2)").text());
+    assertEquals("max(-1,2,3)", canonical("max(3, 2, -1)").text());
+    assertEquals("sqrt(2*3)", canonical("sqrt( 3*2 )").text());
+  }
+
+  @Test
+  void keyAndHashDependOnPrecision() {
+    CanonicalExpression standard = canonical("1/3");
+    CanonicalExpression high = ExpressionCanonicalizer.canonicalize("1/3", PrecisionProfile.HIGH);
+    assertEquals(standard.text(), high.text());
+    assertNotEquals(standard.key(), high.key());
+    assertNotEquals(standard.hash(), high.hash());
+    assertEquals(standard.hash(), ExpressionCanonicalizer.hash(standard.key()));
+  }
+
+  @Test
+  void rejectsInvalidExpressions() {
+    assertThrows(ExpressionValidationException.class, () -> canonical("1+"));
+    assertThrows(ExpressionValidationException.class, () -> canonical(" "));
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"3+4*6-12", "-2^-2", "2*-(3)+1", "2^-(1)^2", "1--2", "0.1+0.2*3",
+      "100 * (1 + 0.05)^2", "10 - (2 + 3) * (4 - 6)", "2.5%1.2 + 0.1", "-(1-(1-1))", "1++1",
+      "(2^3 + 4^2) / 2", "min(4, -(2), 3) * sqrt(abs(-9))", "1.10+2.200+3.3", "100/10/2"})
+  void canonicalFormIsStableAndResultPreserving(String exp) {
+    CanonicalExpression canonical = canonical(exp);
+    assertEquals(canonical, canonical(canonical.text()));
+    BigDecimal expected = ExpressionParser.evaluate(exp);
+    assertEquals(0, expected.compareTo(ExpressionParser.evaluate(canonical.text())), canonical.text());
+  }
+}
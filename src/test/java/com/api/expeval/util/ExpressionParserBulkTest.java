@@ -74,7 +74,7 @@ class ExpressionParserBulkTest {
             Arguments.of("1.1*1.1", "1.21"),
             Arguments.of("1/0.5", "2.0000000000"),
             Arguments.of("4^0.5", "2"),
-            Arguments.of("2^1.5", "2.8284271247461903"),
+            Arguments.of("2^1.5", "2.8284271247461900976033774484194"),
             Arguments.of("0.5%0.2", "0.1"),
             Arguments.of("1.23456789+9.87654321", "11.1111111"),
             Arguments.of("10.0/2.0", "5.0000000000"),
@@ -146,7 +146,25 @@ class ExpressionParserBulkTest {
             Arguments.of("10/2.5", "4.0000000000"),
             Arguments.of("100%3", "1"),
             Arguments.of("2^3^2", "64"),
-            Arguments.of("1++1", "2")
+            Arguments.of("1++1", "2"),
+
+            // Functions
+            Arguments.of("sqrt(16)", "4"),
+            Arguments.of("sqrt(2)", "1.4142135623730950488016887242097"),
+            Arguments.of("ln(1)", "0"),
+            Arguments.of("log10(1000)", "3"),
+            Arguments.of("exp(0)", "1"),
+            Arguments.of("sin(0)", "0"),
+            Arguments.of("cos(0)", "1"),
+            Arguments.of("abs(-2.5)", "2.5"),
+            Arguments.of("min(3, -2, 5)", "-2"),
+            Arguments.of("max(1, 2+3)", "5"),
+            Arguments.of("-sqrt(9)", "-3"),
+            Arguments.of("2*-abs(-3)", "-6"),
+            Arguments.of("sqrt(abs(-16)) + 1", "5"),
+            Arguments.of("min(-(1), -2)", "-2"),
+            Arguments.of("27^0.25", "2.2795070569547776419935632519636"),
+            Arguments.of("0^0.5", "0")
         );
     }
 
@@ -173,7 +191,19 @@ class ExpressionParserBulkTest {
             Arguments.of("10%0", ExpressionEvaluationException.class),
             Arguments.of("(-4)^0.5", ExpressionEvaluationException.class),
             Arguments.of("10^1000.5", ExpressionEvaluationException.class),
-            Arguments.of("0/0", ExpressionEvaluationException.class)
+            Arguments.of("0/0", ExpressionEvaluationException.class),
+            Arguments.of("sqrt(-1)", ExpressionEvaluationException.class),
+            Arguments.of("ln(0)", ExpressionEvaluationException.class),
+            Arguments.of("exp(1000)", ExpressionEvaluationException.class),
+
+            // Function Syntax Errors
+            Arguments.of("foo(1)", ExpressionValidationException.class),
+            Arguments.of("sqrt 4", ExpressionValidationException.class),
+            Arguments.of("sqrt()", ExpressionValidationException.class),
+            Arguments.of("sqrt(1, 2)", ExpressionValidationException.class),
+            Arguments.of("min(1,)", ExpressionValidationException.class),
+            Arguments.of("(1, 2)", ExpressionValidationException.class),
+            Arguments.of("2sqrt(4)", ExpressionValidationException.class)
         );
     }
 }
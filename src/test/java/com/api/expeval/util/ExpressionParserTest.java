@@ -7,6 +7,7 @@ import java.math.BigDecimal;
 import org.junit.jupiter.api.Test;
 import com.api.expeval.exception.ExpressionEvaluationException;
 import com.api.expeval.exception.ExpressionValidationException;
+import com.api.expeval.model.PrecisionProfile;
 
 class ExpressionParserTest {
 
@@ -146,6 +147,28 @@ class ExpressionParserTest {
     assertThrows(ExpressionEvaluationException.class, () -> ExpressionParser.evaluate("10^1000.5"));
   }
 
+  @Test
+  void evaluatesWithPrecisionProfiles() {
+    assertEquals(new BigDecimal("0.3333333333333333"),
+        ExpressionParser.evaluate("1/3", PrecisionProfile.FAST));
+    assertEquals(new BigDecimal("0.3333333333333333"),
+        ExpressionParser.evaluate("1/3", PrecisionProfile.STANDARD));
+    assertEquals(new BigDecimal("0.3333333333333333333333333333333333333333333333333333333333333333"),
+        ExpressionParser.evaluate("1/3", PrecisionProfile.HIGH));
+  }
+
+  @Test
+  void fastProfileRoundsToSixteenDigits() {
+    BigDecimal result = ExpressionParser.evaluate("100000/3 + sqrt(2)", PrecisionProfile.FAST);
+    assertEquals(new BigDecimal("33334.74754689570"), result);
+  }
+
+  @Test
+  void highProfileKeepsSixtyFourDigits() {
+    BigDecimal result = ExpressionParser.evaluate("sqrt(2)", PrecisionProfile.HIGH);
+    assertEquals(new BigDecimal("1.414213562373095048801688724209698078569671875376948073176679738"), result);
+  }
+
   @Test
   void rejectsUnsupportedOperator() {
     // This is hard to reach via public evaluate because the loop throws on invalid char,
@@ -0,0 +1,22 @@
+package com.api.expeval.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+class LogRateLimiterTest {
+
+  @Test
+  void dropsLinesOverBudgetAndReportsThemWithTheNextPermittedLine() throws InterruptedException {
+    LogRateLimiter limiter = new LogRateLimiter(2);
+
+    assertEquals(0, limiter.tryAcquire());
+    assertEquals(0, limiter.tryAcquire());
+    assertEquals(-1, limiter.tryAcquire());
+    assertEquals(-1, limiter.tryAcquire());
+
+    Thread.sleep(1_050);
+    assertEquals(2, limiter.tryAcquire());
+    assertEquals(0, limiter.tryAcquire());
+  }
+}
@@ -0,0 +1,56 @@
+package com.api.expeval.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import org.junit.jupiter.api.Test;
+
+class RationalTest {
+
+  private static Rational of(long numerator, long denominator) {
+    return Rational.of(numerator, denominator);
+  }
+
+  @Test
+  void keepsLowestTermsWithPositiveDenominator() {
+    assertEquals(of(-1, 2), of(2, -4));
+    assertEquals("-1/2", of(2, -4).toString());
+    assertEquals(of(3, 2), Rational.valueOf(new BigDecimal("1.50")));
+    assertEquals(of(1000, 1), Rational.valueOf(new BigDecimal("1E+3")));
+    assertEquals(Rational.ZERO, of(0, -7));
+  }
+
+  @Test
+  void switchesToBigIntegerOnOverflowAndBack() {
+    Rational big = of(Long.MAX_VALUE, 1).add(Rational.ONE);
+    assertEquals(BigInteger.valueOf(Long.MAX_VALUE).add(BigInteger.ONE), big.numerator());
+    assertEquals(of(Long.MAX_VALUE, 1), big.subtract(Rational.ONE));
+    assertEquals(BigInteger.ONE.shiftLeft(63), of(Long.MIN_VALUE, 1).negate().numerator());
+    assertEquals(of(1, 3), of(Long.MAX_VALUE, 3).divide(of(Long.MAX_VALUE, 1)));
+  }
+
+  @Test
+  void computesExactly() {
+    assertEquals(Rational.ONE, of(1, 3).multiply(of(3, 1)));
+    assertEquals(of(1, 1), of(1, 10).add(of(2, 10)).add(of(7, 10)));
+    assertEquals(of(9, 4), of(2, 3).pow(-2));
+    assertEquals(of(-1, 1), of(-7, 1).remainder(of(2, 1)));
+    assertEquals(of(1, 2), of(7, 2).remainder(Rational.ONE));
+    assertEquals(-1, of(1, 3).compareTo(of(1, 2)));
+    assertThrows(ArithmeticException.class, () -> Rational.ONE.divide(Rational.ZERO));
+  }
+
+  @Test
+  void materializesOnceWithCorrectRounding() {
+    assertEquals(new BigDecimal("0.125"), of(1, 8).toBigDecimal(17));
+    assertEquals(new BigDecimal("0.66666666666666666"), of(2, 3).toBigDecimal(17));
+    assertEquals(new BigDecimal("0.6666666666666667"),
+        of(2, 3).toBigDecimal(17).setScale(16, RoundingMode.HALF_UP));
+    // 1/1024 = 0.0009765625 does not end within 5 places; truncation still rounds up at 4
+    assertEquals(new BigDecimal("0.00097"), of(1, 1024).toBigDecimal(5));
+    assertEquals(new BigDecimal("0.0010"), of(1, 1024).toBigDecimal(5).setScale(4, RoundingMode.HALF_UP));
+  }
+}
@@ -0,0 +1,58 @@
+package com.api.expeval.warmup;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import java.math.BigDecimal;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import com.api.expeval.repository.ExpressionRecordRepository;
+
+@SpringBootTest(properties = {
+    "expeval.warmup.enabled=true",
+    "expeval.warmup.corpus=classpath:warmup/test-expressions.txt",
+    "expeval.warmup.round-size=200",
+    "expeval.warmup.max-duration=2s",
+    "management.endpoint.health.show-details=always",
+    "management.endpoint.health.probes.enabled=true",
+    "management.endpoint.health.group.readiness.include=readinessState,warmup"})
+@AutoConfigureMockMvc
+class EvaluationWarmupTest {
+
+  @Autowired
+  private MockMvc mockMvc;
+
+  @Autowired
+  private EvaluationWarmup warmup;
+
+  @Autowired
+  private MeterRegistry registry;
+
+  @Autowired
+  private ExpressionRecordRepository repository;
+
+  @Test
+  void gatesReadinessUntilWarmupFinishesWithoutStoringAnything() throws Exception {
+    if (!warmup.isFinished()) {
+      mockMvc.perform(get("/actuator/health/readiness"))
+          .andExpect(status().isServiceUnavailable());
+    }
+    long deadline = System.nanoTime() + 10_000_000_000L;
+    while (!warmup.isFinished() && System.nanoTime() < deadline) {
+      Thread.sleep(20);
+    }
+
+    mockMvc.perform(get("/actuator/health/readiness"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.components.warmup.details.iterations").isNumber());
+    assertTrue(registry.get("expeval.warmup.iterations").gauge().value() >= 200);
+    assertTrue(registry.get("expeval.warmup.duration").timeGauge().value() > 0);
+    assertTrue(repository.findByResult(new BigDecimal("4321.1234000000000000")).isEmpty());
+  }
+}